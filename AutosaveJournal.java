@@ -0,0 +1,364 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code AutosaveJournal} class writes every move of the current level to an append-only file, so the
+ * position can be rebuilt with {@link #replay(Path, LevelRepository)} after the game was closed or crashed.
+ *
+ * <p>
+ * The file starts with the position the level was started from, as a {@link SaveGame}, followed by frames.
+ * A frame of moves holds their number and then the moves themselves, 2 bits each and 4 to a byte; a frame of
+ * undos holds only their number. A redone move is written as a move again. Starting or resetting a level
+ * replaces the file with a new start position.
+ * </p>
+ *
+ * <p>
+ * Recording a move only appends one byte to a buffer in memory. A background thread writes the buffered
+ * moves as frames and forces them to the disk once every commit interval, so one {@code fsync} covers
+ * every move made in that interval and the thread handling key presses never waits for the disk. At most
+ * the moves of the last interval are lost in a crash; a frame cut off by a crash is ignored on replay.
+ * </p>
+ */
+public class AutosaveJournal implements Closeable {
+
+    /**
+     * Default location of the journal.
+     */
+    public static final Path DEFAULT_FILE = Path.of("save_files", "autosave.journal");
+
+    /**
+     * Default interval between two group commits in milliseconds.
+     */
+    public static final long DEFAULT_COMMIT_MILLIS = 250;
+
+    /**
+     * First bytes of the journal file.
+     */
+    private static final int MAGIC = 0x534B4A52;
+
+    /**
+     * Version of the file format.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Operation code of an undo in the buffer; moves are stored as the ordinal of their {@link Direction}.
+     */
+    private static final byte UNDO = 4;
+
+    /**
+     * Kind of a frame of moves, in the lowest bit of the frame header.
+     */
+    private static final int MOVES_FRAME = 0;
+
+    /**
+     * Kind of a frame of undos, in the lowest bit of the frame header.
+     */
+    private static final int UNDOS_FRAME = 1;
+
+    /**
+     * The journal file, open for writing.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Thread writing the buffered operations once every commit interval.
+     */
+    private final ScheduledExecutorService writer;
+
+    /**
+     * Encoded start of a new journal not yet written, or {@code null}. Guarded by {@code this}.
+     */
+    private byte[] pendingStart;
+
+    /**
+     * Operations recorded since the last commit. Guarded by {@code this}.
+     */
+    private byte[] pending;
+
+    /**
+     * Number of operations in {@link #pending}. Guarded by {@code this}.
+     */
+    private int pendingCount;
+
+    /**
+     * Condition if the journal is closed. Guarded by {@code this}.
+     */
+    private boolean closed;
+
+    /**
+     * Constructs an {@link AutosaveJournal} writing to an open file and starts its writer thread.
+     *
+     * @param channel       The journal file, open for writing.
+     * @param commitMillis  Interval between two group commits in milliseconds.
+     */
+    private AutosaveJournal(FileChannel channel, long commitMillis) {
+        this.channel = channel;
+        this.pending = new byte[256];
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::commitQuietly, commitMillis, commitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a journal file for writing. Nothing is written until {@link #start(Model, int)} is called,
+     * so the file can still be replayed first. The journal is committed and closed when the JVM exits.
+     *
+     * @param file          The journal file.
+     * @param commitMillis  Interval between two group commits in milliseconds.
+     * @return              The journal.
+     * @throws IOException if the file can not be opened.
+     */
+    public static AutosaveJournal open(Path file, long commitMillis) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        AutosaveJournal journal = new AutosaveJournal(channel, commitMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "autosave-shutdown"));
+        return journal;
+    }
+
+    /**
+     * Starts a new journal from the current position of a level, discarding the previous one and any
+     * operations not yet written.
+     *
+     * @param model     {@link Model} of the level in its start position.
+     * @param moves     Number of moves made in the level before this position.
+     */
+    public synchronized void start(Model model, int moves) {
+        pendingStart = SaveGame.of(model, moves).encode();
+        pendingCount = 0;
+    }
+
+    /**
+     * Records a move that was made. Called on every move, so it only appends to a buffer.
+     *
+     * @param direction     The {@link Direction} of the move.
+     */
+    public synchronized void recordMove(Direction direction) {
+        append((byte) direction.ordinal());
+    }
+
+    /**
+     * Records that the last move was taken back.
+     */
+    public synchronized void recordUndo() {
+        append(UNDO);
+    }
+
+    /**
+     * Writes the operations recorded since the last commit and forces them to the disk.
+     *
+     * @throws IOException if the file can not be written.
+     */
+    public void commit() throws IOException {
+        byte[] start;
+        byte[] operations;
+        int count;
+        synchronized (this) {
+            if (closed || (pendingStart == null && pendingCount == 0)) {
+                return;
+            }
+            start = pendingStart;
+            operations = Arrays.copyOf(pending, pendingCount);
+            count = pendingCount;
+            pendingStart = null;
+            pendingCount = 0;
+        }
+
+        synchronized (channel) {
+            if (!channel.isOpen()) {
+                return;
+            }
+            if (start != null) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + 1 + Integer.BYTES + start.length);
+                header.putInt(MAGIC).put(VERSION).putInt(start.length).put(start);
+                writeFully(header.flip(), 0);
+            }
+            writeFully(encodeFrames(operations, count), channel.size());
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Commits the last operations, stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commitQuietly();
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        synchronized (channel) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the last position recorded in a journal file: the start position is restored into its level,
+     * loaded through a {@link LevelRepository}, and the moves and undos are played on it by a {@link GameEngine}.
+     *
+     * @param file      The journal file.
+     * @param levels    The repository loading the levels.
+     * @return          The last recorded position, or {@code null} if there is no journal.
+     * @throws IOException if the journal is damaged or belongs to a level that is not in the repository.
+     */
+    public static SaveGame replay(Path file, LevelRepository levels) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (bytes.length == 0) {
+            return null;
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        SaveGame start;
+        try {
+            if (in.getInt() != MAGIC || in.get() != VERSION) {
+                throw new IOException("Not an autosave journal");
+            }
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                throw new IOException("Truncated autosave journal");
+            }
+            start = SaveGame.decode(Arrays.copyOfRange(bytes, in.position(), in.position() + length));
+            in.position(in.position() + length);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated autosave journal", e);
+        }
+        if (start.getLevel() < 0 || start.getLevel() >= levels.getLevelCount()) {
+            throw new IOException("The autosave journal belongs to a level that is not in this level pack");
+        }
+
+        Model model = levels.getLevel(start.getLevel());
+        start.restore(model);
+        GameEngine engine = new GameEngine(model);
+        engine.setMovesBefore(start.getMoves());
+        try {
+            while (in.hasRemaining()) {
+                int header = SaveGame.readVarInt(in);
+                int count = header >>> 1;
+                if ((header & 1) == UNDOS_FRAME) {
+                    for (int i = 0; i < count; i++) {
+                        engine.undo();
+                    }
+                } else if ((count + 3) / 4 <= in.remaining()) {
+                    int first = in.position();
+                    for (int i = 0; i < count; i++) {
+                        int code = in.get(first + i / 4) >> 2 * (i % 4) & 3;
+                        engine.move(Direction.ALL[code]);
+                    }
+                    in.position(first + (count + 3) / 4);
+                } else {
+                    break;
+                }
+            }
+        } catch (BufferUnderflowException | IOException e) {
+            // A frame cut off by a crash ends the journal; the frames before it are kept.
+        }
+
+        return SaveGame.of(model, engine.getMoveCount());
+    }
+
+    /**
+     * Appends one operation to the buffer.
+     *
+     * @param operation     The ordinal of a {@link Direction} or {@link #UNDO}.
+     */
+    private void append(byte operation) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pending.length * 2);
+        }
+        pending[pendingCount++] = operation;
+    }
+
+    /**
+     * Encodes buffered operations as frames, one frame for every run of moves or undos.
+     *
+     * @param operations    The operations.
+     * @param count         Number of operations.
+     * @return              The frames, ready to be written.
+     */
+    private static ByteBuffer encodeFrames(byte[] operations, int count) {
+        ByteBuffer out = ByteBuffer.allocate(count / 4 + 6 * count + 16);
+        int i = 0;
+        while (i < count) {
+            boolean undo = operations[i] == UNDO;
+            int end = i;
+            while (end < count && (operations[end] == UNDO) == undo) {
+                end++;
+            }
+
+            int run = end - i;
+            SaveGame.writeVarInt(out, run << 1 | (undo ? UNDOS_FRAME : MOVES_FRAME));
+            if (!undo) {
+                for (int j = 0; j < run; j += 4) {
+                    int packed = 0;
+                    for (int k = 0; k < 4 && j + k < run; k++) {
+                        packed |= operations[i + j + k] << 2 * k;
+                    }
+                    out.put((byte) packed);
+                }
+            }
+            i = end;
+        }
+
+        return out.flip();
+    }
+
+    /**
+     * Writes a whole buffer to the journal file.
+     *
+     * @param buffer    The bytes to write.
+     * @param position  Position in the file of the first byte.
+     * @throws IOException if the file can not be written.
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Runs a commit on the writer thread, reporting a failure instead of stopping the thread.
+     */
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,420 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * The {@code Benchmark} class measures the hot paths of the game so performance regressions can be found:
+ * reading level files, moving the player through the {@link GameEngine} including the stuck and win checks,
+ * cloning a {@link GameGrid}, serializing a {@link Model}, painting a {@link LevelComponent} to an offscreen
+ * image and solving a level.
+ *
+ * <p>
+ * Every benchmark runs for each level of {@code levels/custom} and for synthetic square rooms of growing
+ * size. It is first warmed up, then timed over several iterations of a fixed length, and the average time
+ * per operation is reported with its error at 99.9% confidence. The results are written as JSON in the same
+ * layout as the JMH result files, one entry per benchmark and level, so they can be compared over time with
+ * the same tools.
+ * </p>
+ */
+public class Benchmark {
+
+    /**
+     * Functional interface of the operation measured by a benchmark.
+     */
+    private interface Operation {
+
+        /**
+         * Runs the operation once.
+         *
+         * @return A value depending on the work done, so it can not be optimized away.
+         * @throws Exception if the operation fails.
+         */
+        Object run() throws Exception;
+    }
+
+    /**
+     * Side lengths of the synthetic rooms.
+     */
+    private static final int[] SYNTHETIC_SIZES = {32, 128};
+
+    /**
+     * Maximum number of states stored by the solver benchmark.
+     */
+    private static final int SOLVER_MAX_STATES = 50_000;
+
+    /**
+     * The icons used by the game.
+     */
+    private static final File[] ICONS = {
+            new File("sokoban_icons/blank.png"),
+            new File("sokoban_icons/blankmarked.png"),
+            new File("sokoban_icons/player.png"),
+            new File("sokoban_icons/crate.png"),
+            new File("sokoban_icons/cratemarked.png"),
+            new File("sokoban_icons/wall.png")};
+
+    /**
+     * Student t quantile for 99.9% confidence, by degrees of freedom from 1.
+     */
+    private static final double[] T_999 = {636.6, 31.6, 12.9, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59};
+
+    /**
+     * Values returned by the operations, kept so the work can not be optimized away.
+     */
+    private static volatile int sink;
+
+    /**
+     * Number of warmup iterations.
+     */
+    private final int warmupIterations;
+
+    /**
+     * Number of measured iterations.
+     */
+    private final int measurementIterations;
+
+    /**
+     * Length of an iteration in nanoseconds.
+     */
+    private final long iterationNanos;
+
+    /**
+     * Results as JSON objects.
+     */
+    private final List<String> results;
+
+    /**
+     * Constructs a {@link Benchmark}.
+     *
+     * @param warmupIterations          Number of warmup iterations.
+     * @param measurementIterations     Number of measured iterations.
+     * @param iterationMillis           Length of an iteration in milliseconds.
+     */
+    public Benchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+        this.results = new ArrayList<>();
+    }
+
+    /**
+     * Runs every benchmark for one level.
+     *
+     * @param level             Name of the level, reported as the parameter.
+     * @param mapFile           The map .txt file of the level.
+     * @param interactiveFile   The interactive .txt file of the level.
+     * @throws Exception if a benchmark fails.
+     */
+    public void runLevel(String level, String mapFile, String interactiveFile) throws Exception {
+
+        MapFileReader reader = new MapFileReader(mapFile, interactiveFile);
+        Model model = reader.createModelFromFiles(mapFile, interactiveFile, 0, ICONS);
+
+        measure("MapFileReader.readMapFile", level, () -> reader.readMapFile(mapFile));
+        measure("MapFileReader.createModelFromFiles", level,
+                () -> reader.createModelFromFiles(mapFile, interactiveFile, 0, ICONS));
+
+        Model played = reader.createModelFromFiles(mapFile, interactiveFile, 0, ICONS);
+        GameEngine engine = new GameEngine(played);
+        Direction[] directions = Direction.ALL;
+        int[] step = new int[1];
+        measure("GameEngine.move", level, () -> {
+            int i = step[0]++;
+            if (i % 1024 == 1023) {
+                engine.reset();
+            }
+            return engine.move(directions[(i * 7 + i / 3) % directions.length]);
+        });
+
+        measure("GameGrid.clone", level, () -> model.getInteractive().clone());
+
+        byte[] serialized = serialize(model);
+        measure("Model.serialize", level, () -> serialize(model).length);
+        measure("Model.deserialize", level, () -> deserialize(serialized));
+
+        LevelComponent component = new LevelComponent(model.getMap(), model.getInteractive(), ICONS);
+        BufferedImage image = new BufferedImage(Math.max(1, component.getPreferredSize().width),
+                Math.max(1, component.getPreferredSize().height), BufferedImage.TYPE_INT_ARGB);
+        measure("LevelComponent.paintComponent", level, () -> {
+            Graphics2D g = image.createGraphics();
+            try {
+                component.paintComponent(g);
+            } finally {
+                g.dispose();
+            }
+            return image.getRGB(0, 0);
+        });
+
+        if (solver(model).solve().getStatus() == SolverResult.Status.SOLVED) {
+            measure("Solver.solve", level, () -> solver(model).solve().getPushes());
+        }
+    }
+
+    /**
+     * Creates the {@link Solver} of the solver benchmark. Its budgets keep a run within one iteration
+     * and its transposition table small, since levels it can not solve are left out.
+     *
+     * @param model     The {@link Model} to solve.
+     * @return          The {@link Solver}.
+     */
+    private Solver solver(Model model) {
+        Solver solver = new Solver(model);
+        solver.setTimeLimit(iterationNanos / 1_000_000);
+        solver.setMaxStates(SOLVER_MAX_STATES);
+        solver.setTableCapacity(SOLVER_MAX_STATES * 2);
+        return solver;
+    }
+
+    /**
+     * Runs every benchmark for a synthetic square room.
+     *
+     * @param size          Side length of the room, walls included.
+     * @param directory     Directory the level files are written to.
+     * @throws Exception if a benchmark fails.
+     */
+    public void runSynthetic(int size, Path directory) throws Exception {
+        Path map = directory.resolve("synthetic" + size + "_map.txt");
+        Path interactive = directory.resolve("synthetic" + size + "_interactive.txt");
+        writeSyntheticLevel(size, map, interactive);
+        runLevel("synthetic" + size, map.toString(), interactive.toString());
+    }
+
+    /**
+     * Returns the results as a JSON array.
+     *
+     * @return The JSON text.
+     */
+    public String toJson() {
+        return "[\n" + String.join(",\n", results) + "\n]\n";
+    }
+
+    /**
+     * Warms up and measures an operation, and adds the result.
+     *
+     * @param name          Name of the benchmark.
+     * @param level         Name of the level.
+     * @param operation     The operation to measure.
+     * @throws Exception if the operation fails.
+     */
+    private void measure(String name, String level, Operation operation) throws Exception {
+
+        int batch = 1;
+        for (int i = 0; i < warmupIterations; i++) {
+            batch = (int) iteration(operation, batch)[1];
+        }
+
+        double[] scores = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] run = iteration(operation, batch);
+            scores[i] = (double) run[0] / run[2];
+        }
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double error = Double.NaN;
+        if (scores.length > 1) {
+            variance /= scores.length - 1;
+            double t = T_999[Math.min(scores.length - 2, T_999.length - 1)];
+            error = t * Math.sqrt(variance / scores.length);
+        }
+
+        System.err.printf(Locale.ROOT, "%-36s %-12s %14.1f +- %.1f ns/op%n", name, level, mean, error);
+        results.add(json(name, level, mean, error, scores));
+    }
+
+    /**
+     * Runs an operation in batches until an iteration is over.
+     *
+     * @param operation     The operation to run.
+     * @param batch         Number of operations between reads of the clock.
+     * @return              The time spent in nanoseconds, a batch size taking about a tenth of a
+     *                      millisecond, and the number of operations run.
+     * @throws Exception if the operation fails.
+     */
+    private long[] iteration(Operation operation, int batch) throws Exception {
+        int value = 0;
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        long batchNanos;
+        do {
+            long before = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                Object result = operation.run();
+                value += result == null ? 0 : result.hashCode();
+            }
+            long now = System.nanoTime();
+            batchNanos = now - before;
+            operations += batch;
+            elapsed = now - start;
+        } while (elapsed < iterationNanos);
+        sink = value;
+
+        long wanted = batchNanos > 0 ? batch * 100_000L / batchNanos : batch * 2L;
+        int nextBatch = (int) Math.max(1, Math.min(1 << 20, wanted));
+        return new long[] {elapsed, nextBatch, operations};
+    }
+
+    /**
+     * Formats a result in the layout of the JMH JSON results.
+     *
+     * @param name      Name of the benchmark.
+     * @param level     Name of the level.
+     * @param score     Average time per operation in nanoseconds.
+     * @param error     Error of the score at 99.9% confidence.
+     * @param scores    Score of every measured iteration.
+     * @return          The JSON object.
+     */
+    private String json(String name, String level, double score, double error, double[] scores) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < scores.length; i++) {
+            raw.append(i == 0 ? "" : ", ").append(number(scores[i]));
+        }
+
+        return "  {\n"
+                + "    \"benchmark\": \"" + name + "\",\n"
+                + "    \"mode\": \"avgt\",\n"
+                + "    \"warmupIterations\": " + warmupIterations + ",\n"
+                + "    \"measurementIterations\": " + measurementIterations + ",\n"
+                + "    \"measurementTime\": \"" + iterationNanos / 1_000_000 + " ms\",\n"
+                + "    \"params\": {\"level\": \"" + level + "\"},\n"
+                + "    \"primaryMetric\": {\n"
+                + "      \"score\": " + number(score) + ",\n"
+                + "      \"scoreError\": " + (Double.isNaN(error) ? "\"NaN\"" : number(error)) + ",\n"
+                + "      \"scoreUnit\": \"ns/op\",\n"
+                + "      \"rawData\": [[" + raw + "]]\n"
+                + "    }\n"
+                + "  }";
+    }
+
+    /**
+     * Formats a number for JSON.
+     *
+     * @param value     The number.
+     * @return          The number with three decimals.
+     */
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Serializes a {@link Model} with Java serialization.
+     *
+     * @param model     The {@link Model}.
+     * @return          The serialized bytes.
+     * @throws IOException if the model can not be written.
+     */
+    private static byte[] serialize(Model model) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(model);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a {@link Model} written by {@link #serialize(Model)}.
+     *
+     * @param serialized    The serialized bytes.
+     * @return              The {@link Model}.
+     * @throws IOException if the model can not be read.
+     * @throws ClassNotFoundException if a class of the model is missing.
+     */
+    private static Model deserialize(byte[] serialized) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (Model) in.readObject();
+        }
+    }
+
+    /**
+     * Writes the level files of a square room surrounded by walls. A box stands next to a marked tile
+     * on every fourth row, and the player starts in the top left corner.
+     *
+     * @param size          Side length of the room, walls included.
+     * @param map           The map file to write.
+     * @param interactive   The interactive file to write.
+     * @throws IOException if a file can not be written.
+     */
+    private static void writeSyntheticLevel(int size, Path map, Path interactive) throws IOException {
+        StringBuilder mapText = new StringBuilder();
+        StringBuilder interactiveText = new StringBuilder();
+        for (int y = 0; y < size; y++) {
+            if (y > 0) {
+                mapText.append("next\n");
+                interactiveText.append("next\n");
+            }
+            for (int x = 0; x < size; x++) {
+                boolean wall = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+                boolean row = y % 4 == 2 && y < size - 2;
+                mapText.append(wall ? "wall" : row && x == size - 3 ? "redmarker" : "null").append('\n');
+                String object = "null";
+                if (x == 1 && y == 1) {
+                    object = "player";
+                } else if (row && x == size - 4) {
+                    object = "box";
+                }
+                interactiveText.append(object).append('\n');
+            }
+        }
+
+        Files.writeString(map, mapText);
+        Files.writeString(interactive, interactiveText);
+    }
+
+    /**
+     * Runs the benchmarks and writes the results as JSON.
+     *
+     * @param args optionally the JSON file to write, otherwise the results are printed,
+     *             and optionally "quick" for shorter runs
+     * @throws Exception if a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+
+        System.setProperty("java.awt.headless", "true");
+        boolean quick = args.length > 1 && args[1].equalsIgnoreCase("quick");
+        Benchmark benchmark = quick ? new Benchmark(2, 3, 100) : new Benchmark(5, 5, 1000);
+
+        for (int i = 1; i <= 4; i++) {
+            benchmark.runLevel("lvl" + i, "levels/custom/lvl" + i + "_map.txt",
+                    "levels/custom/lvl" + i + "_interactive.txt");
+        }
+
+        Path directory = Files.createTempDirectory("sokoban-benchmark");
+        try {
+            for (int size : SYNTHETIC_SIZES) {
+                benchmark.runSynthetic(size, directory);
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+
+        if (args.length > 0 && !args[0].equals("-")) {
+            Files.writeString(Path.of(args[0]), benchmark.toJson());
+        } else {
+            System.out.print(benchmark.toJson());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,327 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code BidirectionalSearch} class is the {@link Solver.Mode#BIDIRECTIONAL} mode of the {@link Solver}.
+ * It searches forwards with pushes from the start of the level and backwards with pulls from the solved
+ * state, where every box is on a marked tile, until the two searches reach a common state.
+ *
+ * <p>
+ * Both searches are breadth first and keep every state they reached in a map from the state to its node.
+ * The search with the smaller frontier expands its next layer of pushes, looking up every new state in the
+ * map of the other search. When a layer ends with at least one common state the cheapest one is the meet
+ * point, and since whole layers are expanded the solution through it has the fewest pushes. The solution
+ * is the moves of the forward search to the meet point followed by the pushes undoing the pulls of the
+ * backward search.
+ * </p>
+ *
+ * <p>
+ * The backward search needs as many marked tiles as boxes. Otherwise only the forward search runs.
+ * </p>
+ */
+public class BidirectionalSearch {
+
+    /**
+     * Number of expanded nodes between checks of the budgets and progress reports.
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * The solver holding the {@link Model}, the {@link SearchBoard} and the budgets.
+     */
+    private final Solver solver;
+
+    /**
+     * Generator of the pushes and pulls of a node.
+     */
+    private final PushGenerator generator;
+
+    /**
+     * States reached by the forward search.
+     */
+    private final Map<SearchNode, SearchNode> forward;
+
+    /**
+     * States reached by the backward search.
+     */
+    private final Map<SearchNode, SearchNode> backward;
+
+    /**
+     * Nodes of the last layer of the forward search.
+     */
+    private List<SearchNode> forwardFrontier;
+
+    /**
+     * Nodes of the last layer of the backward search.
+     */
+    private List<SearchNode> backwardFrontier;
+
+    /**
+     * Number of nodes expanded by the forward search.
+     */
+    private long forwardExpanded;
+
+    /**
+     * Number of nodes expanded by the backward search.
+     */
+    private long backwardExpanded;
+
+    /**
+     * Number of nodes generated.
+     */
+    private long generated;
+
+    /**
+     * Node of the forward search at the meet point, or {@code null}.
+     */
+    private SearchNode forwardMeet;
+
+    /**
+     * Node of the backward search at the meet point, or {@code null}.
+     */
+    private SearchNode backwardMeet;
+
+    /**
+     * Value of {@link System#nanoTime()} when the search started.
+     */
+    private long start;
+
+    /**
+     * Value of {@link System#nanoTime()} when the time budget runs out.
+     */
+    private long deadline;
+
+    /**
+     * Value of {@link System#nanoTime()} of the next progress notification.
+     */
+    private long nextReport;
+
+    /**
+     * Constructs a {@link BidirectionalSearch}.
+     *
+     * @param solver    The solver holding the {@link Model}, the {@link SearchBoard} and the budgets.
+     */
+    public BidirectionalSearch(Solver solver) {
+        this.solver = solver;
+        this.generator = new PushGenerator(solver.getBoard());
+        this.forward = new HashMap<>();
+        this.backward = new HashMap<>();
+        this.forwardFrontier = new ArrayList<>();
+        this.backwardFrontier = new ArrayList<>();
+    }
+
+    /**
+     * Searches for a solution with the fewest pushes.
+     *
+     * @return The {@link SolverResult} of the search.
+     */
+    public SolverResult solve() {
+
+        start = System.nanoTime();
+        long timeLimit = solver.getTimeLimit();
+        deadline = timeLimit == Long.MAX_VALUE ? Long.MAX_VALUE : start + timeLimit * 1_000_000;
+        nextReport = start + solver.getProgressInterval() * 1_000_000;
+
+        SearchNode root = generator.startNode(solver.getModel());
+        generated++;
+        if (root.getHeuristic() == SearchBoard.UNREACHABLE) {
+            return result(SolverResult.Status.UNSOLVABLE);
+        }
+        forward.put(root, root);
+        forwardFrontier.add(root);
+
+        if (solver.getBoard().getGoalCount() == solver.getModel().getBoxCount()) {
+            generator.goalNodes(backwardFrontier);
+            generated += backwardFrontier.size();
+            for (SearchNode node : backwardFrontier) {
+                backward.put(node, node);
+            }
+        }
+        SearchNode goal = backward.get(root);
+        if (root.getHeuristic() == 0 || goal != null) {
+            forwardMeet = root;
+            backwardMeet = goal;
+            return result(SolverResult.Status.SOLVED);
+        }
+
+        List<SearchNode> children = new ArrayList<>();
+        while (!forwardFrontier.isEmpty()) {
+            boolean backwards = !backwardFrontier.isEmpty() && backwardFrontier.size() < forwardFrontier.size();
+            List<SearchNode> frontier = backwards ? backwardFrontier : forwardFrontier;
+            Map<SearchNode, SearchNode> own = backwards ? backward : forward;
+            Map<SearchNode, SearchNode> other = backwards ? forward : backward;
+            List<SearchNode> next = new ArrayList<>();
+            int best = Integer.MAX_VALUE;
+
+            for (SearchNode node : frontier) {
+                children.clear();
+                if (backwards) {
+                    generator.expandPulls(node, children);
+                    backwardExpanded++;
+                } else {
+                    generator.expand(node, children);
+                    forwardExpanded++;
+                }
+                generated += children.size();
+
+                for (SearchNode child : children) {
+                    if (own.putIfAbsent(child, child) != null) {
+                        continue;
+                    }
+                    next.add(child);
+
+                    SearchNode match = other.get(child);
+                    boolean solved = !backwards && child.getHeuristic() == 0;
+                    if (match != null || solved) {
+                        int pushes = child.getPushes() + (match != null ? match.getPushes() : 0);
+                        if (pushes < best) {
+                            best = pushes;
+                            forwardMeet = backwards ? match : child;
+                            backwardMeet = backwards ? child : match;
+                        }
+                    }
+                }
+
+                SolverResult.Status status = check();
+                if (status != null) {
+                    return result(status);
+                }
+            }
+
+            if (best != Integer.MAX_VALUE) {
+                return result(SolverResult.Status.SOLVED);
+            }
+            if (backwards) {
+                backwardFrontier = next;
+            } else {
+                forwardFrontier = next;
+            }
+        }
+
+        return result(SolverResult.Status.UNSOLVABLE);
+    }
+
+    /**
+     * Returns the number of nodes expanded by the forward search.
+     *
+     * @return The number of pushes expanded.
+     */
+    public long getForwardExpanded() {
+        return forwardExpanded;
+    }
+
+    /**
+     * Returns the number of nodes expanded by the backward search.
+     *
+     * @return The number of pulls expanded.
+     */
+    public long getBackwardExpanded() {
+        return backwardExpanded;
+    }
+
+    /**
+     * Returns the state where the two searches met, as reached by the forward search.
+     *
+     * @return The meet point, or {@code null} if no solution was found.
+     */
+    public SearchNode getMeetPoint() {
+        return forwardMeet;
+    }
+
+    /**
+     * Checks the budgets and notifies the listener of the progress.
+     *
+     * @return The status if a budget ran out, otherwise {@code null}.
+     */
+    private SolverResult.Status check() {
+
+        if ((forwardExpanded + backwardExpanded) % CHECK_INTERVAL != 0) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        if (now - deadline > 0) {
+            return SolverResult.Status.TIME_LIMIT;
+        }
+        if (forward.size() + backward.size() >= solver.getMaxStates()) {
+            return SolverResult.Status.STATE_LIMIT;
+        }
+
+        SolverListener listener = solver.getListener();
+        if (listener != null && now - nextReport >= 0) {
+            listener.progress(statistics());
+            nextReport = now + solver.getProgressInterval() * 1_000_000;
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates the {@link SolverResult} of the search.
+     *
+     * @param status    Why the search stopped.
+     * @return          The {@link SolverResult}.
+     */
+    private SolverResult result(SolverResult.Status status) {
+        if (status != SolverResult.Status.SOLVED) {
+            forwardMeet = null;
+            backwardMeet = null;
+            return new SolverResult(status, null, -1, statistics());
+        }
+
+        int player = solver.getModel().getPlayerCell();
+        String moves = generator.movesTo(forwardMeet, player);
+        int pushes = forwardMeet.getPushes();
+        if (backwardMeet != null) {
+            if (forwardMeet.getParent() != null) {
+                player = forwardMeet.getPushedFrom();
+            }
+            moves += generator.movesFrom(backwardMeet, player);
+            pushes += backwardMeet.getPushes();
+        }
+
+        return new SolverResult(status, moves, pushes, statistics());
+    }
+
+    /**
+     * Creates a snapshot of the progress of the search. The bound is the number of pushes covered
+     * by the layers of both searches.
+     *
+     * @return The {@link SolverStatistics}.
+     */
+    private SolverStatistics statistics() {
+        int depth = layerDepth(forwardFrontier) + layerDepth(backwardFrontier);
+        return new SolverStatistics(forwardExpanded + backwardExpanded, generated,
+                forward.size() + backward.size(), depth, System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of pushes of the nodes in a layer.
+     *
+     * @param layer     The nodes of the layer.
+     * @return          Their number of pushes, or 0 if the layer is empty.
+     */
+    private static int layerDepth(List<SearchNode> layer) {
+        return layer.isEmpty() ? 0 : layer.get(0).getPushes();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("forward=").append(forwardExpanded).append(" backward=").append(backwardExpanded);
+        if (forwardMeet != null) {
+            Model model = solver.getModel();
+            sb.append(" meet=").append(forwardMeet.getPushes()).append('+')
+                    .append(backwardMeet != null ? backwardMeet.getPushes() : 0).append(" boxes=");
+            for (int box : forwardMeet.getBoxes()) {
+                Point point = model.toPoint(box);
+                sb.append('(').append(point.x).append(',').append(point.y).append(')');
+            }
+        }
+
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code ConcurrentTranspositionTable} class records the fewest pushes with which every state has
+ * been reached during a search, so that states reached again with as many or more pushes can be skipped.
+ * It can be used by many threads at once: the states are split over a number of stripes, each a
+ * {@link HashMap} guarded by its own lock, so threads only wait for each other when they touch the
+ * same stripe.
+ *
+ * <p>
+ * Like the {@link OffHeapTranspositionTable}, the table stores every state as a packed key, one bit per
+ * cell telling if it holds a box followed by the normalized player cell, rather than the
+ * {@link SearchNode} itself, so the nodes and their chains of parents can be collected once they are
+ * explored.
+ * </p>
+ */
+public class ConcurrentTranspositionTable implements TranspositionTable {
+
+    /**
+     * The stripes, each guarded by locking the map itself.
+     */
+    private final Map<State, Integer>[] stripes;
+
+    /**
+     * Number of {@code long}s in the key of a state.
+     */
+    private final int keyWords;
+
+    /**
+     * Mask selecting a stripe from a hash code.
+     */
+    private final int mask;
+
+    /**
+     * Number of states stored.
+     */
+    private final AtomicLong size;
+
+    /**
+     * Constructs an empty {@link ConcurrentTranspositionTable}.
+     *
+     * @param cellCount     Number of cells in the grid of the level.
+     * @param concurrency   Expected number of threads; the number of stripes is a power of two of at
+     *                      least four times this.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentTranspositionTable(int cellCount, int concurrency) {
+        int n = Integer.highestOneBit(Math.max(1, concurrency * 4) * 2 - 1);
+        this.stripes = new Map[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new HashMap<>();
+        }
+        this.mask = n - 1;
+        this.keyWords = (cellCount + 63) / 64 + 1;
+        this.size = new AtomicLong();
+    }
+
+    @Override
+    public boolean improve(SearchNode node) {
+        State state = pack(node);
+        Map<State, Integer> stripe = stripe(node);
+        synchronized (stripe) {
+            Integer known = stripe.get(state);
+            if (known != null && known <= node.getPushes()) {
+                return false;
+            }
+            stripe.put(state, node.getPushes());
+            if (known == null) {
+                size.incrementAndGet();
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public int lookup(SearchNode node) {
+        State state = pack(node);
+        Map<State, Integer> stripe = stripe(node);
+        synchronized (stripe) {
+            Integer known = stripe.get(state);
+            return known == null ? -1 : known;
+        }
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    @Override
+    public void clear() {
+        for (Map<State, Integer> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        size.set(0);
+    }
+
+    /**
+     * Returns the stripe holding the state of a node.
+     *
+     * @param node      The node.
+     * @return          The stripe.
+     */
+    private Map<State, Integer> stripe(SearchNode node) {
+        int h = node.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * Packs the state of a node into a key.
+     *
+     * @param node      The node.
+     * @return          The key.
+     */
+    private State pack(SearchNode node) {
+        long[] words = new long[keyWords];
+        for (int box : node.getBoxes()) {
+            words[box >>> 6] |= 1L << box;
+        }
+        words[keyWords - 1] = node.getPlayer();
+        return new State(words, node.hashCode());
+    }
+
+    /**
+     * The packed key of a state, with the hash code of its node.
+     */
+    private static final class State {
+
+        /**
+         * One bit per cell telling if it holds a box, followed by the normalized player cell.
+         */
+        private final long[] words;
+
+        /**
+         * Hash code of the node the key was packed from.
+         */
+        private final int hash;
+
+        /**
+         * Constructs a {@link State}.
+         *
+         * @param words     The packed key.
+         * @param hash      Hash code of the node the key was packed from.
+         */
+        State(long[] words, int hash) {
+            this.words = words;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof State other)) {
+                return false;
+            }
+
+            return hash == other.hash && Arrays.equals(words, other.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
\ No newline at end of file
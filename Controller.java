@@ -1,5 +1,4 @@
 import javax.swing.JComponent;
-import java.awt.Point;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -16,22 +15,37 @@ public class Controller extends View implements Serializable{
     private static final long serialVersionUID = 2L;
 
     /**
-     * Array of {@link Model}s that represents the levels of the game.
+     * {@link LevelRepository} loading the levels of the game.
      */
-    private final Model[] models;
+    private final transient LevelRepository levels;
 
     /**
      * Current {@link Model} being controlled.
      */
     private Model model;
 
+    /**
+     * {@link GameEngine} applying the rules of the game to the current {@link Model}.
+     */
+    private transient GameEngine engine;
+
+    /**
+     * {@link HintService} suggesting pushes for the current {@link Model}.
+     */
+    private transient HintService hints;
+
+    /**
+     * {@link AutosaveJournal} recording every move of the current level, or {@code null} if it could not be opened.
+     */
+    private transient AutosaveJournal autosave;
+
     /**
      * Current center component being controlled of the type {@link LevelComponent} .
      */
     public JComponent levelComponent;
 
     /**
-     * Total amount of levels imported.
+     * Total amount of levels in the level pack.
      */
     private final int maxNOfLevels;
 
@@ -52,17 +66,17 @@ public class Controller extends View implements Serializable{
 
     /**
      *
-     * Constructs a new Controller object with the given {@link Model}s.
+     * Constructs a new Controller object starting at the first level of a {@link LevelRepository}.
      * Also adds sounds to the {@link SoundManager} with keys representing different sounds.
      *
-     * @param dataModel an array of Model objects representing the game data models
+     * @param levels the repository loading the levels of the game
      * @throws IOException if an I/O error occurs during sound file loading
      */
-    public Controller(Model[] dataModel) throws IOException {
+    public Controller(LevelRepository levels) throws IOException {
 
-        super(dataModel);
-        this.models = dataModel;
-        this.maxNOfLevels = models.length;
+        super(levels);
+        this.levels = levels;
+        this.maxNOfLevels = levels.getLevelCount();
         this.soundObservers = new ArrayList<>();
         this.soundManager = new SoundManager();
         soundManager.addSound("move", "soundeffects/step2.wav");
@@ -72,297 +86,71 @@ public class Controller extends View implements Serializable{
         soundManager.addSound("newLvl","soundeffects/next_level.wav");
         soundManager.addSound("stuck","soundeffects/stuck.wav");
         addSoundObserver(soundManager);
-    }
-
-    /**
-     * Handles the movement of the player in the specified direction.
-     * @param direction the direction of movement ("up", "down", "left", "right")
-     * @param position the current position of the player
-     */
-    private void playerMove(String direction, Point position) {
 
-        String playerMoveTile = checkMove(direction, position);
-
-        if(playerMoveTile == null || playerMoveTile.equals("redmarker")){
-            notifySoundObservers("move");
-            Point newPosition = new Point(position.x, position.y);
-            switch (direction) {
-                case "up" -> newPosition.y -= 1;
-                case "down" -> newPosition.y += 1;
-                case "left" -> newPosition.x -= 1;
-                case "right" -> newPosition.x += 1;
-            }
-
-            GameGrid old = model.getInteractive();
-            old.setValue(position.x, position.y, null);
-            old.setValue(newPosition.x, newPosition.y, "player");
-            model.setInteractive(old);
-            model.setPlayerPos(newPosition);
-        } else {
-            if (playerMoveTile.equals("box") || playerMoveTile.equals("boxmarked")) {
-                Point boxMovePosition = new Point(position.x, position.y);
-                switch (direction) {
-                    case "up" -> boxMovePosition.y -= 1;
-                    case "down" -> boxMovePosition.y += 1;
-                    case "left" -> boxMovePosition.x -= 1;
-                    case "right" -> boxMovePosition.x += 1;
-                }
-
-                boxMove(direction, boxMovePosition);
-            }
+        try {
+            this.autosave = AutosaveJournal.open(AutosaveJournal.DEFAULT_FILE, AutosaveJournal.DEFAULT_COMMIT_MILLIS);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+        resumeAutosave();
     }
 
     /**
-     * Checks if the player's movement in the specified direction is valid or blocked.
-     * @param direction the direction of movement ("up", "down", "left", "right")
-     * @param position the current position of the player
-     * @return a String representing the type of tile blocking the movement, or null if the movement is valid
+     * Moves the player character one step in the given direction through the {@link GameEngine}.
+     * It plays the sound matching the outcome of the move, notifies if the player has won or is stuck,
+     * and finally redraws the level component.
+     *
+     * @param direction the direction of movement
      */
-    private String checkMove(String direction, Point position) {
-
-        GameGrid map = model.getMap();
-        GameGrid interactive = model.getInteractive();
-
-        switch (direction) {
-            case "up" -> {//y-1
-                if (map.getValue(position.x, position.y - 1) != null) {
-                    if (map.getValue(position.x, position.y - 1).equals("wall")) {
-                        return map.getValue(position.x, position.y - 1);
-                    }
-
-                    if (interactive.getValue(position.x, position.y - 1) != null) {
-                        return interactive.getValue(position.x, position.y - 1);
-                    }
-
-                    return map.getValue(position.x, position.y - 1);
-                }
-                if (interactive.getValue(position.x, position.y - 1) != null) {
-                    return interactive.getValue(position.x, position.y - 1);
-                }
-                return null;
-            }
-            case "down" -> {//y+1
-                if (map.getValue(position.x, position.y + 1) != null) {
-                    if (map.getValue(position.x, position.y + 1).equals("wall")) {
-                        return map.getValue(position.x, position.y + 1);
-                    }
-
-                    if (interactive.getValue(position.x, position.y + 1) != null) {
-                        return interactive.getValue(position.x, position.y + 1);
-                    }
-
-                    return map.getValue(position.x, position.y + 1);
-                }
-                if (interactive.getValue(position.x, position.y + 1) != null) {
-                    return interactive.getValue(position.x, position.y + 1);
-                }
-                return null;
-            }
-            case "left" -> {//x-1
-                if (map.getValue(position.x - 1, position.y) != null) {
-                    if (map.getValue(position.x - 1, position.y).equals("wall")) {
-                        return map.getValue(position.x - 1, position.y);
-                    }
-
-                    if (interactive.getValue(position.x - 1, position.y) != null) {
-                        return interactive.getValue(position.x - 1, position.y);
-                    }
-
-                    return map.getValue(position.x - 1, position.y);
-                }
-                if (interactive.getValue(position.x - 1, position.y) != null) {
-                    return interactive.getValue(position.x - 1, position.y);
-                }
-                return null;
-            }
-            case "right" -> {//x+1
-                if (map.getValue(position.x + 1, position.y) != null) {
-                    if (map.getValue(position.x + 1, position.y).equals("wall")) {
-                        return map.getValue(position.x + 1, position.y);
-                    }
-
-                    if (interactive.getValue(position.x + 1, position.y) != null) {
-                        return interactive.getValue(position.x + 1, position.y);
-                    }
+    public void move(Direction direction) {
 
-                    return map.getValue(position.x + 1, position.y);
-                }
-                if (interactive.getValue(position.x + 1, position.y) != null) {
-                    return interactive.getValue(position.x + 1, position.y);
-                }
-                return null;
-            }
+        int outcome = engine.move(direction);
+        if (outcome != GameEngine.BLOCKED && autosave != null) {
+            autosave.recordMove(direction);
         }
-
-        return null;
-    }
-
-    /**
-     * Moves the box in the specified direction.
-     * @param direction the direction of movement ("up", "down", "left", "right")
-     * @param position the current position of the box
-     */
-    private void boxMove(String direction, Point position) {
-
-        String boxMoveTile = checkMove(direction, position);
-        if(boxMoveTile == null)
+        if (outcome == GameEngine.MOVED) {
+            notifySoundObservers("move");
+        } else if (outcome == GameEngine.PUSHED) {
             notifySoundObservers("moveBox");
-
-        boolean moveOk = false;
-
-        if (boxMoveTile != null) {
-            if (boxMoveTile.equals("redmarker")) {
-                notifySoundObservers("moveBox");
-                moveOk = true;
-            }
-        } else {
-            moveOk = true;
         }
 
-        if (moveOk) {
-            Point newBoxPosition = new Point(position.x, position.y);
-            switch (direction) {
-                case "up" -> newBoxPosition.y -= 1;
-                case "down" -> newBoxPosition.y += 1;
-                case "left" -> newBoxPosition.x -= 1;
-                case "right" -> newBoxPosition.x += 1;
-            }
-
-            Point oldPlayerPosition = new Point(model.getPlayerPos().x, model.getPlayerPos().y);
-
-            GameGrid old = model.getInteractive();
-            old.setValue(oldPlayerPosition.x, oldPlayerPosition.y, null);
-            old.setValue(position.x, position.y, "player");
-            if (checkMarked(newBoxPosition)) {
-                old.setValue(newBoxPosition.x, newBoxPosition.y, "boxmarked");
-            } else {
-                old.setValue(newBoxPosition.x, newBoxPosition.y, "box");
-            }
-
-            model.setInteractive(old);
-            model.setPlayerPos(position);
-
-            for (Point p : model.getBoxes()) {
-                if (p.x == position.x && p.y == position.y) {
-                    p.x = newBoxPosition.x;
-                    p.y = newBoxPosition.y;
-                }
-            }
-        }
-    }
-
-    /**
-     * Checks if the specified box is marked as placed on a red marker tile.
-     * @param boxPosition the position of the box
-     * @return true if the box is marked, false otherwise
-     */
-    private boolean checkMarked(Point boxPosition) {
-        boolean marked = false;
-
-        for (Point p : model.getRedmarkers()) {
-            if (p.x == boxPosition.x && p.y == boxPosition.y) {
-                marked = true;
-                break;
-            }
-        }
-
-        return marked;
-    }
-
-    /**
-     * Checks if the game has been won or if the player is stuck,
-     * and updates the game state accordingly.
-     */
-    private void checkWinAndStuck() {
-
-        boolean win = false;
-        boolean stuck = false;
-        int counter = 0;
-        String[] objects = new String[4];
-        Point[] boxes = model.getBoxes();
-        for (Point box : boxes) {
-            if (checkMarked(box)) {
-                counter++;
-            } else {
-                objects[0] = checkMove("up", box);
-                objects[1] = checkMove("down", box);
-                objects[2] = checkMove("left", box);
-                objects[3] = checkMove("right", box);
-                for (int j = 0; j < 4; j++) {
-                    if (objects[j] == null) {
-                        objects[j] = "null";
-                    }
-                }
-
-                if (objects[0].equals("wall") || objects[1].equals("wall")) {
-                    if (objects[2].equals("wall") || objects[3].equals("wall")) {
-                        stuck = true;
-                        break;
-                    }
-                }
-            }
-        }
-
-        if (stuck) {
+        if (model.getStuck()) {
             notifySoundObservers("stuck");
-            model.setStuck(stuck);
         }
 
-        if (counter == boxes.length) {
+        if (model.getWin()) {
             notifySoundObservers("win");
-            win = true;
         }
 
-        model.setWin(win);
+        redraw(levelComponent);
     }
 
     /**
      * Moves the player character up when the up arrow key is pressed.
-     * It checks if the move is valid, updates the game state accordingly, and
-     * checks if the player has won or is stuck. Finally, it redraws the level component.
      */
     public void upArrowKeyPressed() {
-
-        playerMove("up", model.getPlayerPos());
-        checkWinAndStuck();
-        redraw(levelComponent);
+        move(Direction.UP);
     }
 
     /**
      * Moves the player character down when the down arrow key is pressed.
-     * It checks if the move is valid, updates the game state accordingly, and
-     * checks if the player has won or is stuck. Finally, it redraws the level component.
      */
     public void downArrowKeyPressed() {
-
-        playerMove("down", model.getPlayerPos());
-        checkWinAndStuck();
-        redraw(levelComponent);
+        move(Direction.DOWN);
     }
 
     /**
      * Moves the player character to the left when the left arrow key is pressed.
-     * It checks if the move is valid, updates the game state accordingly, and
-     * checks if the player has won or is stuck. Finally, it redraws the level component.
      */
     public void leftArrowKeyPressed() {
-
-        playerMove("left", model.getPlayerPos());
-        checkWinAndStuck();
-        redraw(levelComponent);
+        move(Direction.LEFT);
     }
 
     /**
      * Moves the player character to the right when the right arrow key is pressed.
-     * It checks if the move is valid, updates the game state accordingly, and
-     * checks if the player has won or is stuck. Finally, it redraws the level component.
      */
     public void rightArrowKeyPressed() {
-
-        playerMove("right", model.getPlayerPos());
-        checkWinAndStuck();
-        redraw(levelComponent);
+        move(Direction.RIGHT);
     }
 
     /**
@@ -389,22 +177,8 @@ public class Controller extends View implements Serializable{
     @Override
     public void resetPressed() {
 
-        model.setInteractive(model.getInitialInteractive().clone());
-        Point[] newBoxes = new Point[model.getInitialBoxes().length];
-        for (int i = 0; i < model.getInitialBoxes().length; i++) {
-            newBoxes[i] = new Point(model.getInitialBoxes()[i]);
-        }
-
-        model.setBoxes(newBoxes);
-        model.setPlayerPos(model.getInitialPlayerPos());
-        model.setWin(false);
-
-        try {
-            newCenterComponent(model);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
+        engine.reset();
+        startAutosave();
         notifySoundObservers("reset");
         redraw(levelComponent);
     }
@@ -416,22 +190,38 @@ public class Controller extends View implements Serializable{
      */
     public void resetWithoutSound() {
 
-        model.setInteractive(model.getInitialInteractive().clone());
-        Point[] newBoxes = new Point[model.getInitialBoxes().length];
-        for (int i = 0; i < model.getInitialBoxes().length; i++) {
-            newBoxes[i] = new Point(model.getInitialBoxes()[i]);
-        }
+        engine.reset();
+        startAutosave();
+        redraw(levelComponent);
+    }
 
-        model.setBoxes(newBoxes);
-        model.setPlayerPos(model.getInitialPlayerPos());
-        model.setWin(false);
+    /**
+     * Takes back the last move made in the current level and redraws the level component.
+     */
+    @Override
+    public void undoPressed() {
 
-        try {
-            newCenterComponent(model);
-        } catch (IOException e) {
-            e.printStackTrace();
+        if (engine.undo()) {
+            if (autosave != null) {
+                autosave.recordUndo();
+            }
+            notifySoundObservers("move");
         }
+        redraw(levelComponent);
+    }
 
+    /**
+     * Plays again the last move taken back by {@code undoPressed()} and redraws the level component.
+     */
+    @Override
+    public void redoPressed() {
+
+        if (engine.redo()) {
+            if (autosave != null) {
+                autosave.recordMove(engine.getLastDirection());
+            }
+            notifySoundObservers("move");
+        }
         redraw(levelComponent);
     }
 
@@ -487,52 +277,54 @@ public class Controller extends View implements Serializable{
      */
     private void setModel(Model dataModel) {
         this.model = dataModel;
+        this.engine = new GameEngine(dataModel);
+        this.hints = new HintService(dataModel);
     }
 
     /**
-     * Changes the current level to the given index. It updates the model's level,
-     * loads the new level's data, resets the game state, and redraws the level component.
+     * Changes the current level to the given index. It loads the new level's data through the
+     * {@link LevelRepository}, resets the game state, and redraws the level component.
      *
      * @param index The index of the new level.
      */
     public void changeLevel(int index) {
 
-        if (models[index] == model) {
+        if (index < 0 || index >= maxNOfLevels) {
+            warningMessage("There is no level " + (index + 1) + "!");
+        } else if (index == model.getLevel()) {
             warningMessage("That level is already selected!");
         } else {
-            setModelView(models[index]);
-            setModel(models[index]);
+            Model next = levels.getLevel(index);
+            setModelView(next);
+            try {
+                newCenterComponent(next);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
             resetWithoutSound();
         }
     }
 
     /**
      * Handles the save button press event, which triggers the saving of the current game state.
-     * It prompts the user to select a file location and saves the game state using the model's
-     * saveGame method. If the saving process is successful, it displays a success message;
+     * The position is written in the compact {@link SaveGame} format, unless the file has the
+     * legacy extension {@value SaveGame#LEGACY_EXTENSION}, in which case the whole model is written
+     * with Java serialization. If the saving process is successful, it displays a success message;
      * otherwise, it displays an error message.
      */
     public void saveButtonPressed(File savedFile) {
 
         savedDataName = savedFile.getName();
-        ObjectOutputStream out = null;
-
-        try{
-            out = new ObjectOutputStream(new FileOutputStream(savedFile.getAbsolutePath()));
-        } catch(IOException e) {
-            e.printStackTrace();
-        }
-
-        try{
-            out.writeObject(this.model);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-        try{
-            out.close();
+        try {
+            if (savedDataName.toLowerCase().endsWith("." + SaveGame.LEGACY_EXTENSION)) {
+                saveLegacy(savedFile);
+            } else {
+                SaveGame.of(model, engine.getMoveCount()).write(savedFile.toPath());
+            }
         } catch (IOException e) {
             e.printStackTrace();
+            warningMessage("The level could not be saved as " + savedDataName);
+            return;
         }
 
         infoMessage("Leveled saved successfully as " + savedDataName);
@@ -540,34 +332,114 @@ public class Controller extends View implements Serializable{
 
     /**
      * Handles the load button press event, which triggers the loading of a saved game state.
-     * It prompts the user to select a saved game file, and if the file is valid, it loads
-     * the game state using the model's loadGame method. If the loading process is successful,
-     * it updates the game state and redraws the level component; otherwise, it displays
+     * A {@link SaveGame} is restored into its level, loaded through the {@link LevelRepository};
+     * any other file is read as a legacy save written with Java serialization. If the loading process
+     * is successful, it updates the game state and redraws the level component; otherwise, it displays
      * an error message.
      */
     public void loadButtonPressed(File chosenFile){
 
-        ObjectInputStream in = null;
-        try{
-            in = new ObjectInputStream(new FileInputStream(chosenFile.getAbsolutePath()));
+        Model loaded;
+        int moves = 0;
+        try {
+            if (SaveGame.isSaveGame(chosenFile.toPath())) {
+                SaveGame save = SaveGame.read(chosenFile.toPath());
+                if (save.getLevel() < 0 || save.getLevel() >= maxNOfLevels) {
+                    throw new IOException("The save file belongs to level " + (save.getLevel() + 1)
+                            + ", which is not in this level pack");
+                }
+                loaded = levels.getLevel(save.getLevel());
+                save.restore(loaded);
+                moves = save.getMoves();
+            } else {
+                loaded = loadLegacy(chosenFile);
+            }
         } catch (IOException e) {
             e.printStackTrace();
+            warningMessage("The level could not be loaded: " + e.getMessage());
+            return;
         }
 
-        try {
-            assert in != null;
-            this.model = (Model) in.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            e.printStackTrace();
-        }
+        showRestored(loaded, moves);
+        infoMessage("Level loaded successfully.");
+    }
+
+    /**
+     * Shows a level in a restored position and starts a new autosave journal from it.
+     *
+     * @param restored The model of the level in the restored position.
+     * @param moves The number of moves made to reach the position.
+     */
+    private void showRestored(Model restored, int moves) {
+
+        this.model = restored;
         setModelView(this.model);
         try{
             newCenterComponent(model);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        engine.setMovesBefore(moves);
+        startAutosave();
         redraw(levelComponent);
-        infoMessage("Level loaded successfully.");
+    }
+
+    /**
+     * Rebuilds the position recorded by the {@link AutosaveJournal} of the last session, if there is one,
+     * and starts journaling the current level.
+     */
+    private void resumeAutosave() {
+
+        try {
+            SaveGame resumed = AutosaveJournal.replay(AutosaveJournal.DEFAULT_FILE, levels);
+            if (resumed != null) {
+                Model restored = levels.getLevel(resumed.getLevel());
+                resumed.restore(restored);
+                showRestored(restored, resumed.getMoves());
+                return;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        startAutosave();
+    }
+
+    /**
+     * Starts a new autosave journal from the current position of the current level.
+     */
+    private void startAutosave() {
+        if (autosave != null) {
+            autosave.start(model, engine.getMoveCount());
+        }
+    }
+
+    /**
+     * Writes the whole current model to a file with Java serialization, the format of saves
+     * before {@link SaveGame}.
+     *
+     * @param savedFile The file to write.
+     * @throws IOException if the file can not be written.
+     */
+    private void saveLegacy(File savedFile) throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(savedFile.getAbsolutePath()))) {
+            out.writeObject(this.model);
+        }
+    }
+
+    /**
+     * Reads a model written with Java serialization by {@link #saveLegacy(File)}.
+     *
+     * @param chosenFile The file to read.
+     * @return The saved model.
+     * @throws IOException if the file can not be read or does not hold a model.
+     */
+    private Model loadLegacy(File chosenFile) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(chosenFile.getAbsolutePath()))) {
+            return (Model) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Not a saved game", e);
+        }
     }
 
     /**
@@ -658,7 +530,9 @@ public class Controller extends View implements Serializable{
                 + "\"down\"\n"
                 + "\"left\"\n"
                 + "\"right\"\n\n"
-                + "To reset the level, enter: \"reset\"\n\n"
+                + "To reset the level, enter: \"reset\"\n"
+                + "To undo or redo a move, enter: \"undo\" or \"redo\"\n"
+                + "To get a hint for the next push, enter: \"hint\"\n\n"
                 + "To change the level, enter: \"change\"\n\n"
                 + "To display this message, enter: \"help\"\n"
                 + "To display information about the game, enter: \"info\"\n"
@@ -692,6 +566,19 @@ public class Controller extends View implements Serializable{
                     resetPressed();
                 }
 
+                else if (input.equalsIgnoreCase("undo")) {
+                    undoPressed();
+                }
+
+                else if (input.equalsIgnoreCase("redo")) {
+                    redoPressed();
+                }
+
+                else if (input.equalsIgnoreCase("hint")) {
+                    HintService.Hint hint = hints.hint();
+                    printToConsole(hint != null ? "Hint: " + hint : "No hint available");
+                }
+
                 else if (input.equalsIgnoreCase("up")) {
                     upArrowKeyPressed();
                 }
@@ -709,8 +596,8 @@ public class Controller extends View implements Serializable{
                 }
 
                 else if (input.equalsIgnoreCase("change")){
-                    printToConsole("There are three levels to choose from.\n"
-                            + "1, 2 and 3\n"
+                    printToConsole("There are " + maxNOfLevels + " levels to choose from.\n"
+                            + "1 to " + maxNOfLevels + "\n"
                             + "Enter new level number: ");
                     int lvl = scanner.nextInt();
                     printToConsole("");
@@ -0,0 +1,213 @@
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+/**
+ * The {@code DeadlockDetector} class finds positions from which a level can no longer be completed.
+ *
+ * <p>
+ * {@link #findDeadSquares(GameGrid)} analyses the static map once per level and returns every
+ * simple dead square, a floor tile from which no box can ever be pushed to a marked tile.
+ * A box is pulled backwards from every marked tile, and every tile it can reach is alive; the
+ * remaining floor tiles are dead. Checking if a pushed box is stuck is then a single lookup.
+ * </p>
+ *
+ * <p>
+ * An instance of the class detects freeze deadlocks, boxes that can no longer move on either axis
+ * because they are locked by walls, dead squares and other frozen boxes, while at least one of them
+ * is not on a marked tile. {@link #isFreezeDeadlock(int, IntPredicate)} only looks at the boxes
+ * around the box that was just pushed, so it is cheap enough to run after every push. The box
+ * positions are given as a predicate so that the same instance can be used for a {@link Model}
+ * as well as for states of a search. An instance keeps scratch state and must not be shared
+ * between threads.
+ * </p>
+ */
+public class DeadlockDetector {
+
+    /**
+     * Result of {@code frozen} for a box that can still move.
+     */
+    private static final int NOT_FROZEN = 0;
+
+    /**
+     * Result of {@code frozen} for a box that can not move, where every box involved is on a marked tile.
+     */
+    private static final int FROZEN = 1;
+
+    /**
+     * Result of {@code frozen} for a box that can not move, where a box involved is not on a marked tile.
+     */
+    private static final int FROZEN_OFF_GOAL = 2;
+
+    /**
+     * The static map grid, containing walls and marked tiles.
+     */
+    private final GameGrid map;
+
+    /**
+     * Set of cell indices of the dead squares of the map.
+     */
+    private final BitSet deadSquares;
+
+    /**
+     * Boxes currently being checked, treated as walls to stop the check from going in circles.
+     */
+    private final boolean[] checking;
+
+    /**
+     * Positions of the boxes during the current check.
+     */
+    private IntPredicate isBox;
+
+    /**
+     * Constructs a {@link DeadlockDetector} for a map.
+     *
+     * @param map           The static map grid, containing walls and marked tiles.
+     * @param deadSquares   The dead squares of the map, as found by {@link #findDeadSquares(GameGrid)}.
+     */
+    public DeadlockDetector(GameGrid map, BitSet deadSquares) {
+        this.map = map;
+        this.deadSquares = deadSquares;
+        this.checking = new boolean[map.getWidth() * map.getHeight()];
+    }
+
+    /**
+     * Checks if the box on a cell is part of a freeze deadlock: it can not be moved on either axis,
+     * and it or one of the boxes locking it is not on a marked tile.
+     *
+     * @param box       The cell index of the box that was just pushed.
+     * @param isBox     Tells if a cell holds a box.
+     * @return          true if the level can no longer be completed, false otherwise.
+     */
+    public boolean isFreezeDeadlock(int box, IntPredicate isBox) {
+        this.isBox = isBox;
+        boolean deadlock = frozen(box) == FROZEN_OFF_GOAL;
+        this.isBox = null;
+        return deadlock;
+    }
+
+    /**
+     * Checks if a box can not be moved on either axis.
+     *
+     * @param box   The cell index of the box.
+     * @return      {@link #NOT_FROZEN}, {@link #FROZEN} or {@link #FROZEN_OFF_GOAL}.
+     */
+    private int frozen(int box) {
+        checking[box] = true;
+        int result = NOT_FROZEN;
+        int horizontal = blocked(box, 1);
+        if (horizontal != NOT_FROZEN) {
+            int vertical = blocked(box, map.getWidth());
+            if (vertical != NOT_FROZEN) {
+                int self = (map.getTile(box) & GameGrid.GOAL) != 0 ? FROZEN : FROZEN_OFF_GOAL;
+                result = Math.max(self, Math.max(horizontal, vertical));
+            }
+        }
+        checking[box] = false;
+        return result;
+    }
+
+    /**
+     * Checks if a box can not be moved along one axis, because of a wall on either side, dead squares
+     * on both sides, or a frozen box on either side. Boxes on both sides are checked even when one side
+     * already blocks the box, so a frozen box off a marked tile is found behind a frozen box on one.
+     *
+     * @param box       The cell index of the box.
+     * @param offset    Cell index offset of one step along the axis.
+     * @return          {@link #NOT_FROZEN} if the box can move along the axis, otherwise {@link #FROZEN}
+     *                  or {@link #FROZEN_OFF_GOAL} depending on the boxes blocking it.
+     */
+    private int blocked(int box, int offset) {
+        int before = box - offset;
+        int after = box + offset;
+        int result = NOT_FROZEN;
+        if (isWall(before) || isWall(after)) {
+            result = FROZEN;
+        } else if (deadSquares.get(before) && deadSquares.get(after)) {
+            result = FROZEN;
+        }
+        if (!checking[before] && isBox.test(before)) {
+            result = Math.max(result, frozen(before));
+        }
+        if (!checking[after] && isBox.test(after)) {
+            result = Math.max(result, frozen(after));
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks if a cell is a wall, or a box already being checked.
+     *
+     * @param cell  The cell index.
+     * @return      true if the cell blocks movement, false otherwise.
+     */
+    private boolean isWall(int cell) {
+        return (map.getTile(cell) & GameGrid.WALL) != 0 || checking[cell];
+    }
+
+    /**
+     * Finds every floor tile of the map from which a box can never reach a marked tile.
+     *
+     * @param map   The static map grid, containing walls and marked tiles.
+     * @return      Set of cell indices of the dead squares.
+     */
+    public static BitSet findDeadSquares(GameGrid map) {
+
+        int width = map.getWidth();
+        int height = map.getHeight();
+        int cells = width * height;
+
+        BitSet alive = new BitSet(cells);
+        int[] queue = new int[cells];
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if ((map.getTile(cell) & GameGrid.GOAL) != 0) {
+                alive.set(cell);
+                queue[tail++] = cell;
+            }
+        }
+
+        //A box on 'cell' could have been pushed there from 'from' by a player standing on 'player'
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            for (Direction d : Direction.ALL) {
+                int fromX = x - d.dx;
+                int fromY = y - d.dy;
+                int playerX = fromX - d.dx;
+                int playerY = fromY - d.dy;
+                if (isFloor(map, fromX, fromY) && isFloor(map, playerX, playerY)) {
+                    int from = map.index(fromX, fromY);
+                    if (!alive.get(from)) {
+                        alive.set(from);
+                        queue[tail++] = from;
+                    }
+                }
+            }
+        }
+
+        BitSet dead = new BitSet(cells);
+        for (int cell = 0; cell < cells; cell++) {
+            if ((map.getTile(cell) & GameGrid.WALL) == 0 && !alive.get(cell)) {
+                dead.set(cell);
+            }
+        }
+
+        return dead;
+    }
+
+    /**
+     * Checks if a position is inside the map and not a wall.
+     *
+     * @param map   The static map grid.
+     * @param x     Column
+     * @param y     Row
+     * @return      true if a box or the player could stand on the position, false otherwise.
+     */
+    private static boolean isFloor(GameGrid map, int x, int y) {
+        return x >= 0 && y >= 0 && x < map.getWidth() && y < map.getHeight()
+                && (map.getTile(x, y) & GameGrid.WALL) == 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+/**
+ * The {@code Direction} enum represents the four directions the player can move in.
+ * Every direction carries its column and row difference, which can be turned into
+ * a difference in flat cell index (see {@link GameGrid#index(int, int)}) with {@link #offset(int)}.
+ */
+public enum Direction {
+
+    /**
+     * Towards the top of the map (y-1).
+     */
+    UP(0, -1),
+
+    /**
+     * Towards the bottom of the map (y+1).
+     */
+    DOWN(0, 1),
+
+    /**
+     * Towards the left of the map (x-1).
+     */
+    LEFT(-1, 0),
+
+    /**
+     * Towards the right of the map (x+1).
+     */
+    RIGHT(1, 0);
+
+    /**
+     * All directions, shared to avoid the copy made by {@code values()}.
+     */
+    public static final Direction[] ALL = values();
+
+    /**
+     * Difference in column when moving one step.
+     */
+    public final int dx;
+
+    /**
+     * Difference in row when moving one step.
+     */
+    public final int dy;
+
+    /**
+     * Constructs a {@link Direction} with the given column and row difference.
+     *
+     * @param dx    Difference in column
+     * @param dy    Difference in row
+     */
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    /**
+     * Returns the difference in cell index when moving one step in this direction.
+     *
+     * @param width     Width of the {@link GameGrid} the cell index belongs to.
+     * @return          The cell index offset of the direction.
+     */
+    public int offset(int width) {
+        return dy * width + dx;
+    }
+
+    /**
+     * Returns the direction written as a character in a move sequence,
+     * {@code 'u'}, {@code 'd'}, {@code 'l'} or {@code 'r'} in either case.
+     *
+     * @param c     The character.
+     * @return      The matching direction.
+     * @throws IllegalArgumentException if the character is not a direction.
+     */
+    public static Direction fromChar(char c) {
+        return switch (c) {
+            case 'u', 'U' -> UP;
+            case 'd', 'D' -> DOWN;
+            case 'l', 'L' -> LEFT;
+            case 'r', 'R' -> RIGHT;
+            default -> throw new IllegalArgumentException("Unknown direction: " + c);
+        };
+    }
+
+    /**
+     * Returns the direction pointing the opposite way.
+     *
+     * @return  The opposite direction.
+     */
+    public Direction opposite() {
+        return switch (this) {
+            case UP -> DOWN;
+            case DOWN -> UP;
+            case LEFT -> RIGHT;
+            case RIGHT -> LEFT;
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,388 @@
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * The {@code DistanceTable} class holds, for every cell of a level and every marked tile, the minimum
+ * number of pushes needed to move a box from the cell to the marked tile when no other boxes are in the
+ * way. It is built once per level from the static map grid and the red markers, and is never changed,
+ * so it can be shared by everything that needs the distances.
+ *
+ * <p>
+ * The distances are stored in one {@code int[]}, marked tile by marked tile. Cells on the border of the
+ * grid are treated as walls. A {@link Matching} assigns every box to its own marked tile with the fewest
+ * pushes in total, which is a lower bound of the pushes left to solve the level.
+ * </p>
+ */
+public class DistanceTable {
+
+    /**
+     * Distance of a cell from which a marked tile can not be reached.
+     */
+    public static final int UNREACHABLE = SearchBoard.UNREACHABLE;
+
+    /**
+     * Number of cells in the grid.
+     */
+    private final int cellCount;
+
+    /**
+     * Cell index of every marked tile, in the order of the red markers.
+     */
+    private final int[] goalCells;
+
+    /**
+     * Pushes from every cell to every marked tile, at {@code goal * cellCount + cell}.
+     */
+    private final int[] distances;
+
+    /**
+     * Pushes from every cell to the closest marked tile.
+     */
+    private final int[] nearest;
+
+    /**
+     * Constructs a {@link DistanceTable} for a level.
+     *
+     * @param map           The static map grid of the level.
+     * @param redmarkers    Positions of the marked tiles.
+     */
+    public DistanceTable(GameGrid map, Point[] redmarkers) {
+
+        int width = map.getWidth();
+        int height = map.getHeight();
+        this.cellCount = width * height;
+        this.goalCells = new int[redmarkers.length];
+        this.distances = new int[redmarkers.length * cellCount];
+        this.nearest = new int[cellCount];
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(nearest, UNREACHABLE);
+
+        boolean[] walls = new boolean[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            walls[cell] = (map.getTile(cell) & GameGrid.WALL) != 0
+                    || x == 0 || y == 0 || x == width - 1 || y == height - 1;
+        }
+
+        int[] offsets = new int[Direction.ALL.length];
+        for (Direction d : Direction.ALL) {
+            offsets[d.ordinal()] = d.offset(width);
+        }
+
+        int[] queue = new int[cellCount];
+        for (int goal = 0; goal < redmarkers.length; goal++) {
+            int target = map.index(redmarkers[goal].x, redmarkers[goal].y);
+            goalCells[goal] = target;
+            if (walls[target]) {
+                continue;
+            }
+
+            int base = goal * cellCount;
+            int head = 0;
+            int tail = 0;
+            distances[base + target] = 0;
+            queue[tail++] = target;
+            while (head < tail) {
+                int cell = queue[head++];
+                for (int offset : offsets) {
+                    int from = cell - offset;
+                    int player = from - offset;
+                    if (!walls[from] && !walls[player] && distances[base + from] == UNREACHABLE) {
+                        distances[base + from] = distances[base + cell] + 1;
+                        queue[tail++] = from;
+                    }
+                }
+            }
+
+            for (int cell = 0; cell < cellCount; cell++) {
+                nearest[cell] = Math.min(nearest[cell], distances[base + cell]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cells in the grid.
+     *
+     * @return The number of cells.
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Returns the number of marked tiles.
+     *
+     * @return The number of marked tiles.
+     */
+    public int getGoalCount() {
+        return goalCells.length;
+    }
+
+    /**
+     * Returns the cell index of a marked tile.
+     *
+     * @param goal  The index of the marked tile in the red markers.
+     * @return      The cell index.
+     */
+    public int getGoalCell(int goal) {
+        return goalCells[goal];
+    }
+
+    /**
+     * Returns the minimum number of pushes from a cell to a marked tile.
+     *
+     * @param goal  The index of the marked tile in the red markers.
+     * @param cell  The cell index.
+     * @return      The number of pushes, or {@link #UNREACHABLE}.
+     */
+    public int distance(int goal, int cell) {
+        return distances[goal * cellCount + cell];
+    }
+
+    /**
+     * Returns the minimum number of pushes from a cell to the closest marked tile.
+     *
+     * @param cell  The cell index.
+     * @return      The number of pushes, or {@link #UNREACHABLE}.
+     */
+    public int nearest(int cell) {
+        return nearest[cell];
+    }
+
+    /**
+     * Returns a copy of the minimum number of pushes from every cell to the closest marked tile.
+     *
+     * @return Number of pushes for every cell, or {@link #UNREACHABLE}.
+     */
+    public int[] getNearest() {
+        return nearest.clone();
+    }
+
+    /**
+     * The {@code Matching} class assigns every box to its own marked tile so that the total number of
+     * pushes is as small as possible, with the Hungarian method. The total is a lower bound of the pushes
+     * left to solve the level.
+     *
+     * <p>
+     * After a push only the distances of one box change. {@link #moveBox(int, int)} then frees the marked
+     * tile of that box and finds one new augmenting path, which takes time proportional to the square of
+     * the number of boxes instead of the cube for a full assignment. A matching is changed by every push,
+     * so every thread keeps its own.
+     * </p>
+     */
+    public static class Matching {
+
+        /**
+         * The distances the assignment is based on.
+         */
+        private final DistanceTable table;
+
+        /**
+         * Cell index of every box.
+         */
+        private final int[] boxCells;
+
+        /**
+         * Potential of every box, from index 1.
+         */
+        private final long[] u;
+
+        /**
+         * Potential of every marked tile, from index 1.
+         */
+        private final long[] v;
+
+        /**
+         * Box assigned to every marked tile plus one, or 0 if it is free. Index 0 is used while augmenting.
+         */
+        private final int[] assigned;
+
+        /**
+         * Marked tile each marked tile was reached from while augmenting.
+         */
+        private final int[] way;
+
+        /**
+         * Smallest reduced cost of every marked tile while augmenting.
+         */
+        private final long[] minv;
+
+        /**
+         * Condition if a marked tile is in the tree while augmenting.
+         */
+        private final boolean[] used;
+
+        /**
+         * Total pushes of the assignment, or {@link DistanceTable#UNREACHABLE}.
+         */
+        private int lowerBound;
+
+        /**
+         * Constructs a {@link Matching} of boxes to the marked tiles of a {@link DistanceTable}.
+         *
+         * @param table     The distances of the level.
+         * @param boxes     Cell index of every box, copied.
+         */
+        public Matching(DistanceTable table, int[] boxes) {
+            int m = table.getGoalCount();
+            this.table = table;
+            this.boxCells = boxes.clone();
+            this.u = new long[boxes.length + 1];
+            this.v = new long[m + 1];
+            this.assigned = new int[m + 1];
+            this.way = new int[m + 1];
+            this.minv = new long[m + 1];
+            this.used = new boolean[m + 1];
+            assignAll();
+        }
+
+        /**
+         * Copies the boxes and the assignment of another matching of the same level and box count.
+         *
+         * @param other     The matching to copy.
+         */
+        public void copyFrom(Matching other) {
+            System.arraycopy(other.boxCells, 0, boxCells, 0, boxCells.length);
+            System.arraycopy(other.u, 0, u, 0, u.length);
+            System.arraycopy(other.v, 0, v, 0, v.length);
+            System.arraycopy(other.assigned, 0, assigned, 0, assigned.length);
+            lowerBound = other.lowerBound;
+        }
+
+        /**
+         * Assigns every box again after all boxes have moved.
+         *
+         * @param boxes     Cell index of every box, in the same order as before.
+         */
+        public void setBoxes(int[] boxes) {
+            System.arraycopy(boxes, 0, boxCells, 0, boxCells.length);
+            assignAll();
+        }
+
+        /**
+         * Moves one box and updates the assignment.
+         *
+         * @param box   Index of the box.
+         * @param cell  New cell index of the box.
+         */
+        public void moveBox(int box, int cell) {
+            boxCells[box] = cell;
+            if (boxCells.length != table.getGoalCount()) {
+                assignAll();
+                return;
+            }
+
+            for (int j = 1; j < assigned.length; j++) {
+                if (assigned[j] == box + 1) {
+                    assigned[j] = 0;
+                }
+            }
+            augment(box + 1);
+            updateLowerBound();
+        }
+
+        /**
+         * Returns the total pushes of the assignment.
+         *
+         * @return A lower bound of the pushes left, or {@link DistanceTable#UNREACHABLE} if the boxes
+         *         can not all reach a marked tile of their own.
+         */
+        public int getLowerBound() {
+            return lowerBound;
+        }
+
+        /**
+         * Returns the marked tile a box is assigned to.
+         *
+         * @param box   Index of the box.
+         * @return      Index of the marked tile in the red markers, or -1.
+         */
+        public int getGoal(int box) {
+            for (int j = 1; j < assigned.length; j++) {
+                if (assigned[j] == box + 1) {
+                    return j - 1;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Assigns every box from scratch.
+         */
+        private void assignAll() {
+            Arrays.fill(u, 0);
+            Arrays.fill(v, 0);
+            Arrays.fill(assigned, 0);
+            if (boxCells.length > table.getGoalCount()) {
+                lowerBound = UNREACHABLE;
+                return;
+            }
+
+            for (int i = 1; i <= boxCells.length; i++) {
+                augment(i);
+            }
+            updateLowerBound();
+        }
+
+        /**
+         * Assigns one unassigned box along the cheapest augmenting path, keeping the potentials feasible.
+         *
+         * @param box   Index of the box plus one.
+         */
+        private void augment(int box) {
+            assigned[0] = box;
+            int j0 = 0;
+            Arrays.fill(minv, Long.MAX_VALUE);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = assigned[j0];
+                long delta = Long.MAX_VALUE;
+                int j1 = 0;
+                for (int j = 1; j < assigned.length; j++) {
+                    if (!used[j]) {
+                        long cur = table.distance(j - 1, boxCells[i0 - 1]) - u[i0] - v[j];
+                        if (cur < minv[j]) {
+                            minv[j] = cur;
+                            way[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j < assigned.length; j++) {
+                    if (used[j]) {
+                        u[assigned[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (assigned[j0] != 0);
+
+            do {
+                int j1 = way[j0];
+                assigned[j0] = assigned[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        /**
+         * Sums the pushes of the assignment.
+         */
+        private void updateLowerBound() {
+            long sum = 0;
+            for (int j = 1; j < assigned.length; j++) {
+                if (assigned[j] != 0) {
+                    sum += table.distance(j - 1, boxCells[assigned[j] - 1]);
+                }
+            }
+            lowerBound = (int) Math.min(sum, UNREACHABLE);
+        }
+    }
+}
\ No newline at end of file
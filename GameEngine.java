@@ -0,0 +1,525 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * The {@code GameEngine} class applies the rules of the game to a {@link Model} without
+ * depending on any part of the graphical {@link View}. It can move the player one step at a time,
+ * as done by {@link Controller}, or apply a whole sequence of moves in one call.
+ *
+ * <p>
+ * Move sequences are written with one character per step, {@code 'u'}, {@code 'd'}, {@code 'l'} and {@code 'r'}
+ * (upper case letters, used for pushes in the common LURD notation, are accepted as well),
+ * or as a {@code byte[]} holding the {@link Direction#ordinal()} of every step.
+ * Moving the player does not allocate any objects.
+ * </p>
+ *
+ * <p>
+ * Every move is recorded in a {@link MoveJournal} so it can be undone and redone. Resetting the level
+ * rewinds the journal when it reaches back to the initial state of the level. Batch jobs that never
+ * undo can turn the journal off with {@link #setJournaling(boolean)}, so applying millions of moves
+ * does not grow it.
+ * </p>
+ */
+public class GameEngine {
+
+    /**
+     * Result of a move that was blocked by a wall or by a box that could not be pushed.
+     */
+    public static final int BLOCKED = 0;
+
+    /**
+     * Result of a move where only the player moved.
+     */
+    public static final int MOVED = 1;
+
+    /**
+     * Result of a move where the player pushed a box.
+     */
+    public static final int PUSHED = 2;
+
+    /**
+     * The {@link Model} the rules are applied to.
+     */
+    private final Model model;
+
+    /**
+     * The static map grid of the {@link Model}.
+     */
+    private final GameGrid map;
+
+    /**
+     * Cell index offset of every {@link Direction}, indexed by ordinal.
+     */
+    private final int[] offsets;
+
+    /**
+     * Detects freeze deadlocks around pushed boxes.
+     */
+    private final DeadlockDetector deadlockDetector;
+
+    /**
+     * Tells if a cell of the {@link Model} holds a box, used by the {@link DeadlockDetector}.
+     */
+    private final IntPredicate isBox;
+
+    /**
+     * Deadlock patterns around pushed boxes.
+     */
+    private final PatternDatabase patterns;
+
+    /**
+     * Tells if a cell of the map grid is a wall, used by the {@link PatternDatabase}.
+     */
+    private final IntPredicate isWall;
+
+    /**
+     * Tells if a cell of the {@link Model} is a marked tile, used by the {@link PatternDatabase}.
+     */
+    private final IntPredicate isGoal;
+
+    /**
+     * Moves made since the engine was created or the level was last restored.
+     */
+    private final MoveJournal journal;
+
+    /**
+     * Condition if the first entry of the journal starts from the initial state of the level.
+     */
+    private boolean journalFromStart;
+
+    /**
+     * Number of moves made in the level before the first entry of the journal, for example in a saved game.
+     */
+    private int movesBefore;
+
+    /**
+     * Condition if moves are recorded in the journal.
+     */
+    private boolean journaling;
+
+    /**
+     * Constructs a {@link GameEngine} applying moves to the given {@link Model}.
+     *
+     * @param model     The {@link Model} to be changed by the moves.
+     */
+    public GameEngine(Model model) {
+        this.model = model;
+        this.map = model.getMap();
+        this.offsets = new int[Direction.ALL.length];
+        for (Direction d : Direction.ALL) {
+            offsets[d.ordinal()] = d.offset(map.getWidth());
+        }
+        this.deadlockDetector = new DeadlockDetector(map, model.getDeadSquares());
+        this.isBox = model::isBox;
+        this.patterns = PatternDatabase.getDefault();
+        this.isWall = cell -> (map.getTile(cell) & GameGrid.WALL) != 0;
+        this.isGoal = model::isGoal;
+        this.journal = new MoveJournal();
+        this.journalFromStart = model.isInitialState();
+        this.journaling = true;
+    }
+
+    /**
+     * Turns the recording of moves on or off. While it is off, moves can not be undone, and the moves
+     * already recorded are dropped so they can not be undone either; the move count keeps counting.
+     * Resetting the level restores the initial state stored in the {@link Model}.
+     *
+     * @param journaling    true to record every move, false to record none.
+     */
+    public void setJournaling(boolean journaling) {
+        if (journaling == this.journaling) {
+            return;
+        }
+
+        movesBefore += journal.getCursor();
+        journal.clear();
+        journalFromStart = journaling && movesBefore == 0 && model.isInitialState();
+        this.journaling = journaling;
+    }
+
+    /**
+     * Returns whether moves are recorded in the journal.
+     *
+     * @return true if moves can be undone, false otherwise.
+     */
+    public boolean isJournaling() {
+        return journaling;
+    }
+
+    /**
+     * Returns the {@link Model} the rules are applied to.
+     *
+     * @return The {@link Model}.
+     */
+    public Model getModel() {
+        return model;
+    }
+
+    /**
+     * Moves the player one step in the given direction, pushing a box if there is one in the way
+     * and the tile behind it is free. The win and stuck status of the {@link Model} is updated.
+     *
+     * @param direction     The direction of movement.
+     * @return              {@link #BLOCKED}, {@link #MOVED} or {@link #PUSHED}.
+     */
+    public int move(Direction direction) {
+
+        int offset = offsets[direction.ordinal()];
+        int player = model.getPlayerCell();
+        int target = player + offset;
+
+        if ((map.getTile(target) & GameGrid.WALL) != 0) {
+            return BLOCKED;
+        }
+
+        if (!model.isBox(target)) {
+            model.movePlayer(target);
+            record(player, target, -1, -1);
+            return MOVED;
+        }
+
+        int boxTarget = target + offset;
+        if ((map.getTile(boxTarget) & GameGrid.WALL) != 0 || model.isBox(boxTarget)) {
+            return BLOCKED;
+        }
+
+        model.moveBox(target, boxTarget);
+        model.movePlayer(target);
+        record(player, target, target, boxTarget);
+        if (isDeadlock(boxTarget)) {
+            model.setStuck(true);
+        }
+        model.setWin(model.isSolved());
+        return PUSHED;
+    }
+
+    /**
+     * Takes back the last move recorded in the journal.
+     *
+     * @return  true if a move was undone, false if there was nothing to undo.
+     */
+    public boolean undo() {
+
+        if (!journal.canUndo()) {
+            return false;
+        }
+
+        takeBack();
+        model.setStuck(isStuck());
+        model.setWin(model.isSolved());
+        return true;
+    }
+
+    /**
+     * Plays again the last move taken back by {@link #undo()}.
+     *
+     * @return  true if a move was redone, false if there was nothing to redo.
+     */
+    public boolean redo() {
+
+        if (!journal.canRedo()) {
+            return false;
+        }
+
+        int entry = journal.getCursor();
+        journal.redo();
+        int boxTo = journal.getBoxTo(entry);
+        if (boxTo >= 0) {
+            model.moveBox(journal.getBoxFrom(entry), boxTo);
+        }
+        model.movePlayer(journal.getPlayerTo(entry));
+        model.setStuck(isStuck());
+        model.setWin(model.isSolved());
+        return true;
+    }
+
+    /**
+     * Resets the level to its initial state. If the journal reaches back to the initial state
+     * it is rewound, so the moves can still be redone afterwards. Otherwise, for example after
+     * loading a saved game, the initial state stored in the {@link Model} is restored.
+     */
+    public void reset() {
+
+        if (journalFromStart) {
+            while (journal.canUndo()) {
+                takeBack();
+            }
+        } else {
+            model.restoreInitialState();
+            journal.clear();
+            journalFromStart = journaling;
+            movesBefore = 0;
+        }
+
+        model.setStuck(false);
+        model.setWin(false);
+    }
+
+    /**
+     * Moves the player and the box of the last move recorded in the journal back, without updating
+     * the win and stuck status of the {@link Model}.
+     */
+    private void takeBack() {
+        journal.undo();
+        int entry = journal.getCursor();
+        model.movePlayer(journal.getPlayerFrom(entry));
+        if (journal.getBoxFrom(entry) >= 0) {
+            model.moveBox(journal.getBoxTo(entry), journal.getBoxFrom(entry));
+        }
+    }
+
+    /**
+     * Records a move in the journal, or only counts it while journaling is turned off.
+     *
+     * @param playerFrom    The cell the player moved from.
+     * @param playerTo      The cell the player moved to.
+     * @param boxFrom       The cell the pushed box moved from, or -1 if no box was pushed.
+     * @param boxTo         The cell the pushed box moved to, or -1 if no box was pushed.
+     */
+    private void record(int playerFrom, int playerTo, int boxFrom, int boxTo) {
+        if (journaling) {
+            journal.record(playerFrom, playerTo, boxFrom, boxTo);
+        } else {
+            movesBefore++;
+        }
+    }
+
+    /**
+     * Checks every box for a deadlock, used after undo and redo where the pushed box alone does not
+     * tell whether the level can still be completed.
+     *
+     * @return  true if any box can no longer reach a marked tile, false otherwise.
+     */
+    private boolean isStuck() {
+        for (int i = 0; i < model.getBoxCount(); i++) {
+            if (isDeadlock(model.getBoxCell(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the box that was just pushed can no longer reach a marked tile,
+     * either because it stands on a dead square, because it completes a pattern of the {@link PatternDatabase}
+     * or because it is part of a freeze deadlock.
+     *
+     * @param box   The cell index of the pushed box.
+     * @return      true if the level can no longer be completed, false otherwise.
+     */
+    private boolean isDeadlock(int box) {
+        return model.isDeadSquare(box) || patterns.isDeadlock(box, map.getWidth(), isWall, isBox, isGoal)
+                || deadlockDetector.isFreezeDeadlock(box, isBox);
+    }
+
+    /**
+     * Returns the direction of the last move played, for example the move just redone.
+     *
+     * @return The {@link Direction}, or {@code null} if no move is played.
+     */
+    public Direction getLastDirection() {
+        if (!journal.canUndo()) {
+            return null;
+        }
+
+        int entry = journal.getCursor() - 1;
+        int offset = journal.getPlayerTo(entry) - journal.getPlayerFrom(entry);
+        for (Direction d : Direction.ALL) {
+            if (offsets[d.ordinal()] == offset) {
+                return d;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of moves made in the level, not counting undone moves.
+     *
+     * @return The number of moves.
+     */
+    public int getMoveCount() {
+        return movesBefore + journal.getCursor();
+    }
+
+    /**
+     * Sets the number of moves made in the level before this engine was created, for example when
+     * a saved game is restored.
+     *
+     * @param moves     The number of moves.
+     */
+    public void setMovesBefore(int moves) {
+        movesBefore = journalFromStart ? 0 : moves;
+    }
+
+    /**
+     * Returns the journal of moves made in the level.
+     *
+     * @return The {@link MoveJournal}.
+     */
+    public MoveJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Applies a sequence of moves written as characters, see {@link GameEngine}.
+     * Blocked moves are skipped.
+     *
+     * @param moves     The moves to apply.
+     * @return          A {@link Result} describing the state after the last move.
+     * @throws IllegalArgumentException if the sequence contains an unknown character.
+     */
+    public Result apply(CharSequence moves) {
+
+        Result result = new Result();
+        for (int i = 0; i < moves.length(); i++) {
+            count(result, move(Direction.fromChar(moves.charAt(i))));
+        }
+
+        return finish(result);
+    }
+
+    /**
+     * Applies a sequence of moves given as {@link Direction#ordinal()}s, see {@link GameEngine}.
+     * Blocked moves are skipped.
+     *
+     * @param moves     The moves to apply.
+     * @return          A {@link Result} describing the state after the last move.
+     * @throws IllegalArgumentException if the sequence contains an unknown direction.
+     */
+    public Result apply(byte[] moves) {
+
+        Result result = new Result();
+        for (byte b : moves) {
+            if (b < 0 || b >= Direction.ALL.length) {
+                throw new IllegalArgumentException("Unknown direction: " + b);
+            }
+            count(result, move(Direction.ALL[b]));
+        }
+
+        return finish(result);
+    }
+
+    /**
+     * Adds the outcome of one move to a {@link Result}.
+     *
+     * @param result    The result being built.
+     * @param outcome   {@link #BLOCKED}, {@link #MOVED} or {@link #PUSHED}.
+     */
+    private void count(Result result, int outcome) {
+        if (outcome != BLOCKED) {
+            result.moves++;
+        }
+        if (outcome == PUSHED) {
+            result.pushes++;
+        }
+    }
+
+    /**
+     * Copies the final player and box cells and the win and stuck status of the {@link Model} to a {@link Result}.
+     *
+     * @param result    The result being built.
+     * @return          The finished result.
+     */
+    private Result finish(Result result) {
+        result.playerCell = model.getPlayerCell();
+        result.boxCells = new int[model.getBoxCount()];
+        for (int i = 0; i < result.boxCells.length; i++) {
+            result.boxCells[i] = model.getBoxCell(i);
+        }
+        Arrays.sort(result.boxCells);
+        result.win = model.isSolved();
+        result.stuck = model.getStuck();
+        return result;
+    }
+
+    /**
+     * The {@code Result} class describes the outcome of a sequence of moves applied by {@link GameEngine}.
+     */
+    public static class Result {
+
+        /**
+         * Number of moves that were not blocked.
+         */
+        private int moves;
+
+        /**
+         * Number of moves that pushed a box.
+         */
+        private int pushes;
+
+        /**
+         * Cell index of the player after the last move.
+         */
+        private int playerCell;
+
+        /**
+         * Cell indices of the boxes after the last move, in ascending order.
+         */
+        private int[] boxCells;
+
+        /**
+         * Condition if the level is completed after the last move.
+         */
+        private boolean win;
+
+        /**
+         * Condition if a box has been pushed into a deadlock.
+         */
+        private boolean stuck;
+
+        /**
+         * Returns the number of moves that were not blocked.
+         *
+         * @return The number of moves.
+         */
+        public int getMoves() {
+            return moves;
+        }
+
+        /**
+         * Returns the number of moves that pushed a box.
+         *
+         * @return The number of pushes.
+         */
+        public int getPushes() {
+            return pushes;
+        }
+
+        /**
+         * Returns the cell index of the player after the last move.
+         *
+         * @return The cell index.
+         */
+        public int getPlayerCell() {
+            return playerCell;
+        }
+
+        /**
+         * Returns the cell indices of the boxes after the last move.
+         *
+         * @return The cell indices in ascending order.
+         */
+        public int[] getBoxCells() {
+            return boxCells.clone();
+        }
+
+        /**
+         * Returns whether the level is completed after the last move.
+         *
+         * @return true if every box is on a marked tile, false otherwise.
+         */
+        public boolean getWin() {
+            return win;
+        }
+
+        /**
+         * Returns whether a box has been pushed into a deadlock.
+         *
+         * @return true if the player is stuck, false otherwise.
+         */
+        public boolean getStuck() {
+            return stuck;
+        }
+    }
+}
\ No newline at end of file
@@ -1,18 +1,73 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serial;
 import java.io.Serializable;
 
 /**
  * The {@code GameGrid} class represents a grid used in the game, providing functions to access and modify
  * values in the grid. It implements the {@link Serializable} interface to support object serialization.
- * The grid is represented by a 2D array of strings, where each string represents an icon in the game.
- * The class also provides methods to retrieve the current grid, get a value at a specific position, set a value
- * at a specific position, and create a clone of the grid.
+ * The grid is stored as a flat {@code byte[]} in row-major order, where every cell holds a combination
+ * of the tile flags {@link #WALL}, {@link #GOAL}, {@link #BOX} and {@link #PLAYER}.
+ * The {@code String} based methods ({@code getValue}, {@code setValue} and {@code getGrid}) are kept
+ * as a compatibility layer and translate between the flags and the names used in the level files.
  */
 public class GameGrid implements Serializable {
 
+    @Serial
+    private static final long serialVersionUID = 7620339531567645823L;
+
+    /**
+     * Blank tile, represented by {@code null} in the level files.
+     */
+    public static final byte EMPTY = 0;
+
+    /**
+     * Wall tile flag ("wall").
+     */
+    public static final byte WALL = 1;
+
+    /**
+     * Marked tile flag ("redmarker").
+     */
+    public static final byte GOAL = 2;
+
+    /**
+     * Box flag ("box", or "boxmarked" when combined with {@link #GOAL}).
+     */
+    public static final byte BOX = 4;
+
     /**
-     * Matrix of {@code String}s to represent the map grid.
+     * Player flag ("player").
      */
-    private String[][] gameGrid;
+    public static final byte PLAYER = 8;
+
+    /**
+     * Fields written by Java serialization. The legacy {@code String[][] gameGrid} field
+     * is still accepted when reading older saves.
+     */
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("width", int.class),
+            new ObjectStreamField("height", int.class),
+            new ObjectStreamField("tiles", byte[].class)
+    };
+
+    /**
+     * Number of columns in the grid.
+     */
+    private int width;
+
+    /**
+     * Number of rows in the grid.
+     */
+    private int height;
+
+    /**
+     * Tile flags of every cell, stored row by row.
+     */
+    private byte[] tiles;
 
     /**
      * Creates a {@link GameGrid} with functions to find values, set values, and clone map.
@@ -20,16 +75,123 @@ public class GameGrid implements Serializable {
      * @param gameGrid  Matrix of {@code String}s representing the map in a 2D environment.
      */
     public GameGrid(String[][] gameGrid) {
-        this.gameGrid = gameGrid;
+        this(gameGrid.length, gameGrid[0].length);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                tiles[index(x, y)] = encode(gameGrid[x][y]);
+            }
+        }
     }
 
     /**
-     * Get the current {@link GameGrid}.
+     * Creates an empty {@link GameGrid} of the given size.
+     *
+     * @param width     Number of columns
+     * @param height    Number of rows
+     */
+    public GameGrid(int width, int height) {
+        this(width, height, new byte[width * height]);
+    }
+
+    /**
+     * Creates a {@link GameGrid} backed by the given tile array.
+     *
+     * @param width     Number of columns
+     * @param height    Number of rows
+     * @param tiles     Tile flags stored row by row, used without copying
+     */
+    public GameGrid(int width, int height, byte[] tiles) {
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+    }
+
+    /**
+     * Get the current {@link GameGrid} as a matrix of {@code String}s.
+     * The matrix is a snapshot, changes to it are not reflected in the grid.
      *
      * @return  Matrix of {@code String}s representing the map in a 2D environment.
      */
     public String[][] getGrid(){
-        return gameGrid;
+        String[][] grid = new String[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                grid[x][y] = decode(tiles[index(x, y)]);
+            }
+        }
+
+        return grid;
+    }
+
+    /**
+     * Get the number of columns in the grid.
+     *
+     * @return  Width of the grid.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the number of rows in the grid.
+     *
+     * @return  Height of the grid.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the flat index of a position in the grid.
+     *
+     * @param x     Column
+     * @param y     Row
+     * @return      Index of position [x][y] in the tile array.
+     */
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Get the tile flags at a position in the map.
+     *
+     * @param x     Column
+     * @param y     Row
+     * @return      Tile flags in position [x][y].
+     */
+    public byte getTile(int x, int y) {
+        return tiles[index(x, y)];
+    }
+
+    /**
+     * Get the tile flags at a flat index in the map.
+     *
+     * @param index     Index as returned by {@link #index(int, int)}
+     * @return          Tile flags at the index.
+     */
+    public byte getTile(int index) {
+        return tiles[index];
+    }
+
+    /**
+     * Sets the tile flags at a position in the map.
+     *
+     * @param x         Column
+     * @param y         Row
+     * @param tile      Combination of the tile flags.
+     */
+    public void setTile(int x, int y, byte tile) {
+        tiles[index(x, y)] = tile;
+    }
+
+    /**
+     * Sets the tile flags at a flat index in the map.
+     *
+     * @param index     Index as returned by {@link #index(int, int)}
+     * @param tile      Combination of the tile flags.
+     */
+    public void setTile(int index, byte tile) {
+        tiles[index] = tile;
     }
 
     /**
@@ -40,7 +202,7 @@ public class GameGrid implements Serializable {
      * @return      Object in position [x][y] in the {@code String[][]}
      */
     public String getValue(int x, int y) {
-        return gameGrid[x][y];
+        return decode(tiles[index(x, y)]);
     }
 
     /**
@@ -51,7 +213,7 @@ public class GameGrid implements Serializable {
      * @param value     {@code String} or {@code null} which represents icons in the game.
      */
     public void setValue(int x, int y, String value) {
-        gameGrid[x][y] = value;
+        tiles[index(x, y)] = encode(value);
     }
 
     /**
@@ -60,29 +222,88 @@ public class GameGrid implements Serializable {
      * @return  Copy of the current {@link GameGrid}.
      */
     public GameGrid clone(){
-        String[][] cloneGrid = new String[gameGrid.length][gameGrid[0].length];
-        for(int i = 0; i < gameGrid.length; i++){
-            for(int j = 0; j < gameGrid[0].length; j++){
-                if (gameGrid[i][j] != null) {
-                    cloneGrid[i][j] = new String(gameGrid[i][j]);
-                } else {
-                    cloneGrid[i][j] = null;
-                }
-            }
+        return new GameGrid(width, height, tiles.clone());
+    }
+
+    /**
+     * Translates the name of an icon used in the level files to tile flags.
+     *
+     * @param value     Name of the icon, or {@code null} for a blank tile.
+     * @return          The matching tile flags.
+     * @throws IllegalArgumentException if the name is not a known icon.
+     */
+    public static byte encode(String value) {
+        if (value == null) {
+            return EMPTY;
+        }
+
+        return switch (value) {
+            case "wall" -> WALL;
+            case "redmarker" -> GOAL;
+            case "box" -> BOX;
+            case "boxmarked" -> BOX | GOAL;
+            case "player" -> PLAYER;
+            default -> throw new IllegalArgumentException("Unknown tile: " + value);
+        };
+    }
+
+    /**
+     * Translates tile flags to the name of the icon used in the level files.
+     *
+     * @param tile      Tile flags.
+     * @return          Name of the icon, or {@code null} for a blank tile.
+     */
+    public static String decode(byte tile) {
+        if ((tile & WALL) != 0) {
+            return "wall";
+        }
+        if ((tile & BOX) != 0) {
+            return (tile & GOAL) != 0 ? "boxmarked" : "box";
+        }
+        if ((tile & PLAYER) != 0) {
+            return "player";
         }
+        if ((tile & GOAL) != 0) {
+            return "redmarker";
+        }
+
+        return null;
+    }
 
-        return new GameGrid(cloneGrid);
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("width", width);
+        fields.put("height", height);
+        fields.put("tiles", tiles);
+        out.writeFields();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        if (fields.getObjectStreamClass().getField("gameGrid") != null) {
+            GameGrid legacy = new GameGrid((String[][]) fields.get("gameGrid", null));
+            width = legacy.width;
+            height = legacy.height;
+            tiles = legacy.tiles;
+        } else {
+            width = fields.get("width", 0);
+            height = fields.get("height", 0);
+            tiles = (byte[]) fields.get("tiles", null);
+        }
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < gameGrid[0].length; i++) {
-            for (int j = 0; j < gameGrid.length; j++) {
-                sb.append(gameGrid[j][i]);
-                if (gameGrid[j][i] != null) {
-                    if (gameGrid[j][i].length() != 9) {
-                        int blanks = 9 - gameGrid[j][i].length();
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                String value = decode(tiles[index(j, i)]);
+                sb.append(value);
+                if (value != null) {
+                    if (value.length() != 9) {
+                        int blanks = 9 - value.length();
                         for (int k = 0; k < blanks; k++) {
                             sb.append(" ");
                         }
@@ -90,7 +311,7 @@ public class GameGrid implements Serializable {
                 } else {
                     sb.append("     ");
                 }
-                if (j < gameGrid[j].length - 1) {
+                if (j < height - 1) {
                     sb.append(" ");
                 }
             }
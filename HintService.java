@@ -0,0 +1,518 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * The {@code HintService} class suggests the next push to a player, starting from the current state
+ * of a {@link Model}, within a latency budget.
+ *
+ * <p>
+ * A hint runs an A* search over pushes like the {@link Solver}, but stops when the budget runs out.
+ * If a solution was found by then, the hint is its first push and is marked as solving. Otherwise it
+ * is the first push towards the state the search would expand next, the one with the lowest estimate
+ * of pushes made plus pushes left, and is marked as unproven. Pushes the deadlock checks reject are
+ * never suggested. If the current state is stuck, or the search runs out of states to expand, the
+ * level can no longer be solved and no hint is given.
+ * </p>
+ *
+ * <p>
+ * One service is meant to be used for a whole session of play. Every solution found is cached by the
+ * {@link Zobrist} hash of each state along it, so while the player follows the hints every later hint
+ * is answered at once. If a hint is asked for a state the current search has already reached, for
+ * example after the player followed a best-guess hint, the search continues from that state with the
+ * part of the search below it instead of starting over, so consecutive hints get cheaper.
+ * </p>
+ */
+public class HintService {
+
+    /**
+     * Default latency budget in milliseconds.
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 50;
+
+    /**
+     * Default maximum number of states kept by the search of one state.
+     */
+    public static final int DEFAULT_MAX_STATES = 500_000;
+
+    /**
+     * Number of expanded nodes between checks of the deadline.
+     */
+    private static final int CHECK_INTERVAL = 64;
+
+    /**
+     * The {@link Model} the hints are given for.
+     */
+    private final Model model;
+
+    /**
+     * Generator of the pushes of a node.
+     */
+    private final PushGenerator generator;
+
+    /**
+     * Next push of every state on a solution found, by the hash of the state.
+     */
+    private final Map<Long, Step> solutions;
+
+    /**
+     * Latency budget in milliseconds.
+     */
+    private long budgetMillis;
+
+    /**
+     * Maximum number of states kept by the search of one state.
+     */
+    private int maxStates;
+
+    /**
+     * Node of the state the current search starts from.
+     */
+    private SearchNode root;
+
+    /**
+     * Nodes left to expand by the current search, or {@code null} if there is none.
+     */
+    private PriorityQueue<SearchNode> open;
+
+    /**
+     * Node with the fewest pushes of every state reached by the current search.
+     */
+    private Map<SearchNode, SearchNode> reached;
+
+    /**
+     * Nodes of the current search whose state is reached with fewer pushes through another parent.
+     * Their parents are expanded again when the search continues from another state and their
+     * state is not below it.
+     */
+    private List<SearchNode> transpositions;
+
+    /**
+     * Constructs a {@link HintService} for a level.
+     *
+     * @param model     The {@link Model} of the level.
+     */
+    public HintService(Model model) {
+        this.model = model;
+        this.generator = new PushGenerator(new SearchBoard(model));
+        this.solutions = new HashMap<>();
+        this.budgetMillis = DEFAULT_BUDGET_MILLIS;
+        this.maxStates = DEFAULT_MAX_STATES;
+    }
+
+    /**
+     * Sets the latency budget of a hint.
+     *
+     * @param millis    The budget in milliseconds.
+     */
+    public void setBudget(long millis) {
+        budgetMillis = millis;
+    }
+
+    /**
+     * Returns the latency budget of a hint.
+     *
+     * @return The budget in milliseconds.
+     */
+    public long getBudget() {
+        return budgetMillis;
+    }
+
+    /**
+     * Sets the maximum number of states kept while searching from one state, which bounds the memory use.
+     *
+     * @param states    The maximum number of states.
+     */
+    public void setMaxStates(int states) {
+        maxStates = states;
+    }
+
+    /**
+     * Suggests the next push from the current state of the {@link Model} within the latency budget.
+     *
+     * @return The {@link Hint}, or {@code null} if the level is solved or no push can lead to a solution.
+     *         A hint that is not {@link Hint#isSolving() solving} is the best guess within the budget and
+     *         is not proven to lead to a solution.
+     */
+    public Hint hint() {
+
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000;
+        long hash = model.getHash();
+        Hint cached = cachedHint(hash);
+        if (cached != null) {
+            return cached;
+        }
+        if (model.isSolved() || model.getStuck()) {
+            return null;
+        }
+
+        if (open == null || !continueSearch(hash, deadline)) {
+            startSearch();
+        }
+
+        List<SearchNode> children = new ArrayList<>();
+        int expanded = 0;
+        while (!open.isEmpty() && reached.size() < maxStates) {
+            if (++expanded % CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                break;
+            }
+
+            SearchNode node = open.poll();
+            if (reached.get(node) != node) {
+                continue;
+            }
+            if (node.getHeuristic() == 0) {
+                remember(node);
+                return cachedHint(hash);
+            }
+
+            children.clear();
+            generator.expand(node, children);
+            for (SearchNode child : children) {
+                SearchNode known = reached.get(child);
+                if (known == null || known.getPushes() > child.getPushes()) {
+                    if (known != null) {
+                        transpositions.add(known);
+                    }
+                    reached.put(child, child);
+                    open.add(child);
+                } else {
+                    transpositions.add(child);
+                }
+            }
+        }
+        while (!open.isEmpty() && reached.get(open.peek()) != open.peek()) {
+            open.poll();
+        }
+        SearchNode towards = open.peek();
+        if (towards == null || towards == root) {
+            return null;
+        }
+
+        return hintTowards(towards);
+    }
+
+    /**
+     * Forgets the cached solutions and the current search, for example after the level was changed.
+     */
+    public void clear() {
+        solutions.clear();
+        forgetSearch();
+    }
+
+    /**
+     * Starts a new search from the current state of the {@link Model}.
+     */
+    private void startSearch() {
+        root = generator.startNode(model);
+        open = new PriorityQueue<>(
+                Comparator.comparingInt(SearchNode::getEstimate).thenComparingInt(SearchNode::getHeuristic));
+        reached = new HashMap<>();
+        transpositions = new ArrayList<>();
+        if (root.getHeuristic() != SearchBoard.UNREACHABLE) {
+            open.add(root);
+            reached.put(root, root);
+        }
+    }
+
+    /**
+     * Makes the current search start from the current state of the {@link Model}, if the search has
+     * reached it. Only the nodes below the node of the state are kept; their pushes still count from
+     * the old start, which leaves the order of the nodes unchanged. A kept node that was expanded and
+     * has a child that is not kept is expanded again, so no state below the new start is missed.
+     * A large search may take longer than the budget to sort out; it is then started over instead.
+     *
+     * @param hash      The hash of the current state.
+     * @param deadline  Value of {@link System#nanoTime()} after which the search is started over.
+     * @return          true if the search continues from the current state, false if it has to start over.
+     */
+    private boolean continueSearch(long hash, long deadline) {
+        if (root.getHash() == hash) {
+            return true;
+        }
+        SearchNode node = reached.get(generator.startNode(model));
+        if (node == null) {
+            return false;
+        }
+
+        Map<SearchNode, Boolean> below = new IdentityHashMap<>();
+        below.put(node, true);
+        Map<SearchNode, SearchNode> kept = new HashMap<>();
+        int visited = 0;
+        for (SearchNode n : reached.values()) {
+            if (++visited % CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            if (isBelow(n, below)) {
+                kept.put(n, n);
+            }
+        }
+
+        PriorityQueue<SearchNode> frontier = new PriorityQueue<>(open.comparator());
+        Set<SearchNode> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SearchNode n : open) {
+            if (kept.get(n) == n && queued.add(n)) {
+                frontier.add(n);
+            }
+        }
+        List<SearchNode> shared = new ArrayList<>();
+        for (SearchNode n : transpositions) {
+            if (++visited % CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            SearchNode parent = n.getParent();
+            if (kept.get(parent) != parent) {
+                continue;
+            }
+            if (kept.containsKey(n)) {
+                shared.add(n);
+            } else if (queued.add(parent)) {
+                frontier.add(parent);
+            }
+        }
+
+        root = node;
+        open = frontier;
+        reached = kept;
+        transpositions = shared;
+        return true;
+    }
+
+    /**
+     * Returns whether a node lies below the new start of the search, remembering the answer for every
+     * node on the way up.
+     *
+     * @param node      The node.
+     * @param below     Known answers by node, holding the new start.
+     * @return          true if the new start is an ancestor of the node or the node itself, false otherwise.
+     */
+    private static boolean isBelow(SearchNode node, Map<SearchNode, Boolean> below) {
+        List<SearchNode> path = new ArrayList<>();
+        Boolean known = below.get(node);
+        while (known == null) {
+            path.add(node);
+            node = node.getParent();
+            known = node == null ? Boolean.FALSE : below.get(node);
+        }
+        for (SearchNode n : path) {
+            below.put(n, known);
+        }
+
+        return known;
+    }
+
+    /**
+     * Drops the current search.
+     */
+    private void forgetSearch() {
+        root = null;
+        open = null;
+        reached = null;
+        transpositions = null;
+    }
+
+    /**
+     * Caches the next push of every state on the path to a solving node.
+     *
+     * @param solution  The solving node.
+     */
+    private void remember(SearchNode solution) {
+        for (SearchNode n = solution; n != root; n = n.getParent()) {
+            int remaining = solution.getPushes() - n.getParent().getPushes();
+            Step step = new Step(n.getPushedFrom(), n.getDirection(), remaining);
+            solutions.put(n.getParent().getHash(), step);
+        }
+        forgetSearch();
+    }
+
+    /**
+     * Returns the hint cached for a state, if the box it pushes is still where it was.
+     *
+     * @param hash  The hash of the state.
+     * @return      The {@link Hint}, or {@code null} if there is none.
+     */
+    private Hint cachedHint(long hash) {
+        Step step = solutions.get(hash);
+        if (step == null || !model.isBox(step.box)) {
+            return null;
+        }
+        Direction direction = Direction.ALL[step.direction];
+        int offset = direction.offset(model.getMap().getWidth());
+        if (model.isBox(step.box + offset)) {
+            return null;
+        }
+
+        int[] boxes = new int[model.getBoxCount()];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = model.getBoxCell(i);
+        }
+
+        StringBuilder moves = new StringBuilder();
+        generator.appendPath(model.getPlayerCell(), step.box - offset, boxes, moves);
+        moves.append(Character.toUpperCase(generator.symbol(offset)));
+
+        return new Hint(model.toPoint(step.box), direction, moves.toString(), true, step.remaining);
+    }
+
+    /**
+     * Creates the hint of the first push on the path to a node that does not solve the level.
+     *
+     * @param node  The node the hint leads towards.
+     * @return      The {@link Hint}.
+     */
+    private Hint hintTowards(SearchNode node) {
+        SearchNode first = node;
+        while (first.getParent() != root) {
+            first = first.getParent();
+        }
+
+        Direction direction = Direction.ALL[first.getDirection()];
+        int offset = direction.offset(model.getMap().getWidth());
+        StringBuilder moves = new StringBuilder();
+        generator.appendPath(model.getPlayerCell(), first.getPushedFrom() - offset, root.getBoxes(), moves);
+        moves.append(Character.toUpperCase(generator.symbol(offset)));
+        return new Hint(model.toPoint(first.getPushedFrom()), direction, moves.toString(), false, -1);
+    }
+
+    /**
+     * A push cached for a state on a solution.
+     */
+    private static class Step {
+
+        /**
+         * Cell index of the box to push.
+         */
+        private final int box;
+
+        /**
+         * Ordinal of the {@link Direction} of the push.
+         */
+        private final int direction;
+
+        /**
+         * Number of pushes left to solve the level, including this one.
+         */
+        private final int remaining;
+
+        /**
+         * Constructs a {@link Step}.
+         *
+         * @param box           Cell index of the box to push.
+         * @param direction     Ordinal of the {@link Direction} of the push.
+         * @param remaining     Number of pushes left to solve the level, including this one.
+         */
+        Step(int box, int direction, int remaining) {
+            this.box = box;
+            this.direction = direction;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * The {@code Hint} class is a push suggested to the player, with the moves leading to it.
+     */
+    public static class Hint {
+
+        /**
+         * Position of the box to push.
+         */
+        private final Point box;
+
+        /**
+         * Direction to push the box in.
+         */
+        private final Direction direction;
+
+        /**
+         * Moves walking the player to the box and pushing it, in LURD notation.
+         */
+        private final String moves;
+
+        /**
+         * Condition if the push is the first of a solution with the fewest pushes.
+         */
+        private final boolean solving;
+
+        /**
+         * Number of pushes left to solve the level, or -1 if not known.
+         */
+        private final int remainingPushes;
+
+        /**
+         * Constructs a {@link Hint}.
+         *
+         * @param box               Position of the box to push.
+         * @param direction         Direction to push the box in.
+         * @param moves             Moves walking the player to the box and pushing it.
+         * @param solving           Condition if the push is the first of a solution.
+         * @param remainingPushes   Number of pushes left to solve the level, or -1.
+         */
+        public Hint(Point box, Direction direction, String moves, boolean solving, int remainingPushes) {
+            this.box = box;
+            this.direction = direction;
+            this.moves = moves;
+            this.solving = solving;
+            this.remainingPushes = remainingPushes;
+        }
+
+        /**
+         * Returns the position of the box to push.
+         *
+         * @return The box position.
+         */
+        public Point getBox() {
+            return box;
+        }
+
+        /**
+         * Returns the direction to push the box in.
+         *
+         * @return The {@link Direction}.
+         */
+        public Direction getDirection() {
+            return direction;
+        }
+
+        /**
+         * Returns the moves walking the player to the box and pushing it, which can be given to
+         * {@link GameEngine#apply(CharSequence)}.
+         *
+         * @return The moves in LURD notation.
+         */
+        public String getMoves() {
+            return moves;
+        }
+
+        /**
+         * Returns whether the push is the first of a solution with the fewest pushes, rather than the
+         * best guess found within the budget, which is not proven to lead to a solution.
+         *
+         * @return true if the push is part of a solution, false if it is unproven.
+         */
+        public boolean isSolving() {
+            return solving;
+        }
+
+        /**
+         * Returns the number of pushes left to solve the level, including this one.
+         *
+         * @return The number of pushes, or -1 if not known.
+         */
+        public int getRemainingPushes() {
+            return remainingPushes;
+        }
+
+        @Override
+        public String toString() {
+            return "push (" + box.x + "," + box.y + ") " + direction.name().toLowerCase()
+                    + (solving ? ", " + remainingPushes + " pushes left" : ", unproven") + ": " + moves;
+        }
+    }
+}
\ No newline at end of file
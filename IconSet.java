@@ -0,0 +1,183 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code IconSet} class holds the decoded images of the six icons drawn by {@link LevelComponent},
+ * in the order of the {@code File[]} given to every {@link Model}.
+ *
+ * <p>
+ * Every set of icon files is decoded once per JVM, all six images at the same time on the common
+ * fork-join pool, and shared by every level drawn with it. Decoding can be started early with
+ * {@link #loadAsync(File[])}; a later {@link #load(File[])} of the same files waits for it instead
+ * of decoding them again.
+ * </p>
+ */
+public class IconSet {
+
+    /**
+     * Index of the blank tile icon.
+     */
+    public static final int BLANK = 0;
+
+    /**
+     * Index of the marked tile icon.
+     */
+    public static final int REDMARKER = 1;
+
+    /**
+     * Index of the player icon.
+     */
+    public static final int PLAYER = 2;
+
+    /**
+     * Index of the crate icon.
+     */
+    public static final int BOX = 3;
+
+    /**
+     * Index of the marked crate icon.
+     */
+    public static final int BOXMARKED = 4;
+
+    /**
+     * Index of the wall icon.
+     */
+    public static final int WALL = 5;
+
+    /**
+     * Number of icons in a set.
+     */
+    public static final int ICON_COUNT = 6;
+
+    /**
+     * Icon sets decoded or being decoded, by their files.
+     */
+    private static final Map<List<File>, CompletableFuture<IconSet>> SETS = new ConcurrentHashMap<>();
+
+    /**
+     * The decoded images, by index.
+     */
+    private final BufferedImage[] images;
+
+    /**
+     * Constructs an {@link IconSet}.
+     *
+     * @param images    The decoded images, by index.
+     */
+    private IconSet(BufferedImage[] images) {
+        this.images = images;
+    }
+
+    /**
+     * Starts decoding a set of icons in the background, unless it was already started.
+     *
+     * @param icons     {@code File[]} which contains the .png image-files to be used in the game.
+     * @return          The {@link IconSet} once all images are decoded.
+     */
+    public static CompletableFuture<IconSet> loadAsync(File[] icons) {
+        List<File> key = List.of(icons);
+        CompletableFuture<IconSet> set = SETS.computeIfAbsent(key, k -> decode(icons));
+        set.whenComplete((s, e) -> {
+            if (e != null) {
+                SETS.remove(key, set);
+            }
+        });
+
+        return set;
+    }
+
+    /**
+     * Returns a set of icons, decoding it first if no other caller has.
+     *
+     * @param icons     {@code File[]} which contains the .png image-files to be used in the game.
+     * @return          The {@link IconSet}.
+     * @throws IOException if an icon can not be read.
+     */
+    public static IconSet load(File[] icons) throws IOException {
+        try {
+            return loadAsync(icons).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns one decoded icon.
+     *
+     * @param index     Index of the icon, for example {@link #WALL}.
+     * @return          The image.
+     */
+    public BufferedImage getImage(int index) {
+        return images[index];
+    }
+
+    /**
+     * Returns the width of the icons, taken from the blank tile icon.
+     *
+     * @return The width in pixels.
+     */
+    public int getIconWidth() {
+        return images[BLANK].getWidth();
+    }
+
+    /**
+     * Returns the height of the icons, taken from the blank tile icon.
+     *
+     * @return The height in pixels.
+     */
+    public int getIconHeight() {
+        return images[BLANK].getHeight();
+    }
+
+    /**
+     * Decodes every icon of a set in parallel.
+     *
+     * @param icons     The icon files.
+     * @return          The {@link IconSet} once all images are decoded.
+     */
+    private static CompletableFuture<IconSet> decode(File[] icons) {
+        if (icons.length < ICON_COUNT) {
+            return CompletableFuture.failedFuture(new UncheckedIOException(
+                    new IOException("Expected " + ICON_COUNT + " icons, got " + icons.length)));
+        }
+
+        BufferedImage[] images = new BufferedImage[ICON_COUNT];
+        CompletableFuture<?>[] reads = new CompletableFuture<?>[ICON_COUNT];
+        for (int i = 0; i < ICON_COUNT; i++) {
+            int index = i;
+            reads[i] = CompletableFuture.runAsync(() -> images[index] = read(icons[index]));
+        }
+
+        return CompletableFuture.allOf(reads).thenApply(done -> new IconSet(images));
+    }
+
+    /**
+     * Decodes one icon.
+     *
+     * @param icon  The icon file.
+     * @return      The image.
+     * @throws UncheckedIOException if the file can not be read or is not an image.
+     */
+    private static BufferedImage read(File icon) {
+        try {
+            BufferedImage image = ImageIO.read(icon);
+            if (image == null) {
+                throw new IOException("Not an image: " + icon);
+            }
+            return image;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
\ No newline at end of file
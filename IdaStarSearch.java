@@ -0,0 +1,324 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The {@code IdaStarSearch} class is the {@link Solver.Mode#IDA_STAR} mode of the {@link Solver}, meant for
+ * levels too large for the other modes to fit in memory.
+ *
+ * <p>
+ * The search runs in iterations. Every iteration explores, depth first, all nodes whose estimate of the
+ * total pushes is within a bound, and the lowest estimate above the bound becomes the bound of the next
+ * iteration. Only the current path is kept, together with a small {@link OffHeapTranspositionTable} of a
+ * fixed size that skips states already reached with as few pushes in the same iteration. When the table is
+ * full it forgets the deepest states, so the memory use stays the same however long the search runs.
+ * Since the bound grows one iteration at a time from an admissible estimate, the first solution found has
+ * the fewest pushes.
+ * </p>
+ *
+ * <p>
+ * The bound of every finished iteration can be written to a checkpoint file. A later search of the same
+ * position reads it back and starts from that bound, skipping the iterations already done. The file holds
+ * the {@link SaveGame#contentHash(Model) content hash} of the level as well, so a bound is never reused
+ * for an edited level or another level with the same start position.
+ * </p>
+ */
+public class IdaStarSearch {
+
+    /**
+     * Default number of slots of the transposition cache.
+     */
+    public static final long DEFAULT_CACHE_SLOTS = 1 << 18;
+
+    /**
+     * Largest number of slots probed in the transposition cache.
+     */
+    private static final int CACHE_PROBES = 8;
+
+    /**
+     * Number of expanded nodes between checks of the budgets and progress reports.
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * First bytes of a checkpoint file.
+     */
+    private static final int CHECKPOINT_MAGIC = 0x49444121;
+
+    /**
+     * The solver holding the {@link Model}, the {@link SearchBoard} and the budgets.
+     */
+    private final Solver solver;
+
+    /**
+     * Generator of the pushes of a node.
+     */
+    private final PushGenerator generator;
+
+    /**
+     * States reached in the current iteration with the fewest pushes, bounded in size.
+     */
+    private final OffHeapTranspositionTable cache;
+
+    /**
+     * File the bound is saved to after every iteration, or {@code null}.
+     */
+    private final Path checkpoint;
+
+    /**
+     * Children of the node expanded at every depth of the current path.
+     */
+    private final List<List<SearchNode>> childrenByDepth;
+
+    /**
+     * Bound of the current iteration.
+     */
+    private int bound;
+
+    /**
+     * Lowest estimate above the bound of the current iteration.
+     */
+    private int nextBound;
+
+    /**
+     * Number of nodes expanded.
+     */
+    private long expanded;
+
+    /**
+     * Number of nodes generated.
+     */
+    private long generated;
+
+    /**
+     * Value of {@link System#nanoTime()} when the search started.
+     */
+    private long start;
+
+    /**
+     * Value of {@link System#nanoTime()} when the time budget runs out.
+     */
+    private long deadline;
+
+    /**
+     * Value of {@link System#nanoTime()} of the next progress notification.
+     */
+    private long nextReport;
+
+    /**
+     * Condition if the search should stop because the time budget ran out.
+     */
+    private boolean stopped;
+
+    /**
+     * Constructs an {@link IdaStarSearch}.
+     *
+     * @param solver        The solver holding the {@link Model}, the {@link SearchBoard} and the budgets.
+     * @param cacheSlots    Largest number of slots of the transposition cache, which grows on demand.
+     * @param checkpoint    File to save and resume the bound from, or {@code null}.
+     */
+    public IdaStarSearch(Solver solver, long cacheSlots, Path checkpoint) {
+        this.solver = solver;
+        this.generator = new PushGenerator(solver.getBoard());
+        this.cache = new OffHeapTranspositionTable(solver.getBoard().getCellCount(),
+                Math.min(OffHeapTranspositionTable.DEFAULT_INITIAL_CAPACITY, cacheSlots), cacheSlots, CACHE_PROBES, OffHeapTranspositionTable.ReplacementPolicy.DEEPEST);
+        this.checkpoint = checkpoint;
+        this.childrenByDepth = new ArrayList<>();
+    }
+
+    /**
+     * Returns the transposition cache of the search.
+     *
+     * @return The cache.
+     */
+    public OffHeapTranspositionTable getCache() {
+        return cache;
+    }
+
+    /**
+     * Searches for a solution with the fewest pushes, starting from the bound in the checkpoint file
+     * if it belongs to the same position.
+     *
+     * @return The {@link SolverResult} of the search.
+     */
+    public SolverResult solve() {
+
+        start = System.nanoTime();
+        long timeLimit = solver.getTimeLimit();
+        deadline = timeLimit == Long.MAX_VALUE ? Long.MAX_VALUE : start + timeLimit * 1_000_000;
+        nextReport = start + solver.getProgressInterval() * 1_000_000;
+
+        SearchNode root = generator.startNode(solver.getModel());
+        generated = 1;
+        if (root.getHeuristic() == SearchBoard.UNREACHABLE) {
+            return result(SolverResult.Status.UNSOLVABLE, null);
+        }
+
+        long contentHash = SaveGame.contentHash(solver.getModel());
+        bound = Math.max(root.getEstimate(), readCheckpoint(root.getHash(), contentHash));
+        while (true) {
+            cache.clear();
+            cache.improve(root);
+            nextBound = Integer.MAX_VALUE;
+
+            SearchNode solution = search(root);
+            if (solution != null) {
+                return result(SolverResult.Status.SOLVED, solution);
+            }
+            if (stopped) {
+                return result(SolverResult.Status.TIME_LIMIT, null);
+            }
+            if (nextBound == Integer.MAX_VALUE) {
+                return result(SolverResult.Status.UNSOLVABLE, null);
+            }
+            bound = nextBound;
+            writeCheckpoint(root.getHash(), contentHash);
+        }
+    }
+
+    /**
+     * Explores the nodes below a node whose estimate is within the bound.
+     *
+     * @param node  The node to explore from.
+     * @return      A node solving the level, or {@code null} if none was found.
+     */
+    private SearchNode search(SearchNode node) {
+
+        if (node.getHeuristic() == 0) {
+            return node;
+        }
+
+        int depth = node.getPushes();
+        while (childrenByDepth.size() <= depth) {
+            childrenByDepth.add(new ArrayList<>());
+        }
+        List<SearchNode> children = childrenByDepth.get(depth);
+        children.clear();
+        generator.expand(node, children);
+        expanded++;
+        generated += children.size();
+        if (expanded % CHECK_INTERVAL == 0) {
+            check();
+        }
+        children.sort(Comparator.comparingInt(SearchNode::getHeuristic));
+
+        for (int i = 0; i < children.size() && !stopped; i++) {
+            SearchNode child = children.get(i);
+            int estimate = child.getEstimate();
+            if (estimate > bound) {
+                nextBound = Math.min(nextBound, estimate);
+            } else if (cache.improve(child)) {
+                SearchNode solution = search(child);
+                if (solution != null) {
+                    return solution;
+                }
+            }
+        }
+        children.clear();
+
+        return null;
+    }
+
+    /**
+     * Stops the search if the time budget ran out and notifies the listener of the progress.
+     */
+    private void check() {
+        long now = System.nanoTime();
+        if (now - deadline > 0) {
+            stopped = true;
+            return;
+        }
+
+        SolverListener listener = solver.getListener();
+        if (listener != null && now - nextReport >= 0) {
+            listener.progress(statistics());
+            nextReport = now + solver.getProgressInterval() * 1_000_000;
+        }
+    }
+
+    /**
+     * Reads the bound saved in the checkpoint file.
+     *
+     * @param hash           {@link Zobrist} hash of the start position.
+     * @param contentHash    Hash of the map and initial position of the level.
+     * @return               The saved bound, or 0 if there is no checkpoint for this position of this level.
+     */
+    private int readCheckpoint(long hash, long contentHash) {
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return 0;
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(checkpoint))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readLong() != hash || in.readLong() != contentHash) {
+                return 0;
+            }
+            return in.readInt();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Saves the bound of the next iteration to the checkpoint file. The file is replaced in one step,
+     * so a search stopped while writing leaves the previous checkpoint. A checkpoint that can not be
+     * written is reported and skipped, and the search goes on.
+     *
+     * @param hash           {@link Zobrist} hash of the start position.
+     * @param contentHash    Hash of the map and initial position of the level.
+     */
+    private void writeCheckpoint(long hash, long contentHash) {
+        if (checkpoint == null) {
+            return;
+        }
+
+        try {
+            Path parent = checkpoint.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, checkpoint.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+                    out.writeInt(CHECKPOINT_MAGIC);
+                    out.writeLong(hash);
+                    out.writeLong(contentHash);
+                    out.writeInt(bound);
+                }
+                Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // A checkpoint only saves work for a later search, so this search goes on without it.
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates the {@link SolverResult} of the search.
+     *
+     * @param status    Why the search stopped.
+     * @param solution  The node solving the level, or {@code null}.
+     * @return          The {@link SolverResult}.
+     */
+    private SolverResult result(SolverResult.Status status, SearchNode solution) {
+        if (solution == null) {
+            return new SolverResult(status, null, -1, statistics());
+        }
+
+        String moves = generator.movesTo(solution, solver.getModel().getPlayerCell());
+        return new SolverResult(status, moves, solution.getPushes(), statistics());
+    }
+
+    /**
+     * Creates a snapshot of the progress of the search.
+     *
+     * @return The {@link SolverStatistics}.
+     */
+    private SolverStatistics statistics() {
+        return new SolverStatistics(expanded, generated, cache.size(), bound, System.nanoTime() - start);
+    }
+}
\ No newline at end of file
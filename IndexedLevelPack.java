@@ -0,0 +1,299 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code IndexedLevelPack} class gives random access to the levels of a pack in the XSB format
+ * (see {@link MapFileReader#openPack(String, File[])}).
+ *
+ * <p>
+ * The pack file is memory-mapped read only, and an index holds the byte range of every level in it.
+ * Loading level N reads its two offsets from the index and parses only the bytes of that level, so it
+ * takes the same time in a pack of four levels as in a pack of a hundred thousand.
+ * </p>
+ *
+ * <p>
+ * The index is built by one scan of the pack the first time it is opened, and stored next to it in a
+ * file with the suffix {@value #INDEX_SUFFIX}, which is memory-mapped as well. The stored index is
+ * rebuilt when the size or modification time of the pack no longer match it. If it can not be written,
+ * the index is kept in memory instead.
+ * </p>
+ *
+ * <p>
+ * Levels are read with absolute positions only, so several threads can load levels at the same time.
+ * </p>
+ */
+public class IndexedLevelPack {
+
+    /**
+     * Suffix added to the name of the pack file to name its index file.
+     */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * First bytes of the index file.
+     */
+    private static final int MAGIC = 0x534B4958;
+
+    /**
+     * Version of the index file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Number of bytes before the first entry: magic, version, level count, pack size and pack modification time.
+     */
+    private static final int HEADER_BYTES = 28;
+
+    /**
+     * Number of bytes of every entry: the offset of the first byte of a level and of the byte after it.
+     */
+    private static final int ENTRY_BYTES = 8;
+
+    /**
+     * The pack file.
+     */
+    private final Path file;
+
+    /**
+     * The icons given to every {@link Model}.
+     */
+    private final File[] icons;
+
+    /**
+     * The mapped pack file.
+     */
+    private final ByteBuffer pack;
+
+    /**
+     * The mapped index file, or a heap buffer if it could not be used.
+     */
+    private final ByteBuffer index;
+
+    /**
+     * Number of levels in the pack.
+     */
+    private final int levelCount;
+
+    /**
+     * Constructs an {@link IndexedLevelPack}.
+     *
+     * @param file      The pack file.
+     * @param icons     The icons given to every {@link Model}.
+     * @param pack      The mapped pack file.
+     * @param index     The header and entries of the index.
+     */
+    private IndexedLevelPack(Path file, File[] icons, ByteBuffer pack, ByteBuffer index) {
+        this.file = file;
+        this.icons = icons;
+        this.pack = pack;
+        this.index = index;
+        this.levelCount = index.getInt(8);
+    }
+
+    /**
+     * Memory-maps a pack file and its index, building the index first if it is missing or out of date.
+     *
+     * @param file      The pack file.
+     * @param icons     {@code File[]} which contains the .png image-files to be used in the game.
+     * @return          The level pack.
+     * @throws IOException if the pack can not be read or is larger than 2 GB.
+     */
+    public static IndexedLevelPack open(Path file, File[] icons) throws IOException {
+
+        ByteBuffer pack;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Level pack too large to map: " + file);
+            }
+            pack = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        Path indexFile = file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+        ByteBuffer index = mapIndex(indexFile, size, modified);
+        if (index == null) {
+            index = buildIndex(pack, size, modified);
+            try {
+                write(indexFile, index);
+            } catch (IOException e) {
+                // The index is kept in memory if the directory of the pack is read only.
+            }
+        }
+
+        return new IndexedLevelPack(file, icons, pack, index);
+    }
+
+    /**
+     * Returns the pack file.
+     *
+     * @return The path of the pack file.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the number of levels in the pack.
+     *
+     * @return The number of levels.
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Parses one level of the pack. Every call creates a new {@link Model} in its initial state.
+     *
+     * @param level     Index of the level in the pack, which becomes the level ID of the {@link Model}.
+     * @return          {@link Model} of the level.
+     * @throws IndexOutOfBoundsException if the pack has no such level.
+     * @throws IllegalArgumentException if the level holds a character that is not a tile.
+     */
+    public Model getLevel(int level) {
+        if (level < 0 || level >= levelCount) {
+            throw new IndexOutOfBoundsException("Level " + level + " of " + levelCount);
+        }
+
+        int start = index.getInt(HEADER_BYTES + level * ENTRY_BYTES);
+        int end = index.getInt(HEADER_BYTES + level * ENTRY_BYTES + 4);
+        byte[] bytes = new byte[end - start];
+        pack.get(start, bytes);
+
+        List<String> rows = new ArrayList<>();
+        for (String line : new String(bytes, StandardCharsets.ISO_8859_1).split("\r?\n")) {
+            MapFileReader.expandXsbRow(line, rows);
+        }
+
+        return MapFileReader.createModelFromXsb(rows, level, icons);
+    }
+
+    /**
+     * Memory-maps an index file if it matches the pack.
+     *
+     * @param indexFile     The index file.
+     * @param size          Size of the pack file in bytes.
+     * @param modified      Modification time of the pack file in milliseconds.
+     * @return              The mapped index, or {@code null} if it is missing, damaged or out of date.
+     */
+    private static ByteBuffer mapIndex(Path indexFile, long size, long modified) {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return null;
+            }
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = index.getInt(8);
+            boolean valid = index.getInt(0) == MAGIC && index.getInt(4) == VERSION && count >= 0
+                    && index.getLong(12) == size && index.getLong(20) == modified
+                    && channel.size() == HEADER_BYTES + (long) count * ENTRY_BYTES;
+            return valid ? index : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Scans a pack once and records the byte range of every level. A level is a run of lines that are
+     * rows of a level, see {@link MapFileReader#isXsbRow(CharSequence)}; any other line ends it.
+     *
+     * @param pack          The mapped pack file.
+     * @param size          Size of the pack file in bytes.
+     * @param modified      Modification time of the pack file in milliseconds.
+     * @return              A heap buffer holding the contents of an index file.
+     */
+    private static ByteBuffer buildIndex(ByteBuffer pack, long size, long modified) {
+
+        int[] ranges = new int[64];
+        int count = 0;
+        int start = -1;
+        int end = 0;
+        byte[] line = new byte[256];
+        int limit = pack.limit();
+        int position = 0;
+        while (position < limit) {
+            int eol = position;
+            while (eol < limit && pack.get(eol) != '\n') {
+                eol++;
+            }
+            int length = eol - position;
+            if (length > 0 && pack.get(eol - 1) == '\r') {
+                length--;
+            }
+            if (length > line.length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            pack.get(position, line, 0, length);
+            int next = Math.min(eol + 1, limit);
+
+            if (MapFileReader.isXsbRow(new String(line, 0, length, StandardCharsets.ISO_8859_1))) {
+                if (start < 0) {
+                    start = position;
+                }
+                end = next;
+            } else if (start >= 0) {
+                if (count * 2 == ranges.length) {
+                    ranges = Arrays.copyOf(ranges, ranges.length * 2);
+                }
+                ranges[count * 2] = start;
+                ranges[count * 2 + 1] = end;
+                count++;
+                start = -1;
+            }
+            position = next;
+        }
+        if (start >= 0) {
+            if (count * 2 == ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length + 2);
+            }
+            ranges[count * 2] = start;
+            ranges[count * 2 + 1] = end;
+            count++;
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(HEADER_BYTES + count * ENTRY_BYTES);
+        index.putInt(MAGIC).putInt(VERSION).putInt(count).putLong(size).putLong(modified);
+        for (int i = 0; i < count * 2; i++) {
+            index.putInt(ranges[i]);
+        }
+
+        return index.flip();
+    }
+
+    /**
+     * Writes an index file, replacing it in one step so other JVMs never map a half written file.
+     *
+     * @param indexFile     The index file.
+     * @param index         The contents of the index file.
+     * @throws IOException if the file can not be written.
+     */
+    private static void write(Path indexFile, ByteBuffer index) throws IOException {
+        Path parent = indexFile.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer contents = index.duplicate();
+                while (contents.hasRemaining()) {
+                    channel.write(contents);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
\ No newline at end of file
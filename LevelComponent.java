@@ -1,4 +1,3 @@
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -72,7 +71,7 @@ public class LevelComponent extends JComponent implements Serializable {
      * @param interactive
      *      Contains information needed to draw the interactive objects on the map
      * @param icons
-     *      The icons representing different elements in the game
+     *      The icons representing different elements in the game, decoded once through {@link IconSet}
      * @throws IOException
      *      If an I/O error occurs while reading the icons
      */
@@ -81,52 +80,50 @@ public class LevelComponent extends JComponent implements Serializable {
         this.map = map;
         this.interactive = interactive;
 
-        BufferedImage[] bufferedIcons = new BufferedImage[6];
+        IconSet iconSet = IconSet.load(icons);
 
-        for(int i = 0; i < icons.length; i++)
-            bufferedIcons[i] = ImageIO.read(icons[i]);
+        blank = iconSet.getImage(IconSet.BLANK);
+        redmarker = iconSet.getImage(IconSet.REDMARKER);
+        player = iconSet.getImage(IconSet.PLAYER);
+        box = iconSet.getImage(IconSet.BOX);
+        boxmarked = iconSet.getImage(IconSet.BOXMARKED);
+        wall = iconSet.getImage(IconSet.WALL);
 
-        blank = bufferedIcons[0];
-        redmarker = bufferedIcons[1];
-        player = bufferedIcons[2];
-        box = bufferedIcons[3];
-        boxmarked = bufferedIcons[4];
-        wall = bufferedIcons[5];
+        iconWidth = iconSet.getIconWidth();
+        iconHeight = iconSet.getIconHeight();
 
-        iconWidth = bufferedIcons[0].getWidth();
-        iconHeight = bufferedIcons[0].getHeight();
-
-        setPreferredSize(new Dimension(iconWidth * map.getGrid().length,
-                iconHeight * map.getGrid()[0].length));
+        setPreferredSize(new Dimension(iconWidth * map.getWidth(),
+                iconHeight * map.getHeight()));
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        for(int i = 0; i < map.getGrid().length; i++){
-            for(int j = 0; j < map.getGrid()[0].length; j++){
-                String type = map.getValue(i, j);
-                if (type == null) {
-                    g.drawImage(blank, i * iconWidth, j * iconHeight, this);
+        for(int i = 0; i < map.getWidth(); i++){
+            for(int j = 0; j < map.getHeight(); j++){
+                byte type = map.getTile(i, j);
+                if ((type & GameGrid.WALL) != 0) {
+                    g.drawImage(wall, i * iconWidth, j * iconHeight, this);
+                } else if ((type & GameGrid.GOAL) != 0) {
+                    g.drawImage(redmarker, i * iconWidth, j * iconHeight, this);
                 } else {
-                    switch (type) {
-                        case "redmarker" -> g.drawImage(redmarker, i * iconWidth, j * iconHeight, this);
-                        case "wall"  -> g.drawImage(wall, i * iconWidth, j * iconHeight, this);
-                    }
+                    g.drawImage(blank, i * iconWidth, j * iconHeight, this);
                 }
             }
         }
 
-        for(int i = 0; i < interactive.getGrid().length; i++){
-            for(int j = 0; j < interactive.getGrid()[0].length; j++){
-                String type = interactive.getValue(i, j);
-                if(type != null){
-                    switch (type) {
-                        case "box" -> g.drawImage(box, i * iconWidth, j * iconHeight, this);
-                        case "boxmarked" -> g.drawImage(boxmarked, i * iconWidth, j * iconHeight, this);
-                        case "player" -> g.drawImage(player, i * iconWidth, j * iconHeight, this);
+        for(int i = 0; i < interactive.getWidth(); i++){
+            for(int j = 0; j < interactive.getHeight(); j++){
+                byte type = interactive.getTile(i, j);
+                if ((type & GameGrid.BOX) != 0) {
+                    if ((type & GameGrid.GOAL) != 0) {
+                        g.drawImage(boxmarked, i * iconWidth, j * iconHeight, this);
+                    } else {
+                        g.drawImage(box, i * iconWidth, j * iconHeight, this);
                     }
+                } else if ((type & GameGrid.PLAYER) != 0) {
+                    g.drawImage(player, i * iconWidth, j * iconHeight, this);
                 }
             }
         }
@@ -0,0 +1,280 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The {@code LevelRepository} class loads the levels of an {@link IndexedLevelPack} on demand and keeps
+ * the most recently used ones parsed, so revisiting a level does not parse it again.
+ *
+ * <p>
+ * Every cached {@link Model} is charged an estimate of its heap size: its grids, indexes and
+ * {@link DistanceTable}. When the total exceeds the budget, the least recently used levels are evicted
+ * until it fits again; the level just loaded is always kept. An evicted level is parsed again from the
+ * pack the next time it is asked for, so the heap used by a session stays bounded however many levels
+ * the pack holds.
+ * </p>
+ *
+ * <p>
+ * A cached {@link Model} is handed out as is, in the state it was last played in; callers reset it when
+ * they start the level. Levels can be asked for from several threads, and {@link #prefetch(int, int)}
+ * parses levels in the background before they are played.
+ * </p>
+ */
+public class LevelRepository {
+
+    /**
+     * Default budget of the cache in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+
+    /**
+     * Estimated bytes of a {@link Model} besides its grids and tables.
+     */
+    private static final int MODEL_OVERHEAD_BYTES = 512;
+
+    /**
+     * Estimated bytes of a {@code Point}.
+     */
+    private static final int POINT_BYTES = 24;
+
+    /**
+     * The pack the levels are loaded from.
+     */
+    private final IndexedLevelPack pack;
+
+    /**
+     * Budget of the cache in bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * Cached levels by index, the least recently used first.
+     */
+    private final LinkedHashMap<Integer, Model> cache;
+
+    /**
+     * Estimated bytes of every cached level, by index.
+     */
+    private final Map<Integer, Long> sizes;
+
+    /**
+     * Estimated bytes of all cached levels.
+     */
+    private long cachedBytes;
+
+    /**
+     * Number of levels parsed from the pack and added to the cache.
+     */
+    private long loads;
+
+    /**
+     * Number of levels answered from the cache.
+     */
+    private long hits;
+
+    /**
+     * Constructs a {@link LevelRepository} over a pack with the default budget.
+     *
+     * @param pack      The pack the levels are loaded from.
+     */
+    public LevelRepository(IndexedLevelPack pack) {
+        this(pack, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs a {@link LevelRepository} over a pack.
+     *
+     * @param pack      The pack the levels are loaded from.
+     * @param maxBytes  Budget of the cache in bytes.
+     */
+    public LevelRepository(IndexedLevelPack pack, long maxBytes) {
+        this.pack = pack;
+        this.maxBytes = maxBytes;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+        this.sizes = new HashMap<>();
+    }
+
+    /**
+     * Returns the pack the levels are loaded from.
+     *
+     * @return The {@link IndexedLevelPack}.
+     */
+    public IndexedLevelPack getPack() {
+        return pack;
+    }
+
+    /**
+     * Returns the number of levels in the pack.
+     *
+     * @return The number of levels.
+     */
+    public int getLevelCount() {
+        return pack.getLevelCount();
+    }
+
+    /**
+     * Returns a level, from the cache if it is there and parsed from the pack otherwise. The level is
+     * parsed outside the lock of the repository, so several threads can parse levels at the same time.
+     *
+     * @param level     Index of the level in the pack.
+     * @return          {@link Model} of the level.
+     * @throws IndexOutOfBoundsException if the pack has no such level.
+     */
+    public Model getLevel(int level) {
+        synchronized (this) {
+            Model model = cache.get(level);
+            if (model != null) {
+                hits++;
+                return model;
+            }
+        }
+
+        return add(level, pack.getLevel(level), false);
+    }
+
+    /**
+     * Parses levels into the cache in the background, on the common fork-join pool, one task per level.
+     * Levels already cached are skipped, and no more levels are parsed once the cache is full, so
+     * prefetching never evicts a level.
+     *
+     * @param from      Index of the first level, inclusive.
+     * @param to        Index of the last level, exclusive.
+     * @return          Completes when every level was parsed or skipped.
+     */
+    public CompletableFuture<Void> prefetch(int from, int to) {
+        int end = Math.min(to, getLevelCount());
+        AtomicBoolean full = new AtomicBoolean();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[Math.max(0, end - from)];
+        for (int i = from; i < end; i++) {
+            int level = i;
+            tasks[i - from] = CompletableFuture.runAsync(() -> {
+                if (!full.get() && !isCached(level) && add(level, pack.getLevel(level), true) == null) {
+                    full.set(true);
+                }
+            });
+        }
+
+        return CompletableFuture.allOf(tasks);
+    }
+
+    /**
+     * Returns whether a level is currently cached.
+     *
+     * @param level     Index of the level in the pack.
+     * @return          true if the level is cached, false otherwise.
+     */
+    public synchronized boolean isCached(int level) {
+        return cache.containsKey(level);
+    }
+
+    /**
+     * Returns the number of cached levels.
+     *
+     * @return The number of levels.
+     */
+    public synchronized int getCachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the estimated bytes of all cached levels.
+     *
+     * @return The number of bytes.
+     */
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Returns the budget of the cache.
+     *
+     * @return The number of bytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Removes every level from the cache.
+     */
+    public synchronized void clear() {
+        cache.clear();
+        sizes.clear();
+        cachedBytes = 0;
+    }
+
+    /**
+     * Returns the size of the cache and how many levels were parsed from the pack or answered from it.
+     *
+     * @return The cache statistics.
+     */
+    @Override
+    public synchronized String toString() {
+        return "LevelRepository{cached=" + cache.size() + ", bytes=" + cachedBytes + "/" + maxBytes
+                + ", loads=" + loads + ", hits=" + hits + "}";
+    }
+
+    /**
+     * Adds a parsed level to the cache, unless another thread has added it first.
+     *
+     * @param level         Index of the level in the pack.
+     * @param model         {@link Model} of the level.
+     * @param prefetched    Condition if the level is only added if it fits without evicting another.
+     * @return              The cached {@link Model} of the level, or {@code null} if a prefetched level
+     *                      did not fit.
+     */
+    private synchronized Model add(int level, Model model, boolean prefetched) {
+        Model cached = cache.get(level);
+        if (cached != null) {
+            return cached;
+        }
+
+        long size = estimateBytes(model);
+        if (prefetched && cachedBytes + size > maxBytes) {
+            return null;
+        }
+        loads++;
+        cache.put(level, model);
+        sizes.put(level, size);
+        cachedBytes += size;
+        evict(level);
+        return model;
+    }
+
+    /**
+     * Evicts the least recently used levels until the cache fits its budget.
+     *
+     * @param keep  Index of the level just loaded, which is never evicted.
+     */
+    private void evict(int keep) {
+        Iterator<Map.Entry<Integer, Model>> eldest = cache.entrySet().iterator();
+        while (cachedBytes > maxBytes && eldest.hasNext()) {
+            int level = eldest.next().getKey();
+            if (level != keep) {
+                eldest.remove();
+                cachedBytes -= sizes.remove(level);
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap size of a level: three tile grids, the box index, the reachability scratch arrays,
+     * the distances of every marked tile and the positions of the boxes and marked tiles.
+     *
+     * @param model     {@link Model} of the level.
+     * @return          The estimated number of bytes.
+     */
+    private static long estimateBytes(Model model) {
+        long cells = (long) model.getMap().getWidth() * model.getMap().getHeight();
+        int goals = model.getDistanceTable().getGoalCount();
+        int boxes = model.getBoxCount();
+        long grids = 3 * cells;
+        long indexes = Integer.BYTES * cells + Integer.BYTES * cells + cells + cells / 4;
+        long distances = (long) Integer.BYTES * cells * (goals + 1);
+        long points = (long) POINT_BYTES * (goals + 2L * boxes + 2);
+        return MODEL_OVERHEAD_BYTES + grids + indexes + distances + points;
+    }
+}
\ No newline at end of file
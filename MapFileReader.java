@@ -1,10 +1,20 @@
 import java.awt.*;
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * The {@code MapFileReader} class provides functionality to read .txt files
@@ -12,6 +22,13 @@ import java.util.List;
  * It also supports the creation of a {@link Model} using the map data and image files.
  * The class offers methods to read a map file, create a model from files, and perform
  * various operations on the map data.
+ *
+ * <p>
+ * A level file is read in one pass through a buffered {@link FileChannel}. Every word is matched
+ * against the tile names byte by byte and stored straight into the tile array of the {@link GameGrid},
+ * which is in the same row by row order as the file, while the marked tiles, boxes and player are
+ * collected on the way. No {@code String} is created per tile.
+ * </p>
  */
 public class MapFileReader {
 
@@ -44,6 +61,16 @@ public class MapFileReader {
         this.interactiveFilePath = interactive;
     }
 
+    /**
+     * Size of the buffer the level files are read through.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Longest word in a level file.
+     */
+    private static final int MAX_WORD_LENGTH = 16;
+
     /**
      * Is used in {@code createModelFromFiles} to read a .txt file of a certain format
      * and places the content in a matrix of {@code String}s
@@ -58,53 +85,7 @@ public class MapFileReader {
      *                          is not present at that location.
      */
     public String[][] readMapFile(String txtFilePathName) throws IOException {
-
-        String line;
-        BufferedReader bf = new BufferedReader(new FileReader(txtFilePathName));
-        List<String> data = new ArrayList<String>();
-
-        //Add strings from file to data array and convert "null" to null
-        while((line = bf.readLine()) != null) {
-            if(line.equals("null"))
-                data.add(null);
-            else
-                data.add(line);
-        }
-        bf.close();
-
-        //Figure out width and height of map (length of double String array)
-        int i = 0;
-        int j = 1;
-        for(String s : data){
-            i++;
-            if(s != null){
-                if(s.equals("next")){
-                    j++;
-                    i = 0;
-                }
-            }
-        }
-        String[][] map = new String[i][j];
-
-        //Add elements in their correct positions in the map
-        i = 0;
-        j = 0;
-        for(String s : data){
-            if(s == null)
-                i++;
-            else if(s != null){
-                if(!s.equals("next")){
-                    map[i][j] = s;
-                    i++;
-                }
-                else{
-                    i = 0;
-                    j++;
-                }
-            }
-        }
-
-        return map;
+        return parse(txtFilePathName, GameGrid.EMPTY).toGrid().getGrid();
     }
 
     /**
@@ -120,59 +101,471 @@ public class MapFileReader {
      */
     public Model createModelFromFiles(String mapTxt, String interactiveTxt, int lvlNr, File[] icons) throws IOException {
 
-        String[][] map = readMapFile(mapTxt);
-        String[][] interactive = readMapFile(interactiveTxt);
-
-        //Count number of redmarkers and boxes to create the Point array for each
-        int nOfRedmarkers = 0;
-        int nOfBoxes = 0;
-        for(String[] column : map) {
-            for(String s : column){
-                if(s != null) {
-                    if (s.equals("redmarker"))
-                        nOfRedmarkers++;
+        ParsedFile map = parse(mapTxt, GameGrid.GOAL);
+        ParsedFile interactive = parse(interactiveTxt, GameGrid.BOX);
+
+        GameGrid ggMap = map.toGrid();
+        GameGrid ggInteractive = interactive.toGrid();
+        Point[] redmarkers = map.markedPoints();
+        Point[] boxes = interactive.markedPoints();
+        Point player = interactive.player >= 0 ? map.toPoint(interactive.player) : new Point();
+
+        return newModel(ggMap, ggInteractive, redmarkers, boxes, player, lvlNr, icons);
+    }
+
+    /**
+     * Opens a level pack in the standard XSB (also called SOK) format, where every level is drawn with
+     * one character per tile: {@code '#'} wall, {@code '@'} player, {@code '+'} player on a marked tile,
+     * {@code '$'} box, {@code '*'} box on a marked tile, {@code '.'} marked tile and {@code ' '},
+     * {@code '-'} or {@code '_'} floor. A number before a character repeats it and {@code '|'} ends a row.
+     * Levels are separated by blank lines, titles or comments.
+     *
+     * <p>
+     * The pack is read lazily: every call to {@link LevelPack#next()} reads and parses only the lines of
+     * the next level, so a pack of thousands of levels can be streamed one {@link Model} at a time.
+     * </p>
+     *
+     * @param packFilePath      File path name to the level pack.
+     * @param icons             {@code File[]} which contains the .png image-files to be used in the game.
+     * @return                  Iterator over the levels of the pack, which must be closed.
+     * @throws                  IOException if the file can not be opened.
+     */
+    public static LevelPack openPack(String packFilePath, File[] icons) throws IOException {
+        return new LevelPack(Files.newBufferedReader(Path.of(packFilePath), StandardCharsets.ISO_8859_1), icons);
+    }
+
+    /**
+     * Creates a {@link Model} from the rows of a level in the XSB format. Shorter rows are padded
+     * with blank tiles.
+     *
+     * @param rows      The rows of the level, without run lengths.
+     * @param lvlNr     Level ID for the map to be created.
+     * @param icons     {@code File[]} which contains the .png image-files to be used in the game.
+     * @return          {@link Model} of the level.
+     * @throws IllegalArgumentException if a row holds a character that is not a tile.
+     */
+    public static Model createModelFromXsb(List<String> rows, int lvlNr, File[] icons) {
+
+        int width = 0;
+        for (String row : rows) {
+            width = Math.max(width, row.length());
+        }
+        int height = rows.size();
+
+        GameGrid ggMap = new GameGrid(width, height);
+        GameGrid ggInteractive = new GameGrid(width, height);
+        List<Point> redmarkers = new ArrayList<>();
+        List<Point> boxes = new ArrayList<>();
+        Point player = new Point();
+        for (int y = 0; y < height; y++) {
+            String row = rows.get(y);
+            for (int x = 0; x < row.length(); x++) {
+                char c = row.charAt(x);
+                switch (c) {
+                    case '#' -> ggMap.setTile(x, y, GameGrid.WALL);
+                    case '.', '+', '*' -> {
+                        ggMap.setTile(x, y, GameGrid.GOAL);
+                        redmarkers.add(new Point(x, y));
+                    }
+                    case ' ', '-', '_', '@', '$' -> {
+                    }
+                    default -> throw new IllegalArgumentException("Unknown XSB tile: '" + c + "'");
+                }
+                switch (c) {
+                    case '@', '+' -> {
+                        ggInteractive.setTile(x, y, GameGrid.PLAYER);
+                        player = new Point(x, y);
+                    }
+                    case '$' -> {
+                        ggInteractive.setTile(x, y, GameGrid.BOX);
+                        boxes.add(new Point(x, y));
+                    }
+                    case '*' -> {
+                        ggInteractive.setTile(x, y, (byte) (GameGrid.BOX | GameGrid.GOAL));
+                        boxes.add(new Point(x, y));
+                    }
+                    default -> {
+                    }
                 }
             }
         }
 
-        for(String[] column : interactive) {
-            for(String s : column){
-                if(s != null) {
-                    if(s.equals("box") || s.equals("boxmarked"))
-                        nOfBoxes++;
+        return newModel(ggMap, ggInteractive, redmarkers.toArray(new Point[0]), boxes.toArray(new Point[0]),
+                player, lvlNr, icons);
+    }
+
+    /**
+     * Creates a {@link Model} together with its dead squares and {@link DistanceTable}.
+     *
+     * @param map           The static map grid.
+     * @param interactive   The grid of the movable objects.
+     * @param redmarkers    Positions of the marked tiles.
+     * @param boxes         Positions of the boxes.
+     * @param player        Position of the player.
+     * @param lvlNr         Level ID for the map to be created.
+     * @param icons         {@code File[]} which contains the .png image-files to be used in the game.
+     * @return              The {@link Model}.
+     */
+    private static Model newModel(GameGrid map, GameGrid interactive, Point[] redmarkers, Point[] boxes,
+                                  Point player, int lvlNr, File[] icons) {
+        Model model = new Model(map, interactive, redmarkers, boxes, player, lvlNr, icons);
+        model.setDeadSquares(DeadlockDetector.findDeadSquares(map));
+        model.setDistanceTable(new DistanceTable(map, redmarkers));
+        return model;
+    }
+
+    /**
+     * Reads a level file in one pass. Words are separated by line breaks, {@code "next"} starts a new row
+     * and every other word is the name of a tile, {@code "null"} being a blank tile. Blank lines are skipped.
+     *
+     * @param txtFilePathName   File path name to the .txt file.
+     * @param marked            Tile flag whose cells are collected, or {@link GameGrid#EMPTY} for none.
+     * @return                  The tiles, the collected cells and the player position of the file.
+     * @throws IOException if the file can not be read, or its rows do not all have the same length.
+     */
+    private static ParsedFile parse(String txtFilePathName, byte marked) throws IOException {
+
+        ParsedFile parsed = new ParsedFile();
+        byte[] word = new byte[MAX_WORD_LENGTH];
+        int length = 0;
+        int column = 0;
+
+        try (FileChannel channel = FileChannel.open(Path.of(txtFilePathName), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            boolean end = false;
+            while (!end) {
+                buffer.clear();
+                end = channel.read(buffer) < 0;
+                buffer.flip();
+                while (buffer.hasRemaining() || end) {
+                    byte b = end ? (byte) '\n' : buffer.get();
+                    if (b != '\n') {
+                        if (b != '\r' && length < MAX_WORD_LENGTH) {
+                            word[length++] = b;
+                        }
+                        continue;
+                    }
+
+                    if (length > 0) {
+                        if (isWord(word, length, "next")) {
+                            parsed.endRow(column, txtFilePathName);
+                            column = 0;
+                        } else {
+                            parsed.add(tile(word, length), marked);
+                            column++;
+                        }
+                    }
+                    length = 0;
+                    if (end) {
+                        break;
+                    }
                 }
             }
         }
 
-        //Create Point arrays
-        Point[] redmarkers = new Point[nOfRedmarkers];
-        Point[] boxes = new Point[nOfBoxes];
-        Point player = new Point();
+        if (column > 0 || parsed.height == 0) {
+            parsed.endRow(column, txtFilePathName);
+        }
+        return parsed;
+    }
 
-        //Find x-, and y-coordinates for each interesting Point, create a Point and place it in the Point array
-        int i = 0;
-        int j = 0;
-        for(int k = 0; k < map.length; k++){
-            for (int l = 0; l < map[0].length; l++){
-                if(map[k][l] != null){
-                    if(map[k][l].equals("redmarker")){
-                        redmarkers[i] = new Point(k,l);
-                        i++;
-                    }
+    /**
+     * Translates a word of a level file to tile flags, like {@link GameGrid#encode(String)}
+     * without creating a {@code String}.
+     *
+     * @param word      Bytes of the word.
+     * @param length    Number of bytes of the word.
+     * @return          The tile flags.
+     * @throws IllegalArgumentException if the word is not a known tile.
+     */
+    private static byte tile(byte[] word, int length) {
+        if (isWord(word, length, "null")) {
+            return GameGrid.EMPTY;
+        }
+        if (isWord(word, length, "wall")) {
+            return GameGrid.WALL;
+        }
+        if (isWord(word, length, "redmarker")) {
+            return GameGrid.GOAL;
+        }
+        if (isWord(word, length, "box")) {
+            return GameGrid.BOX;
+        }
+        if (isWord(word, length, "boxmarked")) {
+            return GameGrid.BOX | GameGrid.GOAL;
+        }
+        if (isWord(word, length, "player")) {
+            return GameGrid.PLAYER;
+        }
+
+        throw new IllegalArgumentException("Unknown tile: " + new String(word, 0, length));
+    }
+
+    /**
+     * Compares the bytes of a word with an ASCII name.
+     *
+     * @param word      Bytes of the word.
+     * @param length    Number of bytes of the word.
+     * @param name      The name to compare with.
+     * @return          true if the word is the name, false otherwise.
+     */
+    private static boolean isWord(byte[] word, int length, String name) {
+        if (length != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word[i] != name.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The tiles of a level file being read, together with the cells holding the collected tile flag
+     * and the cell of the player.
+     */
+    private static final class ParsedFile {
+
+        /**
+         * Tile flags read so far, row by row.
+         */
+        private byte[] tiles = new byte[256];
+
+        /**
+         * Number of tiles read so far.
+         */
+        private int size;
+
+        /**
+         * Number of tiles in a row, or 0 before the first row ends.
+         */
+        private int width;
+
+        /**
+         * Number of complete rows.
+         */
+        private int height;
+
+        /**
+         * Cell indices holding the collected tile flag.
+         */
+        private int[] marked = new int[16];
+
+        /**
+         * Number of collected cells.
+         */
+        private int markedCount;
+
+        /**
+         * Cell index of the player, or -1.
+         */
+        private int player = -1;
+
+        /**
+         * Adds the next tile of the current row.
+         *
+         * @param tile      The tile flags.
+         * @param flag      Tile flag whose cells are collected.
+         */
+        void add(byte tile, byte flag) {
+            if (size == tiles.length) {
+                tiles = Arrays.copyOf(tiles, size * 2);
+            }
+            if (flag != GameGrid.EMPTY && (tile & flag) != 0) {
+                if (markedCount == marked.length) {
+                    marked = Arrays.copyOf(marked, markedCount * 2);
                 }
-                if(interactive[k][l] != null){
-                    if(interactive[k][l].equals("box") || interactive[k][l].equals("boxmarked")){
-                        boxes[j] = new Point(k,l);
-                        j++;
-                    }
-                    if(interactive[k][l].equals("player"))
-                        player = new Point(k,l);
+                marked[markedCount++] = size;
+            }
+            if ((tile & GameGrid.PLAYER) != 0) {
+                player = size;
+            }
+            tiles[size++] = tile;
+        }
+
+        /**
+         * Ends the current row.
+         *
+         * @param length            Number of tiles in the row.
+         * @param txtFilePathName   File path name, for the error message.
+         * @throws IOException if the row is not as long as the first one.
+         */
+        void endRow(int length, String txtFilePathName) throws IOException {
+            if (height == 0) {
+                width = length;
+            } else if (length != width) {
+                throw new IOException(txtFilePathName + ": row " + (height + 1) + " has " + length
+                        + " tiles, expected " + width);
+            }
+            height++;
+        }
+
+        /**
+         * Creates the {@link GameGrid} of the tiles read.
+         *
+         * @return The {@link GameGrid}.
+         */
+        GameGrid toGrid() {
+            return new GameGrid(width, height, size == tiles.length ? tiles : Arrays.copyOf(tiles, size));
+        }
+
+        /**
+         * Returns the positions of the collected cells.
+         *
+         * @return The positions, row by row.
+         */
+        Point[] markedPoints() {
+            Point[] points = new Point[markedCount];
+            for (int i = 0; i < markedCount; i++) {
+                points[i] = toPoint(marked[i]);
+            }
+            return points;
+        }
+
+        /**
+         * Returns the position of a cell index.
+         *
+         * @param cell  The cell index.
+         * @return      The position.
+         */
+        Point toPoint(int cell) {
+            return new Point(cell % width, cell / width);
+        }
+    }
+
+    /**
+     * Returns whether a line of a pack in the XSB format is a row of a level: only tiles, run lengths
+     * and row ends, with at least one wall.
+     *
+     * @param line  The line.
+     * @return      true if the line is a row of a level, false otherwise.
+     */
+    static boolean isXsbRow(CharSequence line) {
+        boolean wall = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '#') {
+                wall = true;
+            } else if ("@+$*. -_|".indexOf(c) < 0 && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+
+        return wall;
+    }
+
+    /**
+     * Adds the rows of a line of a pack in the XSB format to a level, expanding run lengths and
+     * splitting rows at {@code '|'}.
+     *
+     * @param line  The line.
+     * @param rows  The rows of the level.
+     */
+    static void expandXsbRow(CharSequence line, List<String> rows) {
+        StringBuilder row = new StringBuilder(line.length());
+        int repeat = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                repeat = repeat * 10 + c - '0';
+            } else if (c == '|') {
+                rows.add(row.toString());
+                row.setLength(0);
+                repeat = 0;
+            } else {
+                row.append(String.valueOf(c).repeat(Math.max(1, repeat)));
+                repeat = 0;
+            }
+        }
+        rows.add(row.toString());
+    }
+
+    /**
+     * The {@code LevelPack} class iterates lazily over the levels of a pack in the XSB format,
+     * see {@link #openPack(String, File[])}. The level ID of every {@link Model} is its index in the pack.
+     */
+    public static final class LevelPack implements Iterator<Model>, Closeable {
+
+        /**
+         * Reader of the pack file.
+         */
+        private final BufferedReader reader;
+
+        /**
+         * The icons given to every {@link Model}.
+         */
+        private final File[] icons;
+
+        /**
+         * Rows of the next level, or {@code null} if it has not been read yet.
+         */
+        private List<String> nextRows;
+
+        /**
+         * Number of levels returned so far.
+         */
+        private int count;
+
+        /**
+         * Constructs a {@link LevelPack} over a reader of a pack file.
+         *
+         * @param reader    Reader of the pack file.
+         * @param icons     The icons given to every {@link Model}.
+         */
+        LevelPack(BufferedReader reader, File[] icons) {
+            this.reader = reader;
+            this.icons = icons;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextRows == null) {
+                try {
+                    nextRows = readLevel();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
             }
+
+            return !nextRows.isEmpty();
         }
 
-        GameGrid ggMap = new GameGrid(map);
-        GameGrid ggInteractive = new GameGrid(interactive);
-        return new Model(ggMap,ggInteractive, redmarkers, boxes, player, lvlNr, icons);
+        @Override
+        public Model next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            List<String> rows = nextRows;
+            nextRows = null;
+            return createModelFromXsb(rows, count++, icons);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        /**
+         * Reads the rows of the next level, skipping titles, comments and blank lines before it.
+         *
+         * @return The rows of the level, or an empty list at the end of the pack.
+         * @throws IOException if the file can not be read.
+         */
+        private List<String> readLevel() throws IOException {
+            List<String> rows = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isXsbRow(line)) {
+                    expandXsbRow(line, rows);
+                } else if (!rows.isEmpty()) {
+                    break;
+                }
+            }
+
+            return rows;
+        }
     }
 }
\ No newline at end of file
@@ -1,6 +1,13 @@
 import java.awt.Point;
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serial;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * The {@code Model} class represents the game model in the application.
@@ -19,12 +26,50 @@ import java.io.Serializable;
  * </ul>
  *
  * <p>
+ * Boxes and red markers are indexed by their flat cell index in the map grid
+ * (see {@link GameGrid#index(int, int)}), so checking if a cell holds a box or a marker
+ * and finding which box stands on a cell take constant time.
+ * The {@code Point[]} getters export a copy of the current positions.
+ * </p>
+ *
+ * <p>
+ * The model carries a 64-bit {@link Zobrist} hash of the box positions and the normalized player
+ * position, the smallest cell index the player can reach without pushing. The box part is updated
+ * by every box move; the player part only changes when a box is pushed and is recomputed the next
+ * time the hash is read.
+ * </p>
+ *
+ * <p>
  * This class implements the {@link java.io.Serializable} interface, allowing objects of this class
  * to be serialized and deserialized.
  * </p>
  */
 public class Model implements Serializable {
 
+    @Serial
+    private static final long serialVersionUID = -3407172648616571916L;
+
+    /**
+     * Fields written by Java serialization. These are kept identical to the original
+     * layout of the class so that previously saved games can still be loaded.
+     */
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("map", GameGrid.class),
+            new ObjectStreamField("interactive", GameGrid.class),
+            new ObjectStreamField("redmarkers", Point[].class),
+            new ObjectStreamField("boxes", Point[].class),
+            new ObjectStreamField("playerPos", Point.class),
+            new ObjectStreamField("levelNo", int.class),
+            new ObjectStreamField("win", boolean.class),
+            new ObjectStreamField("stuck", boolean.class),
+            new ObjectStreamField("files", File[].class),
+            new ObjectStreamField("initialInteractive", GameGrid.class),
+            new ObjectStreamField("initialBoxes", Point[].class),
+            new ObjectStreamField("initialPlayerPos", Point.class),
+            new ObjectStreamField("displayToConsole", boolean.class)
+    };
+
     /**
      * {@code String} matrix representing the map grid.
      */
@@ -41,14 +86,60 @@ public class Model implements Serializable {
     private Point[] redmarkers;
 
     /**
-     * xy-coordinates each representing a box on the map grid.
+     * Set of cell indices holding a marked tile.
+     */
+    private BitSet goals;
+
+    /**
+     * Set of cell indices from which a box can never reach a marked tile,
+     * found by {@link DeadlockDetector#findDeadSquares(GameGrid)}.
+     */
+    private BitSet deadSquares;
+
+    /**
+     * Pushes from every cell to every marked tile, or {@code null} if not built yet.
+     */
+    private DistanceTable distanceTable;
+
+    /**
+     * Cell index of every box on the map grid.
+     */
+    private int[] boxes;
+
+    /**
+     * Index into {@code boxes} of the box on every cell, or -1 if the cell holds no box.
+     */
+    private int[] boxAt;
+
+    /**
+     * Number of boxes currently standing on a marked tile, kept up to date by every box move.
+     */
+    private int boxesOnGoals;
+
+    /**
+     * Cell index of the players position.
+     */
+    private int playerCell;
+
+    /**
+     * {@link Zobrist} hash of the box positions.
+     */
+    private long boxHash;
+
+    /**
+     * Smallest cell index the player can reach without pushing, or -1 if it has to be recomputed.
+     */
+    private int normalizedPlayer = -1;
+
+    /**
+     * Scratch array for finding the normalized player position, created on first use.
      */
-    private Point[] boxes;
+    private int[] reachQueue;
 
     /**
-     * xy-coordinate representing the players starting position.
+     * Scratch array marking the cells reached when finding the normalized player position.
      */
-    private Point playerPos;
+    private boolean[] reachMarks;
 
     /**
      * Level number for the current {@link Model} being created.
@@ -73,17 +164,17 @@ public class Model implements Serializable {
     /**
      * Copy of the initial layout of the interactive map grid.
      */
-    private final GameGrid initialInteractive;
+    private GameGrid initialInteractive;
 
     /**
      * Copy of the xy-coordinates for the initial positions of all boxes.
      */
-    private final Point[] initialBoxes;
+    private Point[] initialBoxes;
 
     /**
      * Copy of the players initial position.
      */
-    private final Point initialPlayerPos;
+    private Point initialPlayerPos;
 
     /**
      * Condition if console view is on or off.
@@ -112,9 +203,9 @@ public class Model implements Serializable {
 
         this.map = map;
         this.interactive = interactive;
-        this.redmarkers = redmarkers;
-        this.boxes = boxes;
-        this.playerPos = playerPos;
+        setRedmarkers(redmarkers);
+        setBoxes(boxes);
+        setPlayerPos(playerPos);
         this.levelNo = levelNo;
         this.win = false;
         this.stuck = false;
@@ -153,6 +244,63 @@ public class Model implements Serializable {
         return initialPlayerPos;
     }
 
+    /**
+     * Returns whether the player and all boxes are in their initial positions.
+     *
+     * @return true if nothing has been moved since the level started, false otherwise.
+     */
+    public boolean isInitialState() {
+        if (playerCell != map.index(initialPlayerPos.x, initialPlayerPos.y)) {
+            return false;
+        }
+
+        for (Point p : initialBoxes) {
+            if (!isBox(map.index(p.x, p.y))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Moves the player and all boxes back to their initial positions.
+     * The interactive grid is updated in place.
+     */
+    public void restoreInitialState() {
+        for (int i = 0; i < map.getWidth() * map.getHeight(); i++) {
+            interactive.setTile(i, initialInteractive.getTile(i));
+        }
+
+        setBoxes(initialBoxes);
+        setPlayerPos(initialPlayerPos);
+    }
+
+    /**
+     * Places the player and all boxes at once, for example when a saved game is restored.
+     * The interactive grid is rebuilt from the new positions.
+     *
+     * @param boxCells  The cell index of every box.
+     * @param player    The cell index of the player.
+     */
+    public void setState(int[] boxCells, int player) {
+        Point[] newBoxes = new Point[boxCells.length];
+        for (int i = 0; i < boxCells.length; i++) {
+            newBoxes[i] = toPoint(boxCells[i]);
+        }
+        setBoxes(newBoxes);
+
+        for (int i = 0; i < map.getWidth() * map.getHeight(); i++) {
+            interactive.setTile(i, GameGrid.EMPTY);
+        }
+        for (int box : boxes) {
+            interactive.setTile(box, goals.get(box) ? (byte) (GameGrid.BOX | GameGrid.GOAL) : GameGrid.BOX);
+        }
+        interactive.setTile(player, GameGrid.PLAYER);
+        playerCell = player;
+        normalizedPlayer = -1;
+    }
+
     /**
      * Returns the game map grid.
      * @return The game map grid.
@@ -201,15 +349,29 @@ public class Model implements Serializable {
      */
     public void setRedmarkers(Point[] newRedmarkers) {
         redmarkers = newRedmarkers;
+        goals = new BitSet(map.getWidth() * map.getHeight());
+        for (Point p : newRedmarkers) {
+            goals.set(map.index(p.x, p.y));
+        }
+        distanceTable = null;
+
+        if (boxes != null) {
+            boxesOnGoals = countBoxesOnGoals();
+        }
     }
 
     /**
-     * Returns the array of box positions.
+     * Returns a copy of the current box positions.
      *
      * @return The array of box positions.
      */
     public Point[] getBoxes(){
-        return boxes;
+        Point[] points = new Point[boxes.length];
+        for (int i = 0; i < boxes.length; i++) {
+            points[i] = toPoint(boxes[i]);
+        }
+
+        return points;
     }
 
     /**
@@ -218,16 +380,205 @@ public class Model implements Serializable {
      * @param newBoxes The new array of box positions.
      */
     public void setBoxes(Point[] newBoxes) {
-        boxes = newBoxes;
+        boxes = new int[newBoxes.length];
+        boxAt = new int[map.getWidth() * map.getHeight()];
+        Arrays.fill(boxAt, -1);
+        for (int i = 0; i < newBoxes.length; i++) {
+            boxes[i] = map.index(newBoxes[i].x, newBoxes[i].y);
+            boxAt[boxes[i]] = i;
+        }
+
+        boxHash = Zobrist.boxHash(boxes);
+        normalizedPlayer = -1;
+
+        boxesOnGoals = countBoxesOnGoals();
+    }
+
+    /**
+     * Returns the number of boxes on the map.
+     *
+     * @return The number of boxes.
+     */
+    public int getBoxCount() {
+        return boxes.length;
+    }
+
+    /**
+     * Returns the cell index of a box.
+     *
+     * @param box The index of the box, between 0 and {@code getBoxCount() - 1}.
+     * @return The cell index of the box.
+     */
+    public int getBoxCell(int box) {
+        return boxes[box];
+    }
+
+    /**
+     * Returns the index of the box standing on a cell.
+     *
+     * @param cell The cell index.
+     * @return The index of the box, or -1 if the cell holds no box.
+     */
+    public int getBoxIndex(int cell) {
+        return boxAt[cell];
+    }
+
+    /**
+     * Returns whether a cell holds a box.
+     *
+     * @param cell The cell index.
+     * @return true if a box stands on the cell, false otherwise.
+     */
+    public boolean isBox(int cell) {
+        return boxAt[cell] >= 0;
+    }
+
+    /**
+     * Returns whether a cell is a marked tile.
+     *
+     * @param cell The cell index.
+     * @return true if the cell is a red marker, false otherwise.
+     */
+    public boolean isGoal(int cell) {
+        return goals.get(cell);
+    }
+
+    /**
+     * Returns whether a box on a cell can never reach a marked tile.
+     *
+     * @param cell The cell index.
+     * @return true if the cell is a dead square, false otherwise.
+     */
+    public boolean isDeadSquare(int cell) {
+        return getDeadSquares().get(cell);
+    }
+
+    /**
+     * Returns the dead squares of the map, computing them the first time if they were not set.
+     *
+     * @return Set of cell indices of the dead squares.
+     */
+    public BitSet getDeadSquares() {
+        if (deadSquares == null) {
+            deadSquares = DeadlockDetector.findDeadSquares(map);
+        }
+
+        return deadSquares;
+    }
+
+    /**
+     * Sets the dead squares of the map, as found by {@link DeadlockDetector#findDeadSquares(GameGrid)}.
+     *
+     * @param newDeadSquares Set of cell indices of the dead squares.
+     */
+    public void setDeadSquares(BitSet newDeadSquares) {
+        deadSquares = newDeadSquares;
+    }
+
+    /**
+     * Returns the pushes from every cell to every marked tile, building the table the first time
+     * if it was not set.
+     *
+     * @return The {@link DistanceTable} of the level.
+     */
+    public DistanceTable getDistanceTable() {
+        if (distanceTable == null) {
+            distanceTable = new DistanceTable(map, redmarkers);
+        }
+
+        return distanceTable;
+    }
+
+    /**
+     * Sets the pushes from every cell to every marked tile, built from the map grid and the red markers.
+     *
+     * @param newDistanceTable The {@link DistanceTable} of the level.
+     */
+    public void setDistanceTable(DistanceTable newDistanceTable) {
+        distanceTable = newDistanceTable;
+    }
+
+    /**
+     * Returns the number of boxes currently standing on a marked tile.
+     *
+     * @return The number of marked boxes.
+     */
+    public int getBoxesOnGoals() {
+        return boxesOnGoals;
+    }
+
+    /**
+     * Returns whether every box stands on a marked tile.
+     *
+     * @return true if the level is solved, false otherwise.
+     */
+    public boolean isSolved() {
+        return boxesOnGoals == boxes.length;
+    }
+
+    /**
+     * Counts the boxes standing on a marked tile, used to initialise the running counter
+     * when boxes or markers are replaced.
+     *
+     * @return The number of marked boxes.
+     */
+    private int countBoxesOnGoals() {
+        int counter = 0;
+        for (int box : boxes) {
+            if (goals.get(box)) {
+                counter++;
+            }
+        }
+
+        return counter;
+    }
+
+    /**
+     * Moves the box on one cell to another cell and updates the interactive grid.
+     * The target cell is expected to be free.
+     *
+     * @param from The cell index of the box.
+     * @param to   The cell index to move the box to.
+     */
+    public void moveBox(int from, int to) {
+        int box = boxAt[from];
+        boxAt[from] = -1;
+        boxAt[to] = box;
+        boxes[box] = to;
+        boxHash ^= Zobrist.boxKey(from) ^ Zobrist.boxKey(to);
+        normalizedPlayer = -1;
+        if (goals.get(from)) {
+            boxesOnGoals--;
+        }
+        if (goals.get(to)) {
+            boxesOnGoals++;
+        }
+        interactive.setTile(from, GameGrid.EMPTY);
+        interactive.setTile(to, goals.get(to) ? (byte) (GameGrid.BOX | GameGrid.GOAL) : GameGrid.BOX);
+    }
+
+    /**
+     * Moves the player to another cell and updates the interactive grid.
+     * The target cell is expected to be free and reachable without pushing,
+     * use {@link #setPlayerPos(Point)} to place the player anywhere else.
+     *
+     * @param to The cell index to move the player to.
+     */
+    public void movePlayer(int to) {
+        if (interactive.getTile(playerCell) == GameGrid.PLAYER) {
+            interactive.setTile(playerCell, GameGrid.EMPTY);
+        }
+        interactive.setTile(to, GameGrid.PLAYER);
+        playerCell = to;
     }
 
     /**
      * Returns the player position.
      *
-     * @return The player position.
+     * @return A copy of the player position.
      */
     public Point getPlayerPos() {
-        return playerPos;
+        return toPoint(playerCell);
     }
 
     /**
@@ -236,7 +587,99 @@ public class Model implements Serializable {
      * @param newPlayerPos The new player position.
      */
     public void setPlayerPos(Point newPlayerPos) {
-        playerPos = newPlayerPos;
+        playerCell = map.index(newPlayerPos.x, newPlayerPos.y);
+        normalizedPlayer = -1;
+    }
+
+    /**
+     * Returns the {@link Zobrist} hash of the box positions and the normalized player position.
+     * Two models of the same level in the same position have the same hash.
+     *
+     * @return The 64-bit hash.
+     */
+    public long getHash() {
+        return boxHash ^ Zobrist.playerKey(getNormalizedPlayerCell());
+    }
+
+    /**
+     * Returns the {@link Zobrist} hash of the box positions.
+     *
+     * @return The 64-bit hash of the boxes.
+     */
+    public long getBoxHash() {
+        return boxHash;
+    }
+
+    /**
+     * Returns the smallest cell index the player can reach without pushing a box.
+     *
+     * @return The normalized player cell.
+     */
+    public int getNormalizedPlayerCell() {
+        if (normalizedPlayer < 0) {
+            normalizedPlayer = findNormalizedPlayerCell();
+        }
+
+        return normalizedPlayer;
+    }
+
+    /**
+     * Searches the area the player can walk in for its smallest cell index.
+     *
+     * @return The normalized player cell.
+     */
+    private int findNormalizedPlayerCell() {
+        int cells = map.getWidth() * map.getHeight();
+        if (reachQueue == null) {
+            reachQueue = new int[cells];
+            reachMarks = new boolean[cells];
+        }
+        Arrays.fill(reachMarks, false);
+
+        int head = 0;
+        int tail = 0;
+        int min = playerCell;
+        reachQueue[tail++] = playerCell;
+        reachMarks[playerCell] = true;
+        while (head < tail) {
+            int cell = reachQueue[head++];
+            min = Math.min(min, cell);
+            int x = cell % map.getWidth();
+            int y = cell / map.getWidth();
+            for (Direction d : Direction.ALL) {
+                int nx = x + d.dx;
+                int ny = y + d.dy;
+                if (nx < 0 || ny < 0 || nx >= map.getWidth() || ny >= map.getHeight()) {
+                    continue;
+                }
+                int next = map.index(nx, ny);
+                if (!reachMarks[next] && (map.getTile(next) & GameGrid.WALL) == 0 && boxAt[next] < 0) {
+                    reachMarks[next] = true;
+                    reachQueue[tail++] = next;
+                }
+            }
+        }
+
+        return min;
+    }
+
+    /**
+     * Returns the cell index of the player.
+     *
+     * @return The cell index of the player.
+     */
+    public int getPlayerCell() {
+        return playerCell;
+    }
+
+    /**
+     * Converts a cell index to xy-coordinates.
+     *
+     * @param cell The cell index.
+     * @return The xy-coordinates of the cell.
+     */
+    public Point toPoint(int cell) {
+        return new Point(cell % map.getWidth(), cell / map.getWidth());
     }
 
     /**
@@ -324,4 +767,41 @@ public class Model implements Serializable {
     public void setDisplayToConsole(boolean yesNo) {
         displayToConsole = yesNo;
     }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("map", map);
+        fields.put("interactive", interactive);
+        fields.put("redmarkers", redmarkers);
+        fields.put("boxes", getBoxes());
+        fields.put("playerPos", getPlayerPos());
+        fields.put("levelNo", levelNo);
+        fields.put("win", win);
+        fields.put("stuck", stuck);
+        fields.put("files", files);
+        fields.put("initialInteractive", initialInteractive);
+        fields.put("initialBoxes", initialBoxes);
+        fields.put("initialPlayerPos", initialPlayerPos);
+        fields.put("displayToConsole", displayToConsole);
+        out.writeFields();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        map = (GameGrid) fields.get("map", null);
+        interactive = (GameGrid) fields.get("interactive", null);
+        setRedmarkers((Point[]) fields.get("redmarkers", null));
+        setBoxes((Point[]) fields.get("boxes", null));
+        setPlayerPos((Point) fields.get("playerPos", null));
+        levelNo = fields.get("levelNo", 0);
+        win = fields.get("win", false);
+        stuck = fields.get("stuck", false);
+        files = (File[]) fields.get("files", null);
+        initialInteractive = (GameGrid) fields.get("initialInteractive", null);
+        initialBoxes = (Point[]) fields.get("initialBoxes", null);
+        initialPlayerPos = (Point) fields.get("initialPlayerPos", null);
+        displayToConsole = fields.get("displayToConsole", false);
+    }
 }
\ No newline at end of file
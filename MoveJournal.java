@@ -0,0 +1,175 @@
+import java.util.Arrays;
+
+/**
+ * The {@code MoveJournal} class records the moves made in a level as small deltas so they can be
+ * undone and redone in constant time, without copying the map grid.
+ * Every entry holds the cell index the player moved from and to, and the cell index the pushed box
+ * moved from and to, or -1 if no box was pushed. The entries are packed in a single {@code int[]}.
+ *
+ * <p>
+ * The journal has a cursor: entries before it have been played, entries after it have been undone
+ * and can be redone until a new move is recorded.
+ * </p>
+ */
+public class MoveJournal {
+
+    /**
+     * Number of {@code int}s used by one entry.
+     */
+    private static final int STRIDE = 4;
+
+    /**
+     * Packed entries: player from, player to, box from, box to.
+     */
+    private int[] entries;
+
+    /**
+     * Number of recorded entries, including undone ones.
+     */
+    private int size;
+
+    /**
+     * Number of entries currently played.
+     */
+    private int cursor;
+
+    /**
+     * Constructs an empty {@link MoveJournal}.
+     */
+    public MoveJournal() {
+        this.entries = new int[64 * STRIDE];
+    }
+
+    /**
+     * Records a move after the cursor, dropping any entries that had been undone.
+     *
+     * @param playerFrom    Cell index the player moved from.
+     * @param playerTo      Cell index the player moved to.
+     * @param boxFrom       Cell index the pushed box moved from, or -1 if no box was pushed.
+     * @param boxTo         Cell index the pushed box moved to, or -1 if no box was pushed.
+     */
+    public void record(int playerFrom, int playerTo, int boxFrom, int boxTo) {
+        if ((cursor + 1) * STRIDE > entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+
+        int i = cursor * STRIDE;
+        entries[i] = playerFrom;
+        entries[i + 1] = playerTo;
+        entries[i + 2] = boxFrom;
+        entries[i + 3] = boxTo;
+        cursor++;
+        size = cursor;
+    }
+
+    /**
+     * Returns whether there is a played entry that can be undone.
+     *
+     * @return true if a move can be undone, false otherwise.
+     */
+    public boolean canUndo() {
+        return cursor > 0;
+    }
+
+    /**
+     * Returns whether there is an undone entry that can be redone.
+     *
+     * @return true if a move can be redone, false otherwise.
+     */
+    public boolean canRedo() {
+        return cursor < size;
+    }
+
+    /**
+     * Moves the cursor one entry back. The entry is then read with the getters below.
+     *
+     * @throws IllegalStateException if there is nothing to undo.
+     */
+    public void undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("Nothing to undo");
+        }
+        cursor--;
+    }
+
+    /**
+     * Moves the cursor one entry forward. The entry is then read with the getters below.
+     *
+     * @throws IllegalStateException if there is nothing to redo.
+     */
+    public void redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("Nothing to redo");
+        }
+        cursor++;
+    }
+
+    /**
+     * Removes every entry and releases the room grown for them.
+     */
+    public void clear() {
+        if (entries.length > 64 * STRIDE) {
+            entries = new int[64 * STRIDE];
+        }
+        size = 0;
+        cursor = 0;
+    }
+
+    /**
+     * Returns the number of entries currently played.
+     *
+     * @return The number of played moves.
+     */
+    public int getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Returns the number of recorded entries, including undone ones.
+     *
+     * @return The number of recorded moves.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the cell index the player moved from in an entry.
+     *
+     * @param entry     The index of the entry.
+     * @return          The cell index.
+     */
+    public int getPlayerFrom(int entry) {
+        return entries[entry * STRIDE];
+    }
+
+    /**
+     * Returns the cell index the player moved to in an entry.
+     *
+     * @param entry     The index of the entry.
+     * @return          The cell index.
+     */
+    public int getPlayerTo(int entry) {
+        return entries[entry * STRIDE + 1];
+    }
+
+    /**
+     * Returns the cell index the pushed box moved from in an entry.
+     *
+     * @param entry     The index of the entry.
+     * @return          The cell index, or -1 if no box was pushed.
+     */
+    public int getBoxFrom(int entry) {
+        return entries[entry * STRIDE + 2];
+    }
+
+    /**
+     * Returns the cell index the pushed box moved to in an entry.
+     *
+     * @param entry     The index of the entry.
+     * @return          The cell index, or -1 if no box was pushed.
+     */
+    public int getBoxTo(int entry) {
+        return entries[entry * STRIDE + 3];
+    }
+}
\ No newline at end of file
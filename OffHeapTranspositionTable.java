@@ -0,0 +1,572 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The {@code OffHeapTranspositionTable} class is a {@link TranspositionTable} stored outside the Java heap,
+ * in direct {@link ByteBuffer}s, so that large searches do not fill the heap with state objects.
+ *
+ * <p>
+ * Every state is packed into a fixed size key: one bit per cell telling if it holds a box, followed by
+ * the normalized player cell. The home slot of a state is picked from its {@link Zobrist} hash. Entries
+ * are kept in an open addressing table with linear probing. A key is looked for in at most
+ * {@code maxProbes} slots from its home slot; when all of them are taken, the {@link ReplacementPolicy}
+ * decides whether an entry is overwritten. Overwriting only loses information, so a state may be
+ * explored twice but is never skipped wrongly.
+ * </p>
+ *
+ * <p>
+ * A table may start small and grow on demand: once three quarters of its slots are taken, or all the slots
+ * a new state may be stored in are taken, it doubles and moves every entry to its new home slot, until it
+ * reaches its largest capacity. Only then does the {@link ReplacementPolicy} apply. The low bits of the hash
+ * are kept in the value word of every entry for this purpose, so the table holds at most 2<sup>31</sup> slots.
+ * </p>
+ *
+ * <p>
+ * The table reports its occupancy and the number of slots probed per operation. It is not thread safe.
+ * </p>
+ */
+public class OffHeapTranspositionTable implements TranspositionTable {
+
+    /**
+     * What to do when every slot a new state may be stored in is taken.
+     */
+    public enum ReplacementPolicy {
+
+        /**
+         * Keep the stored states and drop the new one.
+         */
+        NEVER,
+
+        /**
+         * Overwrite the home slot of the new state.
+         */
+        ALWAYS,
+
+        /**
+         * Overwrite the probed state reached with the most pushes, if it has more than the new one.
+         * States close to the start prune the largest parts of the search and are kept.
+         */
+        DEEPEST
+    }
+
+    /**
+     * Default largest number of slots probed for one key.
+     */
+    public static final int DEFAULT_MAX_PROBES = 32;
+
+    /**
+     * Default number of slots a growing table starts with.
+     */
+    public static final long DEFAULT_INITIAL_CAPACITY = 1 << 12;
+
+    /**
+     * Largest number of bytes in one buffer.
+     */
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    /**
+     * Flag set in the value word of a taken slot.
+     */
+    private static final long OCCUPIED = 1L << 63;
+
+    /**
+     * Largest number of slots, limited by the bits of the hash kept in the value word.
+     */
+    private static final long CAPACITY_LIMIT = 1L << 31;
+
+    /**
+     * Mask of the bits of the hash kept in the value word, above the pushes.
+     */
+    private static final long HASH_MASK = CAPACITY_LIMIT - 1;
+
+    /**
+     * Mask of the pushes in the value word.
+     */
+    private static final long PUSHES_MASK = 0xFFFF_FFFFL;
+
+    /**
+     * Number of {@code long}s in the key of a state.
+     */
+    private final int keyWords;
+
+    /**
+     * Number of bytes of one slot: the key followed by the value word.
+     */
+    private final int slotBytes;
+
+    /**
+     * Number of slots, a power of two.
+     */
+    private long capacity;
+
+    /**
+     * Largest number of slots the table may grow to, a power of two.
+     */
+    private final long maxCapacity;
+
+    /**
+     * Number of slots in one buffer, a power of two.
+     */
+    private int slotsPerSegment;
+
+    /**
+     * The buffers holding the slots.
+     */
+    private ByteBuffer[] segments;
+
+    /**
+     * Largest number of slots probed for one key.
+     */
+    private final int maxProbes;
+
+    /**
+     * What to do when every slot a new state may be stored in is taken.
+     */
+    private final ReplacementPolicy policy;
+
+    /**
+     * Packed key of the state currently being looked up.
+     */
+    private final long[] key;
+
+    /**
+     * Number of states stored.
+     */
+    private long size;
+
+    /**
+     * Number of lookups and insertions.
+     */
+    private long operations;
+
+    /**
+     * Number of slots probed by all operations.
+     */
+    private long probes;
+
+    /**
+     * Largest number of slots probed by one operation.
+     */
+    private int longestProbe;
+
+    /**
+     * Number of stored states overwritten by other states.
+     */
+    private long replaced;
+
+    /**
+     * Number of new states dropped because every slot was taken.
+     */
+    private long dropped;
+
+    /**
+     * Number of times the table doubled.
+     */
+    private int growths;
+
+    /**
+     * Constructs an empty {@link OffHeapTranspositionTable} of a fixed size.
+     *
+     * @param cellCount     Number of cells in the grid of the level.
+     * @param capacity      Minimum number of slots, rounded up to a power of two.
+     * @param maxProbes     Largest number of slots probed for one key.
+     * @param policy        What to do when every slot a new state may be stored in is taken.
+     */
+    public OffHeapTranspositionTable(int cellCount, long capacity, int maxProbes, ReplacementPolicy policy) {
+        this(cellCount, capacity, capacity, maxProbes, policy);
+    }
+
+    /**
+     * Constructs an empty {@link OffHeapTranspositionTable} that grows on demand.
+     *
+     * @param cellCount         Number of cells in the grid of the level.
+     * @param initialCapacity   Minimum number of slots to start with, rounded up to a power of two.
+     * @param maxCapacity       Minimum number of slots to grow to, rounded up to a power of two
+     *                          and limited to 2<sup>31</sup>.
+     * @param maxProbes         Largest number of slots probed for one key.
+     * @param policy            What to do when every slot a new state may be stored in is taken.
+     */
+    public OffHeapTranspositionTable(int cellCount, long initialCapacity, long maxCapacity, int maxProbes,
+                                     ReplacementPolicy policy) {
+
+        this.keyWords = (cellCount + 63) / 64 + 1;
+        this.slotBytes = (keyWords + 1) * Long.BYTES;
+        this.maxCapacity = Long.highestOneBit(Math.min(Math.max(2, maxCapacity), CAPACITY_LIMIT) * 2 - 1);
+        this.maxProbes = Math.max(1, maxProbes);
+        this.policy = policy;
+        this.key = new long[keyWords];
+
+        allocate(Math.min(Long.highestOneBit(Math.max(2, initialCapacity) * 2 - 1), this.maxCapacity));
+    }
+
+    @Override
+    public boolean improve(SearchNode node) {
+
+        if (capacity < maxCapacity && size >= capacity - capacity / 4) {
+            grow();
+        }
+
+        pack(node);
+        long home = node.getHash() & (capacity - 1);
+        long victim = -1;
+        long victimPushes = node.getPushes();
+        int limit = probeLimit();
+        int probe = 0;
+        while (probe < limit) {
+            long slot = (home + probe) & (capacity - 1);
+            probe++;
+            long value = value(slot);
+            if ((value & OCCUPIED) == 0) {
+                write(slot, valueWord(node.getHash(), node.getPushes()));
+                size++;
+                count(probe);
+                return true;
+            }
+            if (matches(slot)) {
+                count(probe);
+                if ((int) value <= node.getPushes()) {
+                    return false;
+                }
+                setValue(slot, value & ~PUSHES_MASK | node.getPushes());
+                return true;
+            }
+            if (policy == ReplacementPolicy.DEEPEST && (int) value > victimPushes) {
+                victim = slot;
+                victimPushes = (int) value;
+            }
+        }
+        count(probe);
+
+        if (capacity < maxCapacity) {
+            grow();
+            return improve(node);
+        }
+
+        if (policy == ReplacementPolicy.ALWAYS) {
+            victim = home;
+        }
+        if (victim < 0) {
+            dropped++;
+            return true;
+        }
+
+        write(victim, valueWord(node.getHash(), node.getPushes()));
+        replaced++;
+        return true;
+    }
+
+    @Override
+    public int lookup(SearchNode node) {
+
+        pack(node);
+        long home = node.getHash() & (capacity - 1);
+        int limit = probeLimit();
+        int probe = 0;
+        while (probe < limit) {
+            long slot = (home + probe) & (capacity - 1);
+            probe++;
+            long value = value(slot);
+            if ((value & OCCUPIED) == 0) {
+                break;
+            }
+            if (matches(slot)) {
+                count(probe);
+                return (int) value;
+            }
+        }
+        count(probe);
+
+        return -1;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (long slot = 0; slot < capacity; slot++) {
+            segment(slot).putLong(offset(slot) + keyWords * Long.BYTES, 0);
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the number of slots of the table.
+     *
+     * @return The capacity.
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the largest number of slots the table may grow to.
+     *
+     * @return The largest capacity.
+     */
+    public long getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * Returns the number of times the table doubled.
+     *
+     * @return The number of growths.
+     */
+    public int getGrowths() {
+        return growths;
+    }
+
+    /**
+     * Returns the share of slots taken.
+     *
+     * @return The occupancy, between 0 and 1.
+     */
+    public double getOccupancy() {
+        return (double) size / capacity;
+    }
+
+    /**
+     * Returns the mean number of slots probed by a lookup or an insertion.
+     *
+     * @return The mean probe length.
+     */
+    public double getAverageProbeLength() {
+        return operations == 0 ? 0 : (double) probes / operations;
+    }
+
+    /**
+     * Returns the largest number of slots probed by a lookup or an insertion.
+     *
+     * @return The longest probe length.
+     */
+    public int getLongestProbeLength() {
+        return longestProbe;
+    }
+
+    /**
+     * Returns the number of stored states overwritten by other states.
+     *
+     * @return The number of replaced states.
+     */
+    public long getReplaced() {
+        return replaced;
+    }
+
+    /**
+     * Returns the number of new states dropped because every slot they could use was taken.
+     *
+     * @return The number of dropped states.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "size=%d capacity=%d/%d occupancy=%.3f probes(avg)=%.2f probes(max)=%d replaced=%d dropped=%d",
+                size, capacity, maxCapacity, getOccupancy(), getAverageProbeLength(), longestProbe, replaced,
+                dropped);
+    }
+
+    /**
+     * Allocates empty buffers for a number of slots.
+     *
+     * @param slots     The number of slots, a power of two.
+     */
+    private void allocate(long slots) {
+        int maxSlots = Integer.highestOneBit(MAX_SEGMENT_BYTES / slotBytes);
+        capacity = slots;
+        slotsPerSegment = (int) Math.min(slots, maxSlots);
+        segments = new ByteBuffer[(int) (slots / slotsPerSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = ByteBuffer.allocateDirect(slotsPerSegment * slotBytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Doubles the number of slots and moves every entry to its home slot in the new buffers. If an entry
+     * finds no free slot within the probe limit, the number of slots is doubled again; once the largest
+     * capacity is reached such an entry is dropped.
+     */
+    private void grow() {
+
+        ByteBuffer[] old = segments;
+        long oldCapacity = capacity;
+        int oldSlotsPerSegment = slotsPerSegment;
+        long slots = capacity * 2;
+        while (!moveEntries(old, oldCapacity, oldSlotsPerSegment, slots)) {
+            slots *= 2;
+        }
+        growths++;
+    }
+
+    /**
+     * Allocates buffers for a number of slots and moves the entries of the old buffers to them.
+     *
+     * @param old                   The old buffers.
+     * @param oldCapacity           Number of slots of the old buffers.
+     * @param oldSlotsPerSegment    Number of slots in one old buffer.
+     * @param slots                 Number of slots to move the entries to.
+     * @return                      true if the entries were moved, false if one found no free slot
+     *                              and the number of slots can still grow.
+     */
+    private boolean moveEntries(ByteBuffer[] old, long oldCapacity, int oldSlotsPerSegment, long slots) {
+
+        allocate(slots);
+        int limit = probeLimit();
+        long lost = 0;
+        for (long from = 0; from < oldCapacity; from++) {
+            ByteBuffer segment = old[(int) (from / oldSlotsPerSegment)];
+            int offset = (int) (from & (oldSlotsPerSegment - 1)) * slotBytes;
+            long value = segment.getLong(offset + keyWords * Long.BYTES);
+            if ((value & OCCUPIED) == 0) {
+                continue;
+            }
+
+            for (int i = 0; i < keyWords; i++) {
+                key[i] = segment.getLong(offset + i * Long.BYTES);
+            }
+            long home = (value >>> 32) & (capacity - 1);
+            int probe = 0;
+            while (probe < limit && (value((home + probe) & (capacity - 1)) & OCCUPIED) != 0) {
+                probe++;
+            }
+            if (probe < limit) {
+                write((home + probe) & (capacity - 1), value);
+            } else if (capacity < maxCapacity) {
+                return false;
+            } else {
+                lost++;
+            }
+        }
+
+        size -= lost;
+        dropped += lost;
+        return true;
+    }
+
+    /**
+     * Returns the number of slots probed for one key at the current capacity.
+     *
+     * @return The probe limit.
+     */
+    private int probeLimit() {
+        return (int) Math.min(maxProbes, capacity);
+    }
+
+    /**
+     * Returns the value word of a taken slot.
+     *
+     * @param hash      The {@link Zobrist} hash of the state, whose low bits give its home slot.
+     * @param pushes    The number of pushes.
+     * @return          The value word.
+     */
+    private static long valueWord(long hash, int pushes) {
+        return OCCUPIED | (hash & HASH_MASK) << 32 | pushes;
+    }
+
+    /**
+     * Packs the state of a node into {@code key}.
+     *
+     * @param node      The node.
+     */
+    private void pack(SearchNode node) {
+        for (int i = 0; i < keyWords - 1; i++) {
+            key[i] = 0;
+        }
+        for (int box : node.getBoxes()) {
+            key[box >>> 6] |= 1L << box;
+        }
+        key[keyWords - 1] = node.getPlayer();
+    }
+
+    /**
+     * Records the number of slots probed by an operation.
+     *
+     * @param probe     The number of slots probed.
+     */
+    private void count(int probe) {
+        operations++;
+        probes += probe;
+        if (probe > longestProbe) {
+            longestProbe = probe;
+        }
+    }
+
+    /**
+     * Returns the buffer holding a slot.
+     *
+     * @param slot      The slot.
+     * @return          The buffer.
+     */
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot / slotsPerSegment)];
+    }
+
+    /**
+     * Returns the byte offset of a slot in its buffer.
+     *
+     * @param slot      The slot.
+     * @return          The byte offset.
+     */
+    private int offset(long slot) {
+        return (int) (slot & (slotsPerSegment - 1)) * slotBytes;
+    }
+
+    /**
+     * Returns the value word of a slot.
+     *
+     * @param slot      The slot.
+     * @return          The value word, with {@link #OCCUPIED} set if the slot is taken.
+     */
+    private long value(long slot) {
+        return segment(slot).getLong(offset(slot) + keyWords * Long.BYTES);
+    }
+
+    /**
+     * Sets the value word of a slot.
+     *
+     * @param slot      The slot.
+     * @param value     The value word, see {@link #valueWord(long, int)}.
+     */
+    private void setValue(long slot, long value) {
+        segment(slot).putLong(offset(slot) + keyWords * Long.BYTES, value);
+    }
+
+    /**
+     * Checks if a slot holds {@code key}.
+     *
+     * @param slot      The slot.
+     * @return          true if the keys are equal, false otherwise.
+     */
+    private boolean matches(long slot) {
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+        for (int i = 0; i < keyWords; i++) {
+            if (segment.getLong(offset + i * Long.BYTES) != key[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes {@code key} and a value word to a slot.
+     *
+     * @param slot      The slot.
+     * @param value     The value word, see {@link #valueWord(long, int)}.
+     */
+    private void write(long slot, long value) {
+        ByteBuffer segment = segment(slot);
+        int offset = offset(slot);
+        for (int i = 0; i < keyWords; i++) {
+            segment.putLong(offset + i * Long.BYTES, key[i]);
+        }
+        setValue(slot, value);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,267 @@
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code ParallelSearch} class is the {@link Solver.Mode#PARALLEL} mode of the {@link Solver}.
+ * It spreads the search over all cores of the machine with a {@link ForkJoinPool}, where idle threads
+ * steal work from busy ones.
+ *
+ * <p>
+ * The search runs in iterations. Every iteration explores, depth first, all nodes whose estimate of the
+ * total pushes is within a bound, each expansion being a fork-join task. The threads share a
+ * {@link ConcurrentTranspositionTable} to skip states already reached with as few pushes, the lowest
+ * estimate above the bound, which becomes the bound of the next iteration, and the first solution found,
+ * which stops all threads. Since the bound grows one iteration at a time from an admissible estimate,
+ * the solution found has the fewest pushes, so its length is the same on every run even if its moves may differ.
+ * </p>
+ */
+public class ParallelSearch {
+
+    /**
+     * The solver holding the {@link Model}, the {@link SearchBoard} and the budgets.
+     */
+    private final Solver solver;
+
+    /**
+     * The threads running the search.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * States reached in the current iteration with the fewest pushes.
+     */
+    private final ConcurrentTranspositionTable table;
+
+    /**
+     * {@link PushGenerator} of every thread.
+     */
+    private final ThreadLocal<PushGenerator> generators;
+
+    /**
+     * The first node found that solves the level, shared by all threads.
+     */
+    private final AtomicReference<SearchNode> solution;
+
+    /**
+     * Lowest estimate above the bound of the current iteration, shared by all threads.
+     */
+    private final AtomicInteger nextBound;
+
+    /**
+     * Number of nodes expanded.
+     */
+    private final LongAdder expanded;
+
+    /**
+     * Number of nodes generated.
+     */
+    private final LongAdder generated;
+
+    /**
+     * Condition if the threads should stop because a budget ran out.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Bound of the current iteration.
+     */
+    private volatile int bound;
+
+    /**
+     * Constructs a {@link ParallelSearch}.
+     *
+     * @param solver        The solver holding the {@link Model}, the {@link SearchBoard} and the budgets.
+     * @param parallelism   Number of threads.
+     */
+    public ParallelSearch(Solver solver, int parallelism) {
+        this.solver = solver;
+        this.pool = new ForkJoinPool(parallelism);
+        this.table = new ConcurrentTranspositionTable(solver.getBoard().getCellCount(), parallelism);
+        this.generators = ThreadLocal.withInitial(() -> new PushGenerator(solver.getBoard()));
+        this.solution = new AtomicReference<>();
+        this.nextBound = new AtomicInteger();
+        this.expanded = new LongAdder();
+        this.generated = new LongAdder();
+    }
+
+    /**
+     * Searches for a solution with the fewest pushes.
+     *
+     * @return The {@link SolverResult} of the search.
+     */
+    public SolverResult solve() {
+
+        long start = System.nanoTime();
+        long timeLimit = solver.getTimeLimit();
+        long deadline = timeLimit == Long.MAX_VALUE ? Long.MAX_VALUE : start + timeLimit * 1_000_000;
+
+        PushGenerator generator = new PushGenerator(solver.getBoard());
+        SearchNode root = generator.startNode(solver.getModel());
+        generated.increment();
+
+        try {
+            if (root.getHeuristic() == SearchBoard.UNREACHABLE) {
+                return result(SolverResult.Status.UNSOLVABLE, generator, start);
+            }
+
+            bound = root.getEstimate();
+            while (true) {
+                table.clear();
+                nextBound.set(Integer.MAX_VALUE);
+
+                ForkJoinTask<Void> iteration = pool.submit(new Expansion(root));
+                SolverResult.Status status = await(iteration, deadline, start);
+                if (status != null) {
+                    return result(status, generator, start);
+                }
+                if (solution.get() != null) {
+                    return result(SolverResult.Status.SOLVED, generator, start);
+                }
+                if (nextBound.get() == Integer.MAX_VALUE) {
+                    return result(SolverResult.Status.UNSOLVABLE, generator, start);
+                }
+                bound = nextBound.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for an iteration to finish, reporting progress and enforcing the budgets meanwhile.
+     *
+     * @param iteration     The running iteration.
+     * @param deadline      Value of {@link System#nanoTime()} when the time budget runs out.
+     * @param start         Value of {@link System#nanoTime()} when the search started.
+     * @return              The status if a budget ran out, otherwise {@code null}.
+     */
+    private SolverResult.Status await(ForkJoinTask<Void> iteration, long deadline, long start) {
+
+        SolverListener listener = solver.getListener();
+        long interval = Math.min(solver.getProgressInterval(), 100);
+        long nextReport = System.nanoTime() + solver.getProgressInterval() * 1_000_000;
+        while (true) {
+            try {
+                iteration.get(interval, TimeUnit.MILLISECONDS);
+                return null;
+            } catch (TimeoutException e) {
+                long now = System.nanoTime();
+                SolverResult.Status status = null;
+                if (now - deadline > 0) {
+                    status = SolverResult.Status.TIME_LIMIT;
+                } else if (table.size() >= solver.getMaxStates()) {
+                    status = SolverResult.Status.STATE_LIMIT;
+                }
+
+                if (status != null) {
+                    stopped = true;
+                    iteration.quietlyJoin();
+                    return solution.get() != null ? null : status;
+                }
+
+                if (listener != null && now - nextReport >= 0) {
+                    listener.progress(statistics(start));
+                    nextReport = now + solver.getProgressInterval() * 1_000_000;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+                return SolverResult.Status.TIME_LIMIT;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Creates the {@link SolverResult} of the search.
+     *
+     * @param status        Why the search stopped.
+     * @param generator     Generator used to build the moves of the solution.
+     * @param start         Value of {@link System#nanoTime()} when the search started.
+     * @return              The {@link SolverResult}.
+     */
+    private SolverResult result(SolverResult.Status status, PushGenerator generator, long start) {
+        SearchNode node = solution.get();
+        if (status != SolverResult.Status.SOLVED || node == null) {
+            return new SolverResult(status, null, -1, statistics(start));
+        }
+
+        String moves = generator.movesTo(node, solver.getModel().getPlayerCell());
+        return new SolverResult(status, moves, node.getPushes(), statistics(start));
+    }
+
+    /**
+     * Creates a snapshot of the progress of the search.
+     *
+     * @param start     Value of {@link System#nanoTime()} when the search started.
+     * @return          The {@link SolverStatistics}.
+     */
+    private SolverStatistics statistics(long start) {
+        return new SolverStatistics(expanded.sum(), generated.sum(), table.size(), bound, System.nanoTime() - start);
+    }
+
+    /**
+     * Fork-join task expanding one node and forking a task for every child within the bound.
+     */
+    private class Expansion extends RecursiveAction {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The node to expand.
+         */
+        private final SearchNode node;
+
+        /**
+         * Constructs an {@link Expansion} of a node.
+         *
+         * @param node  The node to expand.
+         */
+        Expansion(SearchNode node) {
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (stopped || solution.get() != null) {
+                return;
+            }
+            if (node.getHeuristic() == 0) {
+                solution.compareAndSet(null, node);
+                return;
+            }
+
+            List<SearchNode> children = new ArrayList<>();
+            generators.get().expand(node, children);
+            expanded.increment();
+            generated.add(children.size());
+            children.sort(Comparator.comparingInt(SearchNode::getHeuristic));
+
+            List<Expansion> tasks = new ArrayList<>(children.size());
+            for (SearchNode child : children) {
+                int estimate = child.getEstimate();
+                if (estimate > bound) {
+                    nextBound.accumulateAndGet(estimate, Math::min);
+                } else if (table.improve(child)) {
+                    tasks.add(new Expansion(child));
+                }
+            }
+
+            invokeAll(tasks);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,315 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.function.IntPredicate;
+
+/**
+ * The {@code PatternDatabase} class holds deadlock patterns: every arrangement of walls and boxes in a
+ * 3x3 window, together with the boxes in the window that can never be pushed again whatever lies outside
+ * it. A push leading to a pattern where such a box is not on a marked tile can not be undone, so the level
+ * can no longer be completed.
+ *
+ * <p>
+ * The patterns do not depend on the level and are computed once into a small file of
+ * {@value #PATTERN_COUNT} two-byte entries. The file is memory-mapped read only with
+ * {@link FileChannel#map}, so looking up a pattern needs no parsing at startup, and every JVM on the
+ * host shares the same copy in the page cache. The default database is stored in
+ * {@code levels/deadlock-patterns.db} and is created the first time it is missing.
+ * </p>
+ *
+ * <p>
+ * The patterns find the small deadlocks, like four boxes in a square or two boxes against a wall, in
+ * constant time. Frozen chains reaching outside the window are left to {@link DeadlockDetector}.
+ * </p>
+ */
+public class PatternDatabase {
+
+    /**
+     * Default location of the database file.
+     */
+    public static final Path DEFAULT_FILE = Path.of("levels", "deadlock-patterns.db");
+
+    /**
+     * Number of cells in the window of a pattern.
+     */
+    public static final int WINDOW_CELLS = 9;
+
+    /**
+     * Number of patterns, every window cell being floor, wall or box.
+     */
+    public static final int PATTERN_COUNT = 19683;
+
+    /**
+     * First bytes of the database file.
+     */
+    private static final int MAGIC = 0x534B4450;
+
+    /**
+     * Version of the file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Number of bytes before the first pattern.
+     */
+    private static final int HEADER_BYTES = 12;
+
+    /**
+     * Pattern state of a floor cell.
+     */
+    private static final int FLOOR = 0;
+
+    /**
+     * Pattern state of a wall cell.
+     */
+    private static final int WALL = 1;
+
+    /**
+     * Pattern state of a cell holding a box.
+     */
+    private static final int BOX = 2;
+
+    /**
+     * Bit of the centre cell in the mask of a pattern.
+     */
+    private static final int CENTRE = 1 << 4;
+
+    /**
+     * The database opened by {@link #getDefault()}, or {@code null}.
+     */
+    private static PatternDatabase defaultDatabase;
+
+    /**
+     * The mapped file, or a heap buffer if the file could not be used.
+     */
+    private final ByteBuffer patterns;
+
+    /**
+     * Constructs a {@link PatternDatabase} over the contents of a database file.
+     *
+     * @param patterns  The header and the patterns.
+     */
+    private PatternDatabase(ByteBuffer patterns) {
+        this.patterns = patterns;
+    }
+
+    /**
+     * Returns the database stored in {@link #DEFAULT_FILE}, opened once per JVM. If the file can not
+     * be created or mapped, the patterns are computed in memory instead.
+     *
+     * @return The default database.
+     */
+    public static synchronized PatternDatabase getDefault() {
+        if (defaultDatabase == null) {
+            try {
+                defaultDatabase = open(DEFAULT_FILE);
+            } catch (IOException e) {
+                defaultDatabase = new PatternDatabase(compute());
+            }
+        }
+
+        return defaultDatabase;
+    }
+
+    /**
+     * Memory-maps a database file, creating it first if it is missing or was written by another version.
+     *
+     * @param file  The database file.
+     * @return      The database.
+     * @throws IOException if the file can not be created or mapped.
+     */
+    public static PatternDatabase open(Path file) throws IOException {
+        if (!isValid(file)) {
+            write(file);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new PatternDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns whether a push has led to a deadlock pattern around the pushed box.
+     * The box must not be on the border of the grid.
+     *
+     * @param box       Cell index of the pushed box.
+     * @param width     Number of columns in the grid.
+     * @param isWall    Tells if a cell is a wall.
+     * @param isBox     Tells if a cell holds a box.
+     * @param isGoal    Tells if a cell is a marked tile.
+     * @return          true if the pushed box can never move again and a frozen box of the pattern
+     *                  is not on a marked tile, false otherwise.
+     */
+    public boolean isDeadlock(int box, int width, IntPredicate isWall, IntPredicate isBox, IntPredicate isGoal) {
+
+        int code = 0;
+        for (int k = 0; k < WINDOW_CELLS; k++) {
+            int cell = cell(box, width, k);
+            code = code * 3 + (isWall.test(cell) ? WALL : isBox.test(cell) ? BOX : FLOOR);
+        }
+
+        int frozen = frozenBoxes(code);
+        if ((frozen & CENTRE) == 0) {
+            return false;
+        }
+        for (int k = 0; k < WINDOW_CELLS; k++) {
+            if ((frozen & 1 << k) != 0 && !isGoal.test(cell(box, width, k))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the boxes of a pattern that can never be pushed again.
+     *
+     * @param code  The pattern, the states of the window cells row by row as a number in base 3.
+     * @return      Mask of the window cells holding such a box, bit 0 being the top left cell.
+     */
+    public int frozenBoxes(int code) {
+        return patterns.getShort(HEADER_BYTES + code * Short.BYTES) & 0x1FF;
+    }
+
+    /**
+     * Returns the cell index of a window cell.
+     *
+     * @param centre    Cell index of the centre of the window.
+     * @param width     Number of columns in the grid.
+     * @param k         Index of the window cell, row by row.
+     * @return          The cell index.
+     */
+    private static int cell(int centre, int width, int k) {
+        return centre + (k / 3 - 1) * width + k % 3 - 1;
+    }
+
+    /**
+     * Checks the header of a database file.
+     *
+     * @param file  The database file.
+     * @return      true if the file exists and matches this version, false otherwise.
+     */
+    private static boolean isValid(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            return channel.size() == HEADER_BYTES + PATTERN_COUNT * Short.BYTES && header.remaining() == HEADER_BYTES
+                    && header.getInt() == MAGIC && header.getInt() == VERSION && header.getInt() == PATTERN_COUNT;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Computes the patterns and writes them to a database file, replacing it in one step so other
+     * JVMs never map a half written file.
+     *
+     * @param file  The database file.
+     * @throws IOException if the file can not be written.
+     */
+    private static void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer contents = compute();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-r--r--"));
+        } catch (UnsupportedOperationException e) {
+            // Other JVMs on the host can still read the file if the file system has no POSIX permissions.
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Computes the header and all patterns.
+     *
+     * @return A heap buffer holding the contents of a database file.
+     */
+    private static ByteBuffer compute() {
+        ByteBuffer contents = ByteBuffer.allocate(HEADER_BYTES + PATTERN_COUNT * Short.BYTES);
+        contents.putInt(MAGIC).putInt(VERSION).putInt(PATTERN_COUNT);
+
+        int[] states = new int[WINDOW_CELLS];
+        for (int code = 0; code < PATTERN_COUNT; code++) {
+            int rest = code;
+            for (int k = WINDOW_CELLS - 1; k >= 0; k--) {
+                states[k] = rest % 3;
+                rest /= 3;
+            }
+            contents.putShort((short) findFrozen(states));
+        }
+
+        return contents.flip();
+    }
+
+    /**
+     * Finds the boxes of a window that can never be pushed. Cells outside the window are taken to be
+     * floor. Starting with every box frozen, a box is thawed as long as it has a direction where neither
+     * neighbour is a wall or a frozen box, until no box changes.
+     *
+     * @param states    State of every window cell, row by row.
+     * @return          Mask of the frozen boxes.
+     */
+    private static int findFrozen(int[] states) {
+        int frozen = 0;
+        for (int k = 0; k < WINDOW_CELLS; k++) {
+            if (states[k] == BOX) {
+                frozen |= 1 << k;
+            }
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int k = 0; k < WINDOW_CELLS; k++) {
+                if ((frozen & 1 << k) == 0) {
+                    continue;
+                }
+                int row = k / 3;
+                int column = k % 3;
+                boolean horizontal = blocks(states, frozen, row, column - 1) || blocks(states, frozen, row, column + 1);
+                boolean vertical = blocks(states, frozen, row - 1, column) || blocks(states, frozen, row + 1, column);
+                if (!horizontal || !vertical) {
+                    frozen &= ~(1 << k);
+                    changed = true;
+                }
+            }
+        }
+
+        return frozen;
+    }
+
+    /**
+     * Returns whether a window cell stops a box next to it from being pushed along that axis.
+     *
+     * @param states    State of every window cell, row by row.
+     * @param frozen    Mask of the boxes currently taken to be frozen.
+     * @param row       Row of the cell, outside the window if not between 0 and 2.
+     * @param column    Column of the cell, outside the window if not between 0 and 2.
+     * @return          true if the cell is a wall or a frozen box, false otherwise.
+     */
+    private static boolean blocks(int[] states, int frozen, int row, int column) {
+        if (row < 0 || row > 2 || column < 0 || column > 2) {
+            return false;
+        }
+
+        int k = row * 3 + column;
+        return states[k] == WALL || (frozen & 1 << k) != 0;
+    }
+}
\ No newline at end of file
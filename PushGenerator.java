@@ -0,0 +1,473 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * The {@code PushGenerator} class generates the pushes possible from a {@link SearchNode} and finds
+ * the walking path of the player between pushes. For searches running backwards from the solved state
+ * it also generates the pulls possible from a node. It keeps scratch arrays for the reachability search,
+ * so an instance must only be used by one thread at a time. Every thread of a search creates its own
+ * generator over the shared {@link SearchBoard}.
+ */
+public class PushGenerator {
+
+    /**
+     * The static information about the level.
+     */
+    private final SearchBoard board;
+
+    /**
+     * Condition if a cell holds a box in the state currently being expanded.
+     */
+    private final boolean[] occupied;
+
+    /**
+     * Stamp of the search that last reached every cell from the node being expanded.
+     */
+    private final int[] region;
+
+    /**
+     * Stamp of the search that last reached every cell from a new node or in a path search.
+     */
+    private final int[] reached;
+
+    /**
+     * Cell each cell was reached from in the last path search.
+     */
+    private final int[] previous;
+
+    /**
+     * Queue for the reachability searches.
+     */
+    private final int[] queue;
+
+    /**
+     * Stamp of the last search written to {@code region}.
+     */
+    private int regionStamp;
+
+    /**
+     * Stamp of the last search written to {@code reached}.
+     */
+    private int reachedStamp;
+
+    /**
+     * Detects freeze deadlocks caused by a push.
+     */
+    private final DeadlockDetector deadlockDetector;
+
+    /**
+     * Tells if a cell holds a box, used by the {@link DeadlockDetector} and the {@link PatternDatabase}.
+     */
+    private final IntPredicate isBox;
+
+    /**
+     * Tells if a cell of the board is a wall, used by the {@link PatternDatabase}.
+     */
+    private final IntPredicate isWall;
+
+    /**
+     * Tells if a cell of the board is a marked tile, used by the {@link PatternDatabase}.
+     */
+    private final IntPredicate isGoal;
+
+    /**
+     * Deadlock patterns around pushed boxes.
+     */
+    private final PatternDatabase patterns;
+
+    /**
+     * Assignment of the boxes of the node being expanded to the marked tiles, or {@code null} before the first use.
+     */
+    private DistanceTable.Matching parentMatching;
+
+    /**
+     * Assignment of the boxes of a new node, updated from {@code parentMatching} by the push.
+     */
+    private DistanceTable.Matching childMatching;
+
+    /**
+     * Constructs a {@link PushGenerator} over a {@link SearchBoard}.
+     *
+     * @param board     The static information about the level.
+     */
+    public PushGenerator(SearchBoard board) {
+        this.board = board;
+        int cells = board.getCellCount();
+        this.occupied = new boolean[cells];
+        this.region = new int[cells];
+        this.reached = new int[cells];
+        this.previous = new int[cells];
+        this.queue = new int[cells];
+        this.deadlockDetector = new DeadlockDetector(board.getMap(), board.getDeadSquares());
+        this.isBox = cell -> occupied[cell];
+        this.isWall = board::isWall;
+        this.isGoal = board::isGoal;
+        this.patterns = PatternDatabase.getDefault();
+    }
+
+    /**
+     * Creates the start node of a search from the current state of a {@link Model}.
+     *
+     * @param model     The {@link Model} to start from.
+     * @return          The start node.
+     */
+    public SearchNode startNode(Model model) {
+        int[] boxes = new int[model.getBoxCount()];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = model.getBoxCell(i);
+        }
+        Arrays.sort(boxes);
+
+        match(boxes);
+        return new SearchNode(boxes, Zobrist.boxHash(boxes), normalize(model.getPlayerCell(), boxes), 0,
+                parentMatching.getLowerBound(), null, -1, 0);
+    }
+
+    /**
+     * Finds the smallest cell index the player can reach without pushing.
+     *
+     * @param player    Cell index of the player.
+     * @param boxes     Cell indices of the boxes.
+     * @return          The normalized player cell.
+     */
+    public int normalize(int player, int[] boxes) {
+        place(boxes, true);
+        int min = reach(player, reached);
+        place(boxes, false);
+        return min;
+    }
+
+    /**
+     * Adds every push possible from a node to a list. Pushes onto dead squares and pushes
+     * completing a deadlock pattern or causing a freeze deadlock are left out. The heuristic of a new
+     * node is the total pushes of the cheapest {@link DistanceTable.Matching} of its boxes, updated from
+     * the node by the push.
+     *
+     * @param node      The node to expand.
+     * @param children  List the new nodes are added to.
+     */
+    public void expand(SearchNode node, List<SearchNode> children) {
+
+        int[] boxes = node.getBoxes();
+        match(boxes);
+        place(boxes, true);
+        reach(node.getPlayer(), region);
+        int s = regionStamp;
+
+        for (int i = 0; i < boxes.length; i++) {
+            int box = boxes[i];
+            for (int d = 0; d < 4; d++) {
+                int offset = board.offset(d);
+                int target = box + offset;
+                if (region[box - offset] != s || board.isWall(target) || occupied[target]
+                        || board.isDeadSquare(target)) {
+                    continue;
+                }
+
+                occupied[box] = false;
+                occupied[target] = true;
+                if (!patterns.isDeadlock(target, board.getWidth(), isWall, isBox, isGoal)
+                        && !deadlockDetector.isFreezeDeadlock(target, isBox)) {
+                    int[] pushed = moveSorted(boxes, i, target);
+                    childMatching.copyFrom(parentMatching);
+                    childMatching.moveBox(i, target);
+                    int heuristic = childMatching.getLowerBound();
+                    if (heuristic != SearchBoard.UNREACHABLE) {
+                        long boxHash = node.getBoxHash() ^ Zobrist.boxKey(box) ^ Zobrist.boxKey(target);
+                        children.add(new SearchNode(pushed, boxHash, reach(box, reached), node.getPushes() + 1,
+                                heuristic, node, box, d));
+                    }
+                }
+                occupied[target] = false;
+                occupied[box] = true;
+            }
+        }
+
+        place(boxes, false);
+    }
+
+    /**
+     * Creates the nodes of a backward search: every box on a marked tile, with the player in each of
+     * the areas it can walk in. The level must have as many marked tiles as boxes.
+     *
+     * @param roots     List the new nodes are added to.
+     */
+    public void goalNodes(List<SearchNode> roots) {
+
+        int[] boxes = new int[board.getGoalCount()];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = board.getGoalCell(i);
+        }
+        Arrays.sort(boxes);
+        long boxHash = Zobrist.boxHash(boxes);
+
+        place(boxes, true);
+        boolean[] seen = new boolean[board.getCellCount()];
+        for (int cell = 0; cell < seen.length; cell++) {
+            if (seen[cell] || board.isWall(cell) || occupied[cell]) {
+                continue;
+            }
+            int player = reach(cell, reached);
+            for (int c = 0; c < seen.length; c++) {
+                seen[c] |= reached[c] == reachedStamp;
+            }
+            roots.add(new SearchNode(boxes, boxHash, player, 0, 0, null, -1, 0));
+        }
+        place(boxes, false);
+    }
+
+    /**
+     * Adds every pull possible from a node of a backward search to a list. The player stands next
+     * to a box, steps away from it and drags the box along.
+     *
+     * <p>
+     * The pull is recorded as the push undoing it: the pushed from cell of a new node is the cell the
+     * box was pulled to, and its direction points back to where the box came from. Following the
+     * parents of a node thus replays the pushes from that node to the solved state, see
+     * {@link #movesFrom(SearchNode, int)}. The heuristic of the new nodes is 0.
+     * </p>
+     *
+     * @param node      The node to expand.
+     * @param children  List the new nodes are added to.
+     */
+    public void expandPulls(SearchNode node, List<SearchNode> children) {
+
+        int[] boxes = node.getBoxes();
+        place(boxes, true);
+        reach(node.getPlayer(), region);
+        int s = regionStamp;
+
+        for (int i = 0; i < boxes.length; i++) {
+            int box = boxes[i];
+            for (int d = 0; d < 4; d++) {
+                int offset = board.offset(d);
+                int target = box + offset;
+                int player = target + offset;
+                if (region[target] != s || board.isWall(player) || occupied[player]) {
+                    continue;
+                }
+
+                occupied[box] = false;
+                occupied[target] = true;
+                int[] pulled = moveSorted(boxes, i, target);
+                long boxHash = node.getBoxHash() ^ Zobrist.boxKey(box) ^ Zobrist.boxKey(target);
+                int back = Direction.ALL[d].opposite().ordinal();
+                children.add(new SearchNode(pulled, boxHash, reach(player, reached), node.getPushes() + 1,
+                        0, node, target, back));
+                occupied[target] = false;
+                occupied[box] = true;
+            }
+        }
+
+        place(boxes, false);
+    }
+
+    /**
+     * Builds the moves leading from a node of a backward search to the solved state, walking the
+     * player to every push. Pushes are written in upper case.
+     *
+     * @param node      The node reached by the backward search.
+     * @param player    Cell index of the player in the state of the node.
+     * @return          The moves in LURD notation.
+     */
+    public String movesFrom(SearchNode node, int player) {
+
+        StringBuilder moves = new StringBuilder();
+        for (SearchNode n = node; n.getParent() != null; n = n.getParent()) {
+            int offset = board.offset(n.getDirection());
+            appendPath(player, n.getPushedFrom() - offset, n.getBoxes(), moves);
+            moves.append(Character.toUpperCase(symbol(offset)));
+            player = n.getPushedFrom();
+        }
+
+        return moves.toString();
+    }
+
+    /**
+     * Builds the moves leading from the start of a search to a node, walking the player
+     * to every push. Pushes are written in upper case.
+     *
+     * @param node      The node reached by the search.
+     * @param player    Cell index of the player at the start of the search.
+     * @return          The moves in LURD notation.
+     */
+    public String movesTo(SearchNode node, int player) {
+
+        ArrayDeque<SearchNode> path = new ArrayDeque<>();
+        for (SearchNode n = node; n.getParent() != null; n = n.getParent()) {
+            path.push(n);
+        }
+
+        StringBuilder moves = new StringBuilder();
+        for (SearchNode n : path) {
+            int offset = board.offset(n.getDirection());
+            appendPath(player, n.getPushedFrom() - offset, n.getParent().getBoxes(), moves);
+            moves.append(Character.toUpperCase(symbol(offset)));
+            player = n.getPushedFrom();
+        }
+
+        return moves.toString();
+    }
+
+    /**
+     * Appends the walking moves of the player from one cell to another to a {@link StringBuilder},
+     * one lower case character per step as read by {@link Direction#fromChar(char)}.
+     *
+     * @param from      Cell index of the player.
+     * @param to        Cell index to walk to.
+     * @param boxes     Cell indices of the boxes.
+     * @param moves     The moves are appended here.
+     * @throws IllegalStateException if the cell can not be reached.
+     */
+    public void appendPath(int from, int to, int[] boxes, StringBuilder moves) {
+
+        place(boxes, true);
+        int s = nextStamp(reached);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        reached[from] = s;
+        while (head < tail && reached[to] != s) {
+            int cell = queue[head++];
+            for (int d = 0; d < 4; d++) {
+                int next = cell + board.offset(d);
+                if (reached[next] != s && !board.isWall(next) && !occupied[next]) {
+                    reached[next] = s;
+                    previous[next] = cell;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        place(boxes, false);
+
+        if (reached[to] != s) {
+            throw new IllegalStateException("Cell " + to + " can not be reached from " + from);
+        }
+
+        StringBuilder path = new StringBuilder();
+        for (int cell = to; cell != from; cell = previous[cell]) {
+            path.append(symbol(cell - previous[cell]));
+        }
+        moves.append(path.reverse());
+    }
+
+    /**
+     * Returns the character of the direction with the given cell index offset.
+     *
+     * @param offset    The cell index offset.
+     * @return          {@code 'u'}, {@code 'd'}, {@code 'l'} or {@code 'r'}.
+     */
+    public char symbol(int offset) {
+        if (offset == board.offset(Direction.UP.ordinal())) {
+            return 'u';
+        }
+        if (offset == board.offset(Direction.DOWN.ordinal())) {
+            return 'd';
+        }
+        return offset < 0 ? 'l' : 'r';
+    }
+
+    /**
+     * Assigns the boxes of a node to the marked tiles in {@code parentMatching}.
+     *
+     * @param boxes     Cell indices of the boxes.
+     */
+    private void match(int[] boxes) {
+        if (parentMatching == null) {
+            parentMatching = new DistanceTable.Matching(board.getDistanceTable(), boxes);
+            childMatching = new DistanceTable.Matching(board.getDistanceTable(), boxes);
+        } else {
+            parentMatching.setBoxes(boxes);
+        }
+    }
+
+    /**
+     * Marks or clears the cells holding boxes.
+     *
+     * @param boxes     Cell indices of the boxes.
+     * @param value     true to mark the cells, false to clear them.
+     */
+    private void place(int[] boxes, boolean value) {
+        for (int box : boxes) {
+            occupied[box] = value;
+        }
+    }
+
+    /**
+     * Marks every cell the player can reach from a cell with a new stamp.
+     *
+     * @param player    Cell index of the player.
+     * @param marks     Array the stamp is written to, {@code region} or {@code reached}.
+     * @return          The smallest cell index reached.
+     */
+    private int reach(int player, int[] marks) {
+        int s = nextStamp(marks);
+        int head = 0;
+        int tail = 0;
+        int min = player;
+        queue[tail++] = player;
+        marks[player] = s;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell < min) {
+                min = cell;
+            }
+            for (int d = 0; d < 4; d++) {
+                int next = cell + board.offset(d);
+                if (marks[next] != s && !board.isWall(next) && !occupied[next]) {
+                    marks[next] = s;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return min;
+    }
+
+    /**
+     * Returns a new stamp for a reachability search, clearing the stamp array when the counter wraps.
+     *
+     * @param marks     Array the stamp is written to, {@code region} or {@code reached}.
+     * @return          The new stamp.
+     */
+    private int nextStamp(int[] marks) {
+        if (marks == region) {
+            if (regionStamp == Integer.MAX_VALUE) {
+                Arrays.fill(region, 0);
+                regionStamp = 0;
+            }
+            return ++regionStamp;
+        }
+
+        if (reachedStamp == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            reachedStamp = 0;
+        }
+        return ++reachedStamp;
+    }
+
+    /**
+     * Returns a copy of a sorted box array where one box has moved, keeping the copy sorted.
+     *
+     * @param boxes     Sorted cell indices of the boxes.
+     * @param index     Index of the moved box in the array.
+     * @param target    New cell index of the moved box.
+     * @return          The sorted copy.
+     */
+    private static int[] moveSorted(int[] boxes, int index, int target) {
+        int[] copy = boxes.clone();
+        int i = index;
+        while (i > 0 && copy[i - 1] > target) {
+            copy[i] = copy[i - 1];
+            i--;
+        }
+        while (i < copy.length - 1 && copy[i + 1] < target) {
+            copy[i] = copy[i + 1];
+            i++;
+        }
+        copy[i] = target;
+        return copy;
+    }
+}
\ No newline at end of file
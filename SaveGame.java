@@ -0,0 +1,337 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The {@code SaveGame} class is a saved position of a level in a compact binary format, which replaces
+ * Java serialization of the whole {@link Model}.
+ *
+ * <p>
+ * A save holds only what differs from the level as it is loaded from its pack: the level ID, a hash of
+ * the level's content, the number of moves made, the player cell and the box cells. The map itself is
+ * not stored, so a save is restored into the {@link Model} of its level, and the content hash makes sure
+ * it is not restored into a level that has changed since. A level with 15 boxes takes about 40 bytes.
+ * </p>
+ *
+ * <p>
+ * Layout, big-endian: the magic number {@code SKSV}, a version byte, the content hash as 8 bytes, then
+ * as unsigned variable-length integers of 7 bits per byte the level ID, the number of moves, the player
+ * cell, the number of boxes and the box cells in ascending order, each stored as the difference to the
+ * previous one.
+ * </p>
+ */
+public class SaveGame {
+
+    /**
+     * Extension of files in this format.
+     */
+    public static final String EXTENSION = "sav";
+
+    /**
+     * Extension of legacy save files, written with Java serialization of the whole {@link Model}.
+     */
+    public static final String LEGACY_EXTENSION = "dat";
+
+    /**
+     * First bytes of a save file.
+     */
+    private static final int MAGIC = 0x534B5356;
+
+    /**
+     * Version of the file format.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * Number of bytes before the variable-length part: magic, version and content hash.
+     */
+    private static final int HEADER_BYTES = 13;
+
+    /**
+     * Level ID of the saved level.
+     */
+    private final int level;
+
+    /**
+     * Hash of the map and initial position of the saved level.
+     */
+    private final long contentHash;
+
+    /**
+     * Number of moves made in the level.
+     */
+    private final int moves;
+
+    /**
+     * Cell index of the player.
+     */
+    private final int player;
+
+    /**
+     * Cell index of every box, in ascending order.
+     */
+    private final int[] boxes;
+
+    /**
+     * Constructs a {@link SaveGame}.
+     *
+     * @param level         Level ID of the saved level.
+     * @param contentHash   Hash of the map and initial position of the saved level.
+     * @param moves         Number of moves made in the level.
+     * @param player        Cell index of the player.
+     * @param boxes         Cell index of every box, in ascending order.
+     */
+    private SaveGame(int level, long contentHash, int moves, int player, int[] boxes) {
+        this.level = level;
+        this.contentHash = contentHash;
+        this.moves = moves;
+        this.player = player;
+        this.boxes = boxes;
+    }
+
+    /**
+     * Captures the current position of a {@link Model}.
+     *
+     * @param model     The {@link Model}.
+     * @param moves     Number of moves made in the level.
+     * @return          The {@link SaveGame}.
+     */
+    public static SaveGame of(Model model, int moves) {
+        int[] boxes = new int[model.getBoxCount()];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = model.getBoxCell(i);
+        }
+        Arrays.sort(boxes);
+
+        return new SaveGame(model.getLevel(), contentHash(model), moves, model.getPlayerCell(), boxes);
+    }
+
+    /**
+     * Reads a save file.
+     *
+     * @param file  The save file.
+     * @return      The {@link SaveGame}.
+     * @throws IOException if the file can not be read or is not a save file of this version.
+     */
+    public static SaveGame read(Path file) throws IOException {
+        return decode(Files.readAllBytes(file));
+    }
+
+    /**
+     * Returns whether a file starts like a save file of this format, as opposed to a legacy save
+     * written with Java serialization.
+     *
+     * @param file  The file.
+     * @return      true if the file is a save file of this format, false otherwise.
+     * @throws IOException if the file can not be read.
+     */
+    public static boolean isSaveGame(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(Integer.BYTES);
+            return magic.length == Integer.BYTES && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Decodes the contents of a save file.
+     *
+     * @param bytes     The contents.
+     * @return          The {@link SaveGame}.
+     * @throws IOException if the contents are not a save file of this version.
+     */
+    public static SaveGame decode(byte[] bytes) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a save file");
+            }
+            if (in.get() != VERSION) {
+                throw new IOException("Unsupported save file version");
+            }
+
+            long contentHash = in.getLong();
+            int level = readVarInt(in);
+            int moves = readVarInt(in);
+            int player = readVarInt(in);
+            int boxCount = readVarInt(in);
+            if (boxCount > in.remaining()) {
+                throw new IOException("Truncated save file");
+            }
+            int[] boxes = new int[boxCount];
+            int cell = -1;
+            for (int i = 0; i < boxes.length; i++) {
+                cell += readVarInt(in) + 1;
+                boxes[i] = cell;
+            }
+            if (in.hasRemaining()) {
+                throw new IOException("Trailing bytes in save file");
+            }
+
+            return new SaveGame(level, contentHash, moves, player, boxes);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated save file", e);
+        }
+    }
+
+    /**
+     * Encodes the save in the binary format.
+     *
+     * @return The contents of a save file.
+     */
+    public byte[] encode() {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + 5 * (boxes.length + 4));
+        out.putInt(MAGIC).put(VERSION).putLong(contentHash);
+        writeVarInt(out, level);
+        writeVarInt(out, moves);
+        writeVarInt(out, player);
+        writeVarInt(out, boxes.length);
+        int previous = -1;
+        for (int box : boxes) {
+            writeVarInt(out, box - previous - 1);
+            previous = box;
+        }
+
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * Writes the save to a file, replacing it.
+     *
+     * @param file  The save file.
+     * @throws IOException if the file can not be written.
+     */
+    public void write(Path file) throws IOException {
+        Files.write(file, encode());
+    }
+
+    /**
+     * Moves the player and the boxes of a {@link Model} to the saved position. The {@link Model} must be
+     * the saved level, in any position.
+     *
+     * @param model     {@link Model} of the saved level.
+     * @throws IOException if the {@link Model} is another level, its content has changed since the save,
+     *                     or the saved position is not valid in it.
+     */
+    public void restore(Model model) throws IOException {
+        if (model.getLevel() != level || contentHash(model) != contentHash) {
+            throw new IOException("The save file belongs to another version of level " + (level + 1));
+        }
+
+        GameGrid map = model.getMap();
+        int cells = map.getWidth() * map.getHeight();
+        if (boxes.length != model.getBoxCount() || !isFloor(map, player, cells)
+                || Arrays.binarySearch(boxes, player) >= 0) {
+            throw new IOException("Invalid position in save file");
+        }
+        for (int box : boxes) {
+            if (!isFloor(map, box, cells)) {
+                throw new IOException("Invalid position in save file");
+            }
+        }
+
+        model.setState(boxes, player);
+        model.setStuck(false);
+        model.setWin(model.isSolved());
+    }
+
+    /**
+     * Returns the level ID of the saved level.
+     *
+     * @return The level ID.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the number of moves made in the level.
+     *
+     * @return The number of moves.
+     */
+    public int getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the hash of the map and initial position of the saved level.
+     *
+     * @return The 64-bit hash.
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the size, the map grid and the initial interactive grid of a level,
+     * which changes whenever the level is edited.
+     *
+     * @param model     {@link Model} of the level.
+     * @return          The 64-bit hash.
+     */
+    public static long contentHash(Model model) {
+        GameGrid map = model.getMap();
+        GameGrid initial = model.getInitialInteractive();
+        int cells = map.getWidth() * map.getHeight();
+        long hash = 0xCBF29CE484222325L;
+        hash = (hash ^ map.getWidth()) * 0x100000001B3L;
+        hash = (hash ^ map.getHeight()) * 0x100000001B3L;
+        for (int i = 0; i < cells; i++) {
+            hash = (hash ^ map.getTile(i)) * 0x100000001B3L;
+            hash = (hash ^ initial.getTile(i)) * 0x100000001B3L;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Returns whether a cell index lies inside the grid and is not a wall.
+     *
+     * @param map       The static map grid.
+     * @param cell      The cell index.
+     * @param cells     Number of cells in the grid.
+     * @return          true if the player or a box can stand on the cell, false otherwise.
+     */
+    private static boolean isFloor(GameGrid map, int cell, int cells) {
+        return cell >= 0 && cell < cells && (map.getTile(cell) & GameGrid.WALL) == 0;
+    }
+
+    /**
+     * Writes a non-negative integer with 7 bits per byte, the high bit marking that more bytes follow.
+     *
+     * @param out       The buffer.
+     * @param value     The integer.
+     */
+    static void writeVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Reads an integer written by {@link #writeVarInt(ByteBuffer, int)}.
+     *
+     * @param in    The buffer.
+     * @return      The integer.
+     * @throws IOException if the integer is negative or longer than 5 bytes.
+     */
+    static int readVarInt(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0 && value >= 0) {
+                return value;
+            } else if (b >= 0) {
+                break;
+            }
+        }
+
+        throw new IOException("Malformed number in save file");
+    }
+}
\ No newline at end of file
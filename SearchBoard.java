@@ -0,0 +1,247 @@
+import java.util.BitSet;
+
+/**
+ * The {@code SearchBoard} class holds the static information about a level needed when searching for
+ * a solution: walls, marked tiles, dead squares and the cell index offset of every {@link Direction}.
+ * It is created once from a {@link Model} and is never changed, so it can be shared between threads.
+ *
+ * <p>
+ * Cells on the border of the grid are treated as walls, so a neighbour of a floor cell is always
+ * inside the grid. The board also holds the {@link DistanceTable} of the level, with the minimum number
+ * of pushes needed to move a box from every cell to every marked tile when no other boxes are in the way.
+ * The sum over all boxes of the distance to the closest marked tile never overestimates the pushes left;
+ * a {@link DistanceTable.Matching} gives a tighter bound.
+ * </p>
+ */
+public class SearchBoard {
+
+    /**
+     * Distance of a cell from which no marked tile can be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE / 4;
+
+    /**
+     * The static map grid of the level.
+     */
+    private final GameGrid map;
+
+    /**
+     * Number of columns in the grid.
+     */
+    private final int width;
+
+    /**
+     * Number of cells in the grid.
+     */
+    private final int cellCount;
+
+    /**
+     * Condition if a cell is a wall or on the border of the grid.
+     */
+    private final boolean[] walls;
+
+    /**
+     * Condition if a cell is a marked tile.
+     */
+    private final boolean[] goals;
+
+    /**
+     * Cell index of every marked tile.
+     */
+    private final int[] goalCells;
+
+    /**
+     * Set of cell indices of the dead squares.
+     */
+    private final BitSet deadSquares;
+
+    /**
+     * Cell index offset of every {@link Direction}, indexed by ordinal.
+     */
+    private final int[] offsets;
+
+    /**
+     * Minimum number of pushes from every cell to every marked tile.
+     */
+    private final DistanceTable distanceTable;
+
+    /**
+     * Minimum number of pushes from every cell to the closest marked tile.
+     */
+    private final int[] goalDistance;
+
+    /**
+     * Constructs a {@link SearchBoard} from the static parts of a {@link Model}.
+     *
+     * @param model     The {@link Model} of the level.
+     */
+    public SearchBoard(Model model) {
+
+        this.map = model.getMap();
+        this.width = map.getWidth();
+        this.cellCount = width * map.getHeight();
+        this.walls = new boolean[cellCount];
+        this.goals = new boolean[cellCount];
+        this.deadSquares = model.getDeadSquares();
+        this.offsets = new int[Direction.ALL.length];
+        for (Direction d : Direction.ALL) {
+            offsets[d.ordinal()] = d.offset(width);
+        }
+
+        int nOfGoals = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            walls[cell] = (map.getTile(cell) & GameGrid.WALL) != 0
+                    || x == 0 || y == 0 || x == width - 1 || y == map.getHeight() - 1;
+            goals[cell] = !walls[cell] && model.isGoal(cell);
+            if (goals[cell]) {
+                nOfGoals++;
+            }
+        }
+
+        this.goalCells = new int[nOfGoals];
+        int i = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            if (goals[cell]) {
+                goalCells[i++] = cell;
+            }
+        }
+
+        this.distanceTable = model.getDistanceTable();
+        this.goalDistance = distanceTable.getNearest();
+    }
+
+    /**
+     * Returns the sum over all boxes of the minimum pushes to the closest marked tile.
+     *
+     * @param boxes     Cell indices of the boxes.
+     * @return          A lower bound of the pushes left, or {@link #UNREACHABLE} if a box can never reach a marked tile.
+     */
+    public int heuristic(int[] boxes) {
+        int sum = 0;
+        for (int box : boxes) {
+            int distance = goalDistance[box];
+            if (distance == UNREACHABLE) {
+                return UNREACHABLE;
+            }
+            sum += distance;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Returns the minimum number of pushes from every cell to every marked tile.
+     *
+     * @return The {@link DistanceTable} of the level.
+     */
+    public DistanceTable getDistanceTable() {
+        return distanceTable;
+    }
+
+    /**
+     * Returns the static map grid of the level.
+     *
+     * @return The map grid.
+     */
+    public GameGrid getMap() {
+        return map;
+    }
+
+    /**
+     * Returns the number of columns in the grid.
+     *
+     * @return The width of the grid.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of cells in the grid.
+     *
+     * @return The number of cells.
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Returns whether a cell is a wall or on the border of the grid.
+     *
+     * @param cell The cell index.
+     * @return true if nothing can stand on the cell, false otherwise.
+     */
+    public boolean isWall(int cell) {
+        return walls[cell];
+    }
+
+    /**
+     * Returns whether a cell is a marked tile.
+     *
+     * @param cell The cell index.
+     * @return true if the cell is a marked tile, false otherwise.
+     */
+    public boolean isGoal(int cell) {
+        return goals[cell];
+    }
+
+    /**
+     * Returns whether a box on a cell can never reach a marked tile.
+     *
+     * @param cell The cell index.
+     * @return true if the cell is a dead square, false otherwise.
+     */
+    public boolean isDeadSquare(int cell) {
+        return deadSquares.get(cell);
+    }
+
+    /**
+     * Returns the dead squares of the level.
+     *
+     * @return Set of cell indices of the dead squares.
+     */
+    public BitSet getDeadSquares() {
+        return deadSquares;
+    }
+
+    /**
+     * Returns the number of marked tiles.
+     *
+     * @return The number of marked tiles.
+     */
+    public int getGoalCount() {
+        return goalCells.length;
+    }
+
+    /**
+     * Returns the cell index of a marked tile.
+     *
+     * @param goal The index of the marked tile, between 0 and {@code getGoalCount() - 1}.
+     * @return The cell index.
+     */
+    public int getGoalCell(int goal) {
+        return goalCells[goal];
+    }
+
+    /**
+     * Returns the cell index offset of a direction.
+     *
+     * @param direction The ordinal of the {@link Direction}.
+     * @return The cell index offset.
+     */
+    public int offset(int direction) {
+        return offsets[direction];
+    }
+
+    /**
+     * Returns the minimum number of pushes from a cell to the closest marked tile.
+     *
+     * @param cell The cell index.
+     * @return The number of pushes, or {@link #UNREACHABLE}.
+     */
+    public int getGoalDistance(int cell) {
+        return goalDistance[cell];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * The {@code SearchNode} class is a state reached while searching for a solution: the positions of
+ * the boxes and the area the player can walk in, together with the push that led to it.
+ *
+ * <p>
+ * The box cells are kept sorted and the player is normalized to the smallest cell index it can reach
+ * without pushing, so two nodes are equal exactly when the same pushes are possible from them.
+ * Every node carries the {@link Zobrist} hash of its state, updated from its parent by the push,
+ * so comparing two nodes usually takes constant time.
+ * </p>
+ */
+public class SearchNode {
+
+    /**
+     * Sorted cell indices of the boxes.
+     */
+    private final int[] boxes;
+
+    /**
+     * {@link Zobrist} hash of the boxes.
+     */
+    private final long boxHash;
+
+    /**
+     * Smallest cell index the player can reach without pushing.
+     */
+    private final int player;
+
+    /**
+     * Number of pushes made to reach this node.
+     */
+    private final int pushes;
+
+    /**
+     * Lower bound of the pushes left to solve the level.
+     */
+    private final int heuristic;
+
+    /**
+     * Node this node was reached from, or {@code null} for the start.
+     */
+    private final SearchNode parent;
+
+    /**
+     * Cell index of the pushed box before the push, or -1 for the start.
+     */
+    private final int pushedFrom;
+
+    /**
+     * Ordinal of the {@link Direction} of the push.
+     */
+    private final byte direction;
+
+    /**
+     * {@link Zobrist} hash of the boxes and the player.
+     */
+    private final long hash;
+
+    /**
+     * Constructs a {@link SearchNode}.
+     *
+     * @param boxes         Sorted cell indices of the boxes, used without copying.
+     * @param boxHash       {@link Zobrist} hash of the boxes.
+     * @param player        Smallest cell index the player can reach.
+     * @param pushes        Number of pushes made to reach the node.
+     * @param heuristic     Lower bound of the pushes left.
+     * @param parent        Node this node was reached from, or {@code null}.
+     * @param pushedFrom    Cell index of the pushed box before the push, or -1.
+     * @param direction     Ordinal of the {@link Direction} of the push.
+     */
+    public SearchNode(int[] boxes, long boxHash, int player, int pushes, int heuristic, SearchNode parent, int pushedFrom, int direction) {
+        this.boxes = boxes;
+        this.boxHash = boxHash;
+        this.player = player;
+        this.pushes = pushes;
+        this.heuristic = heuristic;
+        this.parent = parent;
+        this.pushedFrom = pushedFrom;
+        this.direction = (byte) direction;
+        this.hash = boxHash ^ Zobrist.playerKey(player);
+    }
+
+    /**
+     * Returns the sorted cell indices of the boxes. The array must not be changed.
+     *
+     * @return The box cells.
+     */
+    public int[] getBoxes() {
+        return boxes;
+    }
+
+    /**
+     * Returns the {@link Zobrist} hash of the boxes.
+     *
+     * @return The hash of the boxes.
+     */
+    public long getBoxHash() {
+        return boxHash;
+    }
+
+    /**
+     * Returns the {@link Zobrist} hash of the boxes and the normalized player.
+     *
+     * @return The hash of the state.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Returns the smallest cell index the player can reach without pushing.
+     *
+     * @return The normalized player cell.
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * Returns the number of pushes made to reach this node.
+     *
+     * @return The number of pushes.
+     */
+    public int getPushes() {
+        return pushes;
+    }
+
+    /**
+     * Returns the lower bound of the pushes left to solve the level.
+     *
+     * @return The heuristic value.
+     */
+    public int getHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * Returns the lower bound of the total number of pushes of a solution through this node.
+     *
+     * @return The pushes made plus the heuristic value.
+     */
+    public int getEstimate() {
+        return pushes + heuristic;
+    }
+
+    /**
+     * Returns the node this node was reached from.
+     *
+     * @return The parent node, or {@code null} for the start.
+     */
+    public SearchNode getParent() {
+        return parent;
+    }
+
+    /**
+     * Returns the cell index of the pushed box before the push.
+     *
+     * @return The cell index, or -1 for the start.
+     */
+    public int getPushedFrom() {
+        return pushedFrom;
+    }
+
+    /**
+     * Returns the direction of the push.
+     *
+     * @return The ordinal of the {@link Direction}.
+     */
+    public int getDirection() {
+        return direction;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchNode other)) {
+            return false;
+        }
+
+        return hash == other.hash && player == other.player && Arrays.equals(boxes, other.boxes);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
\ No newline at end of file
@@ -1,16 +1,29 @@
 import java.io.*;
+import java.nio.file.Path;
 
 /**
- * The {@code Sokoban} class is a test class that demonstrates reading files and creating models.
- * It creates instances of {@link MapFileReader} for different levels and uses them to create models.
- * The models are then used to create a {@link Controller} instance.
+ * The {@code Sokoban} class is the entry point of the game. It opens a level pack in the XSB format
+ * as an {@link IndexedLevelPack} and uses it to create a {@link Controller} instance, which loads
+ * every level through a {@link LevelRepository} when it is played.
  */
 public class Sokoban {
 
+    /**
+     * Level pack played when no other pack is given.
+     */
+    public static final String DEFAULT_PACK = "levels/custom/levels.xsb";
+
+    /**
+     * Number of levels parsed in the background after the first one is shown.
+     */
+    public static final int PREFETCH_LEVELS = 32;
+
     /**
      * The main method serves as the entry point for the program.
+     * The icons are decoded in the background while the pack is opened, the first level is shown
+     * as soon as it is parsed, and the following levels are parsed in the background after it.
      *
-     * @param args the command-line arguments
+     * @param args the command-line arguments: optionally the level pack to play, {@value #DEFAULT_PACK} by default
      * @throws IOException if an I/O error occurs while reading the files
      */
     public static void main(String[] args) throws IOException {
@@ -22,25 +35,15 @@ public class Sokoban {
                 new File("sokoban_icons/crate.png"),
                 new File("sokoban_icons/cratemarked.png"),
                 new File("sokoban_icons/wall.png")};
+        IconSet.loadAsync(icons);
 
-        //LVL 1
-        MapFileReader mfr1 = new MapFileReader("levels/custom/lvl1_map.txt","levels/custom/lvl1_interactive.txt");
-
-        //LVL 2
-        MapFileReader mfr2 = new MapFileReader("levels/custom/lvl2_map.txt","levels/custom/lvl2_interactive.txt");
-
-        //LVL 3
-        MapFileReader mfr3 = new MapFileReader("levels/custom/lvl3_map.txt","levels/custom/lvl3_interactive.txt");
-
-        //LVL 4
-        MapFileReader mfr4 = new MapFileReader("levels/custom/lvl4_map.txt","levels/custom/lvl4_interactive.txt");
-
-        Model[] m = new Model[] {
-                mfr1.createModelFromFiles(mfr1.mapFilePath, mfr1.interactiveFilePath, 0, icons),
-                mfr2.createModelFromFiles(mfr2.mapFilePath, mfr2.interactiveFilePath, 1, icons),
-                mfr3.createModelFromFiles(mfr3.mapFilePath, mfr3.interactiveFilePath, 2, icons),
-                mfr4.createModelFromFiles(mfr4.mapFilePath, mfr4.interactiveFilePath, 3, icons)};
+        IndexedLevelPack levels = IndexedLevelPack.open(Path.of(args.length > 0 ? args[0] : DEFAULT_PACK), icons);
+        if (levels.getLevelCount() == 0) {
+            throw new IOException("No levels in " + levels.getFile());
+        }
 
-        Controller c = new Controller(m);
+        LevelRepository repository = new LevelRepository(levels);
+        Controller c = new Controller(repository);
+        repository.prefetch(1, 1 + PREFETCH_LEVELS);
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,478 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The {@code Solver} class searches for a solution of a level with the fewest pushes, starting from the
+ * current state of a {@link Model}, for example one created by {@link MapFileReader}. The {@link Model}
+ * itself is never changed.
+ *
+ * <p>
+ * The search is an A* search over {@link SearchNode}s: each node is the sorted box positions and the
+ * normalized player position, so states that only differ by where the player stands in the same area
+ * are stored once. Visited states are kept in an {@link OffHeapTranspositionTable} outside the Java
+ * heap. Pushes onto dead squares or into a freeze deadlock are never generated, and the
+ * {@link SearchBoard} heuristic never overestimates, so the first solution found has the fewest pushes.
+ * </p>
+ *
+ * <p>
+ * The search is single threaded in the default {@link Mode#A_STAR} mode. {@link Mode#PARALLEL} runs
+ * the search of {@link ParallelSearch} over several threads instead. {@link Mode#IDA_STAR} runs the
+ * search of {@link IdaStarSearch}, which keeps its memory use bounded and can resume from a checkpoint file.
+ * {@link Mode#BIDIRECTIONAL} runs the search of {@link BidirectionalSearch}, pulling boxes back from the
+ * marked tiles at the same time as pushing them from the start.
+ * </p>
+ *
+ * <p>
+ * The search stops when its time budget or its budget of stored states runs out. A {@link SolverListener}
+ * can be notified of the progress at a fixed interval, and the throughput is reported in nodes per second.
+ * </p>
+ */
+public class Solver {
+
+    /**
+     * The search algorithms the solver can use.
+     */
+    public enum Mode {
+
+        /**
+         * Single threaded A* search.
+         */
+        A_STAR,
+
+        /**
+         * Multi threaded search with increasing bounds, see {@link ParallelSearch}.
+         */
+        PARALLEL,
+
+        /**
+         * Single threaded iterative deepening search in almost constant memory, see {@link IdaStarSearch}.
+         */
+        IDA_STAR,
+
+        /**
+         * Single threaded search from both the start and the solved state, see {@link BidirectionalSearch}.
+         */
+        BIDIRECTIONAL
+    }
+
+    /**
+     * Default maximum number of states stored by the search.
+     */
+    public static final long DEFAULT_MAX_STATES = 2_000_000;
+
+    /**
+     * Number of expanded nodes between checks of the budgets and progress reports.
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * The {@link Model} to solve.
+     */
+    private final Model model;
+
+    /**
+     * The static information about the level.
+     */
+    private final SearchBoard board;
+
+    /**
+     * Maximum search time in milliseconds.
+     */
+    private long timeLimitMillis;
+
+    /**
+     * Maximum number of states stored by the search.
+     */
+    private long maxStates;
+
+    /**
+     * Number of slots of the transposition table of the A* search, or 0 to grow it up to a size set by {@code maxStates}.
+     */
+    private long tableCapacity;
+
+    /**
+     * What the transposition table of the A* search does when it is full.
+     */
+    private OffHeapTranspositionTable.ReplacementPolicy replacementPolicy;
+
+    /**
+     * File the {@link Mode#IDA_STAR} search saves its bound to, or {@code null}.
+     */
+    private Path checkpointFile;
+
+    /**
+     * Transposition table of the last A* or IDA* search.
+     */
+    private OffHeapTranspositionTable table;
+
+    /**
+     * The last {@link Mode#BIDIRECTIONAL} search.
+     */
+    private BidirectionalSearch bidirectionalSearch;
+
+    /**
+     * The search algorithm to use.
+     */
+    private Mode mode;
+
+    /**
+     * Number of threads used by {@link Mode#PARALLEL}.
+     */
+    private int parallelism;
+
+    /**
+     * Observer notified of the progress, or {@code null}.
+     */
+    private SolverListener listener;
+
+    /**
+     * Time between progress notifications in milliseconds.
+     */
+    private long progressIntervalMillis;
+
+    /**
+     * Constructs a {@link Solver} for the current state of a {@link Model}.
+     *
+     * @param model     The {@link Model} to solve.
+     */
+    public Solver(Model model) {
+        this.model = model;
+        this.board = new SearchBoard(model);
+        this.timeLimitMillis = Long.MAX_VALUE;
+        this.maxStates = DEFAULT_MAX_STATES;
+        this.progressIntervalMillis = 1000;
+        this.replacementPolicy = OffHeapTranspositionTable.ReplacementPolicy.DEEPEST;
+        this.mode = Mode.A_STAR;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Sets the number of slots of the transposition table used by the A* search.
+     * By default it starts with {@link OffHeapTranspositionTable#DEFAULT_INITIAL_CAPACITY} slots and grows
+     * as states are stored, up to {@code maxStates} states with a quarter of the slots left free, so small
+     * levels do not reserve memory for the largest search.
+     * The {@link Mode#IDA_STAR} search uses it as the largest size of its cache, by default
+     * {@link IdaStarSearch#DEFAULT_CACHE_SLOTS}.
+     *
+     * @param slots     The number of slots, rounded up to a power of two, or 0 for the default.
+     */
+    public void setTableCapacity(long slots) {
+        tableCapacity = slots;
+    }
+
+    /**
+     * Sets what the transposition table of the A* search does when it is full.
+     * The default is {@link OffHeapTranspositionTable.ReplacementPolicy#DEEPEST}.
+     *
+     * @param policy    The replacement policy.
+     */
+    public void setReplacementPolicy(OffHeapTranspositionTable.ReplacementPolicy policy) {
+        replacementPolicy = policy;
+    }
+
+    /**
+     * Sets the file the {@link Mode#IDA_STAR} search saves its bound to after every iteration.
+     * A search of the same position resumes from the bound saved in the file.
+     *
+     * @param file      The checkpoint file, or {@code null} for none.
+     */
+    public void setCheckpointFile(Path file) {
+        checkpointFile = file;
+    }
+
+    /**
+     * Returns the file the {@link Mode#IDA_STAR} search saves its bound to.
+     *
+     * @return The checkpoint file, or {@code null}.
+     */
+    public Path getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * Returns the transposition table of the last A* or IDA* search, to read its occupancy and probe lengths.
+     *
+     * @return The table, or {@code null} if no such search has run.
+     */
+    public OffHeapTranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Returns the last {@link Mode#BIDIRECTIONAL} search, to read the nodes expanded in each direction
+     * and the meet point.
+     *
+     * @return The search, or {@code null} if no such search has run.
+     */
+    public BidirectionalSearch getBidirectionalSearch() {
+        return bidirectionalSearch;
+    }
+
+    /**
+     * Sets the search algorithm to use.
+     *
+     * @param newMode   The search algorithm.
+     */
+    public void setMode(Mode newMode) {
+        mode = newMode;
+    }
+
+    /**
+     * Sets the number of threads used by {@link Mode#PARALLEL}. The default is the number of processors.
+     *
+     * @param threads   The number of threads.
+     */
+    public void setParallelism(int threads) {
+        parallelism = threads;
+    }
+
+    /**
+     * Sets the maximum search time.
+     *
+     * @param millis    Maximum search time in milliseconds.
+     */
+    public void setTimeLimit(long millis) {
+        timeLimitMillis = millis;
+    }
+
+    /**
+     * Sets the maximum number of states stored by the search, which bounds its memory use.
+     * It does not apply to {@link Mode#IDA_STAR}, whose memory use is bounded by its cache.
+     *
+     * @param states    Maximum number of stored states.
+     */
+    public void setMaxStates(long states) {
+        maxStates = states;
+    }
+
+    /**
+     * Sets the observer notified of the progress of the search.
+     *
+     * @param newListener       The observer, or {@code null} for none.
+     * @param intervalMillis    Time between notifications in milliseconds.
+     */
+    public void setListener(SolverListener newListener, long intervalMillis) {
+        listener = newListener;
+        progressIntervalMillis = intervalMillis;
+    }
+
+    /**
+     * Returns the {@link Model} being solved.
+     *
+     * @return The {@link Model}.
+     */
+    public Model getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the static information about the level being solved.
+     *
+     * @return The {@link SearchBoard}.
+     */
+    public SearchBoard getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns the maximum search time.
+     *
+     * @return The maximum search time in milliseconds.
+     */
+    public long getTimeLimit() {
+        return timeLimitMillis;
+    }
+
+    /**
+     * Returns the maximum number of states stored by the search.
+     *
+     * @return The maximum number of stored states.
+     */
+    public long getMaxStates() {
+        return maxStates;
+    }
+
+    /**
+     * Returns the observer notified of the progress of the search.
+     *
+     * @return The observer, or {@code null}.
+     */
+    public SolverListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Returns the time between progress notifications.
+     *
+     * @return The interval in milliseconds.
+     */
+    public long getProgressInterval() {
+        return progressIntervalMillis;
+    }
+
+    /**
+     * Searches for a solution with the fewest pushes, using the selected {@link Mode}.
+     *
+     * @return The {@link SolverResult} of the search.
+     */
+    public SolverResult solve() {
+        return switch (mode) {
+            case A_STAR -> solveAStar();
+            case PARALLEL -> new ParallelSearch(this, parallelism).solve();
+            case IDA_STAR -> solveIdaStar();
+            case BIDIRECTIONAL -> {
+                bidirectionalSearch = new BidirectionalSearch(this);
+                yield bidirectionalSearch.solve();
+            }
+        };
+    }
+
+    /**
+     * Searches for a solution with the fewest pushes with an {@link IdaStarSearch}.
+     *
+     * @return The {@link SolverResult} of the search.
+     */
+    private SolverResult solveIdaStar() {
+        long slots = tableCapacity > 0 ? tableCapacity : IdaStarSearch.DEFAULT_CACHE_SLOTS;
+        IdaStarSearch search = new IdaStarSearch(this, slots, checkpointFile);
+        table = search.getCache();
+        return search.solve();
+    }
+
+    /**
+     * Searches for a solution with the fewest pushes with a single threaded A* search.
+     *
+     * @return The {@link SolverResult} of the search.
+     */
+    private SolverResult solveAStar() {
+
+        long start = System.nanoTime();
+        long deadline = timeLimitMillis == Long.MAX_VALUE ? Long.MAX_VALUE : start + timeLimitMillis * 1_000_000;
+        long nextReport = start + progressIntervalMillis * 1_000_000;
+
+        PushGenerator generator = new PushGenerator(board);
+        SearchNode root = generator.startNode(model);
+
+        PriorityQueue<SearchNode> open = new PriorityQueue<>(
+                Comparator.comparingInt(SearchNode::getEstimate).thenComparingInt(SearchNode::getHeuristic));
+        long initial = tableCapacity > 0 ? tableCapacity : OffHeapTranspositionTable.DEFAULT_INITIAL_CAPACITY;
+        long slots = tableCapacity > 0 ? tableCapacity : Math.max(1024, maxStates + maxStates / 3);
+        table = new OffHeapTranspositionTable(board.getCellCount(), initial, slots,
+                OffHeapTranspositionTable.DEFAULT_MAX_PROBES, replacementPolicy);
+        List<SearchNode> children = new ArrayList<>();
+
+        long expanded = 0;
+        long generated = 1;
+        int bound = root.getEstimate();
+        if (root.getHeuristic() != SearchBoard.UNREACHABLE) {
+            open.add(root);
+            table.improve(root);
+        }
+
+        while (!open.isEmpty()) {
+            SearchNode node = open.poll();
+            int known = table.lookup(node);
+            if (known >= 0 && known < node.getPushes()) {
+                continue;
+            }
+
+            bound = node.getEstimate();
+            if (node.getHeuristic() == 0) {
+                SolverStatistics statistics = statistics(expanded, generated, table.size(), bound, start);
+                return new SolverResult(SolverResult.Status.SOLVED,
+                        generator.movesTo(node, model.getPlayerCell()), node.getPushes(), statistics);
+            }
+
+            children.clear();
+            generator.expand(node, children);
+            expanded++;
+            generated += children.size();
+            for (SearchNode child : children) {
+                if (table.improve(child)) {
+                    open.add(child);
+                }
+            }
+
+            if (expanded % CHECK_INTERVAL == 0) {
+                long now = System.nanoTime();
+                if (now - deadline > 0) {
+                    return new SolverResult(SolverResult.Status.TIME_LIMIT, null, -1,
+                            statistics(expanded, generated, table.size(), bound, start));
+                }
+                if (table.size() >= maxStates) {
+                    return new SolverResult(SolverResult.Status.STATE_LIMIT, null, -1,
+                            statistics(expanded, generated, table.size(), bound, start));
+                }
+                if (listener != null && now - nextReport >= 0) {
+                    listener.progress(statistics(expanded, generated, table.size(), bound, start));
+                    nextReport = now + progressIntervalMillis * 1_000_000;
+                }
+            }
+        }
+
+        return new SolverResult(SolverResult.Status.UNSOLVABLE, null, -1,
+                statistics(expanded, generated, table.size(), bound, start));
+    }
+
+    /**
+     * Creates a snapshot of the progress of the search.
+     *
+     * @param expanded      Number of nodes expanded.
+     * @param generated     Number of nodes generated.
+     * @param stored        Number of states stored.
+     * @param bound         Lowest estimate of the total pushes left to explore.
+     * @param start         Value of {@link System#nanoTime()} when the search started.
+     * @return              The {@link SolverStatistics}.
+     */
+    private static SolverStatistics statistics(long expanded, long generated, long stored, int bound, long start) {
+        return new SolverStatistics(expanded, generated, stored, bound, System.nanoTime() - start);
+    }
+
+    /**
+     * Solves a level read from two .txt files and prints the result, including the throughput
+     * in nodes per second.
+     *
+     * @param args the map file, the interactive file, optionally a time limit in seconds
+     *             optionally the name of a {@link Mode} and optionally a checkpoint file
+     * @throws IOException if an I/O error occurs while reading the files
+     */
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 2) {
+            System.out.println("Usage: java Solver <map.txt> <interactive.txt> [seconds] [mode] [checkpoint]");
+            return;
+        }
+
+        MapFileReader mfr = new MapFileReader(args[0], args[1]);
+        Model m = mfr.createModelFromFiles(mfr.mapFilePath, mfr.interactiveFilePath, 0, new File[0]);
+
+        Solver solver = new Solver(m);
+        if (args.length > 2) {
+            solver.setTimeLimit(Long.parseLong(args[2]) * 1000);
+        }
+        if (args.length > 3) {
+            solver.setMode(Mode.valueOf(args[3]));
+        }
+        if (args.length > 4) {
+            solver.setCheckpointFile(Path.of(args[4]));
+        }
+        solver.setListener(statistics -> System.out.println(statistics), 1000);
+
+        SolverResult result = solver.solve();
+        System.out.println(result);
+        if (solver.getTranspositionTable() != null) {
+            System.out.println(solver.getTranspositionTable());
+        }
+        if (solver.getBidirectionalSearch() != null) {
+            System.out.println(solver.getBidirectionalSearch());
+        }
+        if (result.getMoves() != null) {
+            System.out.println(result.getMoves());
+        }
+    }
+}
\ No newline at end of file
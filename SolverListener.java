@@ -0,0 +1,14 @@
+/**
+ * The {@code SolverListener} interface defines the contract for an observer that receives
+ * the progress of a search for a solution.
+ */
+public interface SolverListener {
+
+    /**
+     * Notifies the listener about the progress of the search.
+     *
+     * @param statistics
+     *      Snapshot of the progress
+     */
+    void progress(SolverStatistics statistics);
+}
\ No newline at end of file
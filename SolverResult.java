@@ -0,0 +1,109 @@
+/**
+ * The {@code SolverResult} class describes the outcome of a search for a solution: why the search
+ * stopped, the moves of the solution if one was found, and the {@link SolverStatistics} of the search.
+ */
+public class SolverResult {
+
+    /**
+     * The reasons a search can stop.
+     */
+    public enum Status {
+
+        /**
+         * A solution was found.
+         */
+        SOLVED,
+
+        /**
+         * Every reachable state was explored without finding a solution.
+         */
+        UNSOLVABLE,
+
+        /**
+         * The time budget ran out.
+         */
+        TIME_LIMIT,
+
+        /**
+         * The budget of stored states ran out.
+         */
+        STATE_LIMIT
+    }
+
+    /**
+     * Why the search stopped.
+     */
+    private final Status status;
+
+    /**
+     * Moves of the solution, or {@code null}.
+     */
+    private final String moves;
+
+    /**
+     * Number of pushes of the solution, or -1.
+     */
+    private final int pushes;
+
+    /**
+     * Statistics of the search.
+     */
+    private final SolverStatistics statistics;
+
+    /**
+     * Constructs a {@link SolverResult}.
+     *
+     * @param status        Why the search stopped.
+     * @param moves         Moves of the solution, or {@code null} if none was found.
+     * @param pushes        Number of pushes of the solution, or -1 if none was found.
+     * @param statistics    Statistics of the search.
+     */
+    public SolverResult(Status status, String moves, int pushes, SolverStatistics statistics) {
+        this.status = status;
+        this.moves = moves;
+        this.pushes = pushes;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns why the search stopped.
+     *
+     * @return The status of the search.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the moves of the solution in LURD notation: one character per step,
+     * in upper case for pushes. They can be replayed with {@link GameEngine#apply(CharSequence)}.
+     *
+     * @return The moves, or {@code null} if no solution was found.
+     */
+    public String getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the number of pushes of the solution.
+     *
+     * @return The number of pushes, or -1 if no solution was found.
+     */
+    public int getPushes() {
+        return pushes;
+    }
+
+    /**
+     * Returns the statistics of the search.
+     *
+     * @return The {@link SolverStatistics}.
+     */
+    public SolverStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public String toString() {
+        return status + (moves != null ? " pushes=" + pushes + " moves=" + moves.length() : "") + " " + statistics;
+    }
+}
\ No newline at end of file
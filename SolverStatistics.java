@@ -0,0 +1,109 @@
+/**
+ * The {@code SolverStatistics} class is a snapshot of the progress of a search for a solution,
+ * reported to a {@link SolverListener} while searching and included in the {@link SolverResult}.
+ */
+public class SolverStatistics {
+
+    /**
+     * Number of nodes expanded.
+     */
+    private final long expanded;
+
+    /**
+     * Number of nodes generated.
+     */
+    private final long generated;
+
+    /**
+     * Number of states currently stored by the search.
+     */
+    private final long stored;
+
+    /**
+     * Lowest estimate of the total pushes among the nodes left to expand.
+     */
+    private final int bound;
+
+    /**
+     * Time spent searching in nanoseconds.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * Constructs a {@link SolverStatistics} snapshot.
+     *
+     * @param expanded      Number of nodes expanded.
+     * @param generated     Number of nodes generated.
+     * @param stored        Number of states stored.
+     * @param bound         Lowest estimate of the total pushes left to explore.
+     * @param elapsedNanos  Time spent searching in nanoseconds.
+     */
+    public SolverStatistics(long expanded, long generated, long stored, int bound, long elapsedNanos) {
+        this.expanded = expanded;
+        this.generated = generated;
+        this.stored = stored;
+        this.bound = bound;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of nodes expanded.
+     *
+     * @return The number of expanded nodes.
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * Returns the number of nodes generated.
+     *
+     * @return The number of generated nodes.
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * Returns the number of states stored by the search.
+     *
+     * @return The number of stored states.
+     */
+    public long getStored() {
+        return stored;
+    }
+
+    /**
+     * Returns the lowest estimate of the total pushes among the nodes left to expand.
+     * No solution with fewer pushes exists.
+     *
+     * @return The lower bound of the solution length.
+     */
+    public int getBound() {
+        return bound;
+    }
+
+    /**
+     * Returns the time spent searching.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the search throughput.
+     *
+     * @return The number of nodes expanded per second.
+     */
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : expanded * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("expanded=%d generated=%d stored=%d bound=%d time=%.3fs nodes/s=%.0f",
+                expanded, generated, stored, bound, elapsedNanos / 1e9, getNodesPerSecond());
+    }
+}
\ No newline at end of file
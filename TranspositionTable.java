@@ -0,0 +1,40 @@
+/**
+ * The {@code TranspositionTable} interface defines the contract for a table recording the fewest pushes
+ * with which every state has been reached during a search, so that states reached again with as many
+ * or more pushes can be skipped.
+ */
+public interface TranspositionTable {
+
+    /**
+     * Records a node if its state has not been reached with as few pushes before.
+     *
+     * @param node
+     *      The node reached
+     * @return
+     *      true if the node was recorded and should be explored, false if it can be skipped
+     */
+    boolean improve(SearchNode node);
+
+    /**
+     * Returns the fewest pushes recorded for the state of a node.
+     *
+     * @param node
+     *      The node to look up
+     * @return
+     *      The number of pushes, or -1 if the state is not in the table
+     */
+    int lookup(SearchNode node);
+
+    /**
+     * Returns the number of states stored.
+     *
+     * @return
+     *      The number of states
+     */
+    long size();
+
+    /**
+     * Removes every state.
+     */
+    void clear();
+}
\ No newline at end of file
@@ -1,4 +1,3 @@
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -7,6 +6,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.io.File;
 import java.io.IOException;
+import java.io.Serial;
 import java.io.Serializable;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
@@ -30,6 +30,16 @@ public abstract class View implements Serializable {
      */
     public abstract void resetPressed();
 
+    /**
+     * Notifies the view that the "Undo" key has been pressed.
+     */
+    public abstract void undoPressed();
+
+    /**
+     * Notifies the view that the "Redo" key has been pressed.
+     */
+    public abstract void redoPressed();
+
     /**
      * Notifies the view that the up arrow key has been pressed.
      */
@@ -92,9 +102,9 @@ public abstract class View implements Serializable {
     public abstract void consoleGameControllerWin();
 
     /**
-     * Array of {@link Model}s that represents the levels of the game.
+     * {@link LevelRepository} loading the levels of the game.
      */
-    private final Model[] models;
+    private final transient LevelRepository levels;
 
     /**
      * Current {@link Model} being displayed.
@@ -127,21 +137,22 @@ public abstract class View implements Serializable {
      */
     private final JFileChooser fileChooser;
     /**
-     * Constructs a View object with the given data model.
+     * Constructs a View object showing the first level of a level repository.
      *
-     * @param dataModel the array of data models
+     * @param levels the repository loading the levels of the game
      * @throws IOException if an I/O error occurs while constructing the view
      */
-    public View(Model[] dataModel) throws IOException {
+    public View(LevelRepository levels) throws IOException {
 
-        this.models = dataModel;
-        this.currentModel = dataModel[0];
+        this.levels = levels;
+        this.currentModel = levels.getLevel(0);
 
         Color backgroundColor = new Color(222, 214, 173);
 
         this.fileChooser = new JFileChooser("save_files/");
         fileChooser.setBackground(backgroundColor);
-        FileNameExtensionFilter filter = new FileNameExtensionFilter(".dat", "dat");
+        FileNameExtensionFilter filter = new FileNameExtensionFilter(
+                "." + SaveGame.EXTENSION + ", ." + SaveGame.LEGACY_EXTENSION, SaveGame.EXTENSION, SaveGame.LEGACY_EXTENSION);
         fileChooser.setFileFilter(filter);
 
         this.frame = new JFrame();
@@ -150,7 +161,7 @@ public abstract class View implements Serializable {
 
         this.currentLevel = new JLabel("Level " + (currentModel.getLevel() + 1) + " ");
 
-        JLabel resetMessage = new JLabel("Press \"r\" to reset");
+        JLabel resetMessage = new JLabel("Press \"r\" to reset, \"z\" to undo, \"y\" to redo");
 
         JPanel topPanel = new JPanel();
         topPanel.setLayout(new BorderLayout());
@@ -178,6 +189,8 @@ public abstract class View implements Serializable {
                     case KeyEvent.VK_LEFT -> leftArrowKeyPressed();
                     case KeyEvent.VK_RIGHT -> rightArrowKeyPressed();
                     case KeyEvent.VK_R -> resetPressed();
+                    case KeyEvent.VK_Z -> undoPressed();
+                    case KeyEvent.VK_Y -> redoPressed();
                 }
             }
 
@@ -187,12 +200,8 @@ public abstract class View implements Serializable {
             }
         });
 
-        String[] levels = new String[models.length];
-        for (int i = 0; i < models.length; i++) {
-            levels[i] = new String("Level " + (models[i].getLevel() + 1));
-        }
-
-        JComboBox<String> levelSelector = new JComboBox<String>(levels);
+        JComboBox<String> levelSelector = new JComboBox<String>(new LevelSelectorModel(levels.getLevelCount()));
+        levelSelector.setPrototypeDisplayValue("Level " + levels.getLevelCount());
         levelSelector.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -234,8 +243,9 @@ public abstract class View implements Serializable {
             public void actionPerformed(ActionEvent e) {
                 fileChooser.showSaveDialog(null);
                 File savedFile = fileChooser.getSelectedFile();
-                if (!savedFile.getAbsolutePath().toLowerCase().endsWith(".dat")) {
-                    savedFile = new File(savedFile.getAbsolutePath() + ".dat");
+                String name = savedFile.getAbsolutePath().toLowerCase();
+                if (!name.endsWith("." + SaveGame.EXTENSION) && !name.endsWith("." + SaveGame.LEGACY_EXTENSION)) {
+                    savedFile = new File(savedFile.getAbsolutePath() + "." + SaveGame.EXTENSION);
                 }
 
                 saveButtonPressed(savedFile);
@@ -257,11 +267,11 @@ public abstract class View implements Serializable {
                         extension = fileChooser.getSelectedFile().getPath().substring(i+1);
                     }
 
-                    if (extension.equals("dat")) {
+                    if (extension.equals(SaveGame.EXTENSION) || extension.equals(SaveGame.LEGACY_EXTENSION)) {
                         correctFileExtension = true;
                     } else {
                         extension = "";
-                        warningMessage("Please select a .dat file!");
+                        warningMessage("Please select a ." + SaveGame.EXTENSION + " or ." + SaveGame.LEGACY_EXTENSION + " file!");
                     }
                 }
 
@@ -351,7 +361,7 @@ public abstract class View implements Serializable {
 
         frame.setTitle("Sokoban");
 
-        Image image = ImageIO.read(models[0].getFiles()[2]);
+        Image image = IconSet.load(currentModel.getFiles()).getImage(IconSet.PLAYER);
         frame.setIconImage(image);
 
         UIManager.put("OptionPane.background", backgroundColor);
@@ -375,10 +385,10 @@ public abstract class View implements Serializable {
             GameGrid consoleViewMap = currentModel.getMap().clone();
             GameGrid consoleViewInteractive = currentModel.getInteractive().clone();
             GameGrid consoleView = consoleViewMap;
-            for (int i = 0; i < consoleView.getGrid().length; i++) {
-                for (int j = 0; j < consoleView.getGrid()[0].length; j++) {
-                    if (consoleViewInteractive.getValue(i, j) != null) {
-                        consoleView.setValue(i, j, consoleViewInteractive.getValue(i, j));
+            for (int i = 0; i < consoleView.getWidth(); i++) {
+                for (int j = 0; j < consoleView.getHeight(); j++) {
+                    if (consoleViewInteractive.getTile(i, j) != GameGrid.EMPTY) {
+                        consoleView.setTile(i, j, consoleViewInteractive.getTile(i, j));
                     }
                 }
             }
@@ -420,10 +430,12 @@ public abstract class View implements Serializable {
 
     /**
      * Sets the current data model and updates the current level label.
+     * The new model is displayed through the same view as the current one.
      *
      * @param dataModel the current data model
      */
     public void setModelView(Model dataModel) {
+        dataModel.setDisplayToConsole(currentModel.getDisplayToConsole());
         this.currentModel = dataModel;
         updateCurrentLvl();
     }
@@ -456,9 +468,7 @@ public abstract class View implements Serializable {
      */
     public void consoleGameView() {
 
-        for (Model m : models) {
-            m.setDisplayToConsole(!m.getDisplayToConsole());
-        }
+        currentModel.setDisplayToConsole(!currentModel.getDisplayToConsole());
 
         if (!currentModel.getDisplayToConsole()) {
             frame.setVisible(true);
@@ -467,9 +477,7 @@ public abstract class View implements Serializable {
             consoleGameController();
         }
 
-        for (Model m : models) {
-            m.setDisplayToConsole(!m.getDisplayToConsole());
-        }
+        currentModel.setDisplayToConsole(!currentModel.getDisplayToConsole());
 
         frame.setVisible(true);
     }
@@ -496,4 +504,55 @@ public abstract class View implements Serializable {
             JOptionPane.showMessageDialog(frame, message, "Information", JOptionPane.INFORMATION_MESSAGE);
         }
     }
+
+    /**
+     * The {@code LevelSelectorModel} class lists the levels of the pack in the level selector.
+     * The name of a level is only created when it is shown, so a pack of many levels needs no array of names.
+     */
+    private static class LevelSelectorModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Number of levels in the pack.
+         */
+        private final int levelCount;
+
+        /**
+         * Name of the selected level, or {@code null}.
+         */
+        private Object selected;
+
+        /**
+         * Constructs a {@link LevelSelectorModel} with the first level selected.
+         *
+         * @param levelCount number of levels in the pack
+         */
+        LevelSelectorModel(int levelCount) {
+            this.levelCount = levelCount;
+            this.selected = levelCount > 0 ? getElementAt(0) : null;
+        }
+
+        @Override
+        public int getSize() {
+            return levelCount;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            return "Level " + (index + 1);
+        }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            selected = item;
+            fireContentsChanged(this, -1, -1);
+        }
+
+        @Override
+        public Object getSelectedItem() {
+            return selected;
+        }
+    }
 }
\ No newline at end of file
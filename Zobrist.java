@@ -0,0 +1,70 @@
+/**
+ * The {@code Zobrist} class provides the 64-bit Zobrist keys used to hash the positions of the boxes
+ * and the player. The hash of a position is the exclusive or of the key of every box cell and the key
+ * of the normalized player cell, so moving a box changes the hash by two exclusive ors.
+ *
+ * <p>
+ * The keys are computed from the cell index by a fixed mixing function instead of being drawn at random,
+ * so the same position has the same hash in every run of the program.
+ * </p>
+ */
+public class Zobrist {
+
+    /**
+     * Seed mixed into every key.
+     */
+    private static final long SEED = 0x5B0C0BA5EED5L;
+
+    /**
+     * Hidden constructor, the class only has static methods.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a box on a cell.
+     *
+     * @param cell  The cell index.
+     * @return      The 64-bit key.
+     */
+    public static long boxKey(int cell) {
+        return mix(SEED + 2L * cell);
+    }
+
+    /**
+     * Returns the key of the normalized player on a cell.
+     *
+     * @param cell  The cell index.
+     * @return      The 64-bit key.
+     */
+    public static long playerKey(int cell) {
+        return mix(SEED + 2L * cell + 1);
+    }
+
+    /**
+     * Returns the combined key of boxes on the given cells.
+     *
+     * @param boxes     Cell indices of the boxes.
+     * @return          The exclusive or of the key of every box.
+     */
+    public static long boxHash(int[] boxes) {
+        long hash = 0;
+        for (int box : boxes) {
+            hash ^= boxKey(box);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Mixes a value into a well distributed 64-bit key (the SplitMix64 finalizer).
+     *
+     * @param z     The value.
+     * @return      The key.
+     */
+    private static long mix(long z) {
+        z = (z + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+/**
+ * The {@code AllTests} class runs every test of the game. The tests need no display and no test framework;
+ * compile them together with the game and run this class:
+ *
+ * <pre>
+ * javac -d out *.java test/*.java
+ * java -cp out AllTests
+ * </pre>
+ *
+ * A failing check throws an {@link AssertionError}, which ends the run with a non-zero exit code.
+ */
+public class AllTests {
+
+    /**
+     * Runs every test.
+     *
+     * @param args  Not used.
+     * @throws Exception if a test fails.
+     */
+    public static void main(String[] args) throws Exception {
+        GameEngineTest.main(args);
+        MoveJournalTest.main(args);
+        DeadlockDetectorTest.main(args);
+        SolverTest.main(args);
+        OffHeapTranspositionTableTest.main(args);
+        MapFileReaderTest.main(args);
+        LevelPackTest.main(args);
+        IndexedLevelPackTest.main(args);
+        LevelRepositoryTest.main(args);
+        SaveGameTest.main(args);
+        AutosaveJournalTest.main(args);
+        System.out.println("All tests passed");
+    }
+}
\ No newline at end of file
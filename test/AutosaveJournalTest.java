@@ -0,0 +1,170 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Tests of the frames written by {@link AutosaveJournal} and of replaying them.
+ */
+public class AutosaveJournalTest {
+
+    /**
+     * Commit interval long enough that only the tests commit.
+     */
+    private static final long NEVER = 3_600_000;
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     * @throws IOException if a file can not be handled.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("sokoban-test");
+        Path file = directory.resolve("pack.xsb");
+        Path journal = directory.resolve("autosave.journal");
+        try {
+            Files.writeString(file, LevelPackTest.PACK);
+            IndexedLevelPack pack = IndexedLevelPack.open(file, new File[0]);
+            movesAndUndosAreReplayed(pack, journal);
+            aTornFrameIsIgnored(pack, journal);
+            startingAgainReplacesTheJournal(pack, journal);
+            damagedJournalsAreRejected(pack, journal);
+        } finally {
+            Files.deleteIfExists(journal);
+            Files.deleteIfExists(directory.resolve("pack.xsb" + IndexedLevelPack.INDEX_SUFFIX));
+            Files.delete(file);
+            Files.delete(directory);
+        }
+        System.out.println("AutosaveJournalTest passed");
+    }
+
+    /**
+     * Checks that moves and undos written over several commits are replayed in order.
+     *
+     * @param pack      The pack of two levels.
+     * @param journal   The journal file.
+     * @throws IOException if the journal can not be handled.
+     */
+    private static void movesAndUndosAreReplayed(IndexedLevelPack pack, Path journal) throws IOException {
+        try (AutosaveJournal autosave = AutosaveJournal.open(journal, NEVER)) {
+            autosave.start(pack.getLevel(0), 0);
+            autosave.recordMove(Direction.RIGHT);
+            autosave.recordMove(Direction.RIGHT);
+            autosave.recordUndo();
+            autosave.commit();
+            autosave.recordMove(Direction.RIGHT);
+            autosave.recordMove(Direction.RIGHT);
+        }
+
+        SaveGame save = AutosaveJournal.replay(journal, new LevelRepository(pack));
+        TestSupport.checkEquals(0, save.getLevel(), "level");
+        TestSupport.checkEquals(3, save.getMoves(), "moves after one undo");
+        Model model = restore(pack, save);
+        TestSupport.checkEquals(11, model.getPlayerCell(), "player cell");
+        TestSupport.check(model.isSolved(), "the box is on its goal");
+    }
+
+    /**
+     * Checks that cutting the last frame anywhere replays the frames before it.
+     *
+     * @param pack      The pack of two levels.
+     * @param journal   The journal file.
+     * @throws IOException if the journal can not be handled.
+     */
+    private static void aTornFrameIsIgnored(IndexedLevelPack pack, Path journal) throws IOException {
+        long whole;
+        try (AutosaveJournal autosave = AutosaveJournal.open(journal, NEVER)) {
+            autosave.start(pack.getLevel(0), 0);
+            autosave.recordMove(Direction.RIGHT);
+            autosave.commit();
+            whole = Files.size(journal);
+            autosave.recordMove(Direction.RIGHT);
+            autosave.recordMove(Direction.RIGHT);
+            autosave.recordMove(Direction.LEFT);
+        }
+
+        long end = Files.size(journal);
+        TestSupport.check(end > whole + 1, "the last frame takes more than one byte");
+        for (long size = end - 1; size >= whole; size--) {
+            try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+                channel.truncate(size);
+            }
+            SaveGame save = AutosaveJournal.replay(journal, new LevelRepository(pack));
+            TestSupport.checkEquals(1, save.getMoves(), "moves with " + size + " bytes");
+            TestSupport.checkEquals(9, restore(pack, save).getPlayerCell(), "player cell with " + size + " bytes");
+        }
+    }
+
+    /**
+     * Checks that starting a level again drops the frames of the last start and keeps the moves made
+     * before the new start position.
+     *
+     * @param pack      The pack of two levels.
+     * @param journal   The journal file.
+     * @throws IOException if the journal can not be handled.
+     */
+    private static void startingAgainReplacesTheJournal(IndexedLevelPack pack, Path journal) throws IOException {
+        try (AutosaveJournal autosave = AutosaveJournal.open(journal, NEVER)) {
+            autosave.start(pack.getLevel(0), 0);
+            autosave.recordMove(Direction.RIGHT);
+            autosave.recordMove(Direction.RIGHT);
+            autosave.commit();
+            Model room = pack.getLevel(1);
+            new GameEngine(room).move(Direction.RIGHT);
+            autosave.start(room, 5);
+        }
+
+        SaveGame save = AutosaveJournal.replay(journal, new LevelRepository(pack));
+        TestSupport.checkEquals(1, save.getLevel(), "level of the new start");
+        TestSupport.checkEquals(5, save.getMoves(), "moves made before the new start");
+        TestSupport.checkEquals(17, restore(pack, save).getPlayerCell(), "player cell");
+    }
+
+    /**
+     * Checks that a missing or empty journal replays nothing and a damaged header is rejected.
+     *
+     * @param pack      The pack of two levels.
+     * @param journal   The journal file.
+     * @throws IOException if the journal can not be handled.
+     */
+    private static void damagedJournalsAreRejected(IndexedLevelPack pack, Path journal) throws IOException {
+        LevelRepository levels = new LevelRepository(pack);
+        Files.deleteIfExists(journal);
+        TestSupport.check(AutosaveJournal.replay(journal, levels) == null, "a missing journal");
+        Files.write(journal, new byte[0]);
+        TestSupport.check(AutosaveJournal.replay(journal, levels) == null, "an empty journal");
+
+        try (AutosaveJournal autosave = AutosaveJournal.open(journal, NEVER)) {
+            autosave.start(pack.getLevel(0), 0);
+        }
+        byte[] bytes = Files.readAllBytes(journal);
+        for (int size = 1; size < bytes.length; size++) {
+            byte[] start = Arrays.copyOf(bytes, size);
+            Files.write(journal, start);
+            TestSupport.checkThrows(IOException.class, () -> AutosaveJournal.replay(journal, levels),
+                    "start cut to " + size + " bytes");
+        }
+
+        bytes[0] ^= 1;
+        Files.write(journal, bytes);
+        TestSupport.checkThrows(IOException.class, () -> AutosaveJournal.replay(journal, levels), "bad magic");
+    }
+
+    /**
+     * Restores a replayed position into a newly parsed level.
+     *
+     * @param pack  The pack of two levels.
+     * @param save  The replayed position.
+     * @return      {@link Model} of the level in that position.
+     * @throws IOException if the position does not fit the level.
+     */
+    private static Model restore(IndexedLevelPack pack, SaveGame save) throws IOException {
+        Model model = pack.getLevel(save.getLevel());
+        save.restore(model);
+        return model;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+/**
+ * Tests of the freeze deadlocks found by {@link DeadlockDetector}.
+ */
+public class DeadlockDetectorTest {
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     */
+    public static void main(String[] args) {
+        boxesFrozenAgainstAWallAreADeadlock();
+        boxesFrozenOnMarkedTilesAreNotADeadlock();
+        aBoxThatCanStillMoveIsNotFrozen();
+        aFrozenBoxBehindABoxOnAMarkedTileIsADeadlock();
+        System.out.println("DeadlockDetectorTest passed");
+    }
+
+    /**
+     * Checks that two boxes side by side against a wall, off the marked tiles, are a deadlock.
+     */
+    private static void boxesFrozenAgainstAWallAreADeadlock() {
+        Model model = TestSupport.level("######|# $$.#|#   .#|#@   #|######");
+        TestSupport.check(!model.isDeadSquare(9), "the box is on a live tile");
+        TestSupport.check(isFreezeDeadlock(model, 9), "frozen pair");
+    }
+
+    /**
+     * Checks that boxes frozen on marked tiles are not a deadlock.
+     */
+    private static void boxesFrozenOnMarkedTilesAreNotADeadlock() {
+        Model model = TestSupport.level("#######|# **  #|#@    #|#######");
+        TestSupport.check(!isFreezeDeadlock(model, 9), "frozen pair on marked tiles");
+    }
+
+    /**
+     * Checks that a box against a wall that can still be pushed along it is not frozen.
+     */
+    private static void aBoxThatCanStillMoveIsNotFrozen() {
+        Model model = TestSupport.level("#######|# $ . #|#@    #|#######");
+        TestSupport.check(!isFreezeDeadlock(model, 9), "single box against the wall");
+    }
+
+    /**
+     * Checks that a frozen box off the marked tiles is found through a frozen box on a marked tile.
+     */
+    private static void aFrozenBoxBehindABoxOnAMarkedTileIsADeadlock() {
+        Model model = TestSupport.level("#######|##*####|##*@ .#|##$####|#######");
+        TestSupport.check(isFreezeDeadlock(model, 16), "frozen column with a box off the marked tiles");
+    }
+
+    /**
+     * Asks a new {@link DeadlockDetector} for the level whether a box is in a freeze deadlock.
+     *
+     * @param model     The level.
+     * @param box       The cell index of the box.
+     * @return          true if the box is part of a freeze deadlock, false otherwise.
+     */
+    private static boolean isFreezeDeadlock(Model model, int box) {
+        DeadlockDetector detector = new DeadlockDetector(model.getMap(), model.getDeadSquares());
+        return detector.isFreezeDeadlock(box, model::isBox);
+    }
+}
\ No newline at end of file
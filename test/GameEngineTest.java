@@ -0,0 +1,108 @@
+import java.util.Arrays;
+
+/**
+ * Tests of {@link GameEngine#apply(CharSequence)} and the batch use of the engine without a journal.
+ */
+public class GameEngineTest {
+
+    /**
+     * A corridor with the player, a box and a marked tile; the player stands on cell 8, the box on 10
+     * and the marked tile on 12.
+     */
+    private static final String CORRIDOR = "#######|#@ $ .#|#######";
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     */
+    public static void main(String[] args) {
+        applyCountsMovesAndPushes();
+        applySkipsBlockedMoves();
+        applyTakesDirectionOrdinals();
+        applyRejectsUnknownMoves();
+        movesWithoutJournalAreCountedButNotRecorded();
+        System.out.println("GameEngineTest passed");
+    }
+
+    /**
+     * Checks the moves, pushes and final state reported after a sequence of moves.
+     */
+    private static void applyCountsMovesAndPushes() {
+        GameEngine engine = new GameEngine(TestSupport.level(CORRIDOR));
+        GameEngine.Result result = engine.apply("rRR");
+
+        TestSupport.checkEquals(3, result.getMoves(), "moves");
+        TestSupport.checkEquals(2, result.getPushes(), "pushes");
+        TestSupport.check(result.getWin(), "the box is on the marked tile");
+        TestSupport.checkEquals(11, result.getPlayerCell(), "player cell");
+        TestSupport.checkEquals("[12]", Arrays.toString(result.getBoxCells()), "box cells");
+        TestSupport.checkEquals(3, engine.getMoveCount(), "move count");
+    }
+
+    /**
+     * Checks that moves into walls are skipped and not counted.
+     */
+    private static void applySkipsBlockedMoves() {
+        GameEngine engine = new GameEngine(TestSupport.level(CORRIDOR));
+        GameEngine.Result result = engine.apply("lUdr");
+
+        TestSupport.checkEquals(1, result.getMoves(), "moves");
+        TestSupport.checkEquals(0, result.getPushes(), "pushes");
+        TestSupport.checkEquals(9, result.getPlayerCell(), "player cell");
+        TestSupport.check(!result.getWin(), "the level is not completed");
+    }
+
+    /**
+     * Checks that moves given as {@link Direction} ordinals are applied like characters.
+     */
+    private static void applyTakesDirectionOrdinals() {
+        GameEngine engine = new GameEngine(TestSupport.level(CORRIDOR));
+        byte right = (byte) Direction.RIGHT.ordinal();
+        GameEngine.Result result = engine.apply(new byte[] {right, right, right});
+
+        TestSupport.checkEquals(2, result.getPushes(), "pushes");
+        TestSupport.check(result.getWin(), "the box is on the marked tile");
+    }
+
+    /**
+     * Checks that a sequence with an unknown move is rejected.
+     */
+    private static void applyRejectsUnknownMoves() {
+        GameEngine engine = new GameEngine(TestSupport.level(CORRIDOR));
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> engine.apply("rx"), "unknown character");
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> engine.apply(new byte[] {4}),
+                "unknown direction");
+    }
+
+    /**
+     * Checks that moves made with the journal turned off are counted, can not be undone and are reset.
+     */
+    private static void movesWithoutJournalAreCountedButNotRecorded() {
+        Model model = TestSupport.level(CORRIDOR);
+        GameEngine engine = new GameEngine(model);
+        engine.apply("r");
+        engine.setJournaling(false);
+        TestSupport.checkEquals(0, engine.getJournal().size(), "recorded moves are dropped");
+
+        engine.apply("RR");
+        TestSupport.checkEquals(0, engine.getJournal().size(), "journal size");
+        TestSupport.checkEquals(3, engine.getMoveCount(), "move count");
+        TestSupport.check(!engine.undo(), "nothing to undo");
+
+        engine.reset();
+        TestSupport.check(model.isInitialState(), "reset restores the initial state");
+        TestSupport.checkEquals(0, engine.getMoveCount(), "move count after reset");
+
+        engine.apply("R");
+        engine.reset();
+        TestSupport.check(model.isInitialState(), "a second reset restores the initial state");
+
+        engine.setJournaling(true);
+        engine.apply("rR");
+        TestSupport.check(engine.undo(), "journaled moves can be undone");
+        engine.reset();
+        TestSupport.check(model.isInitialState(), "reset rewinds the journal");
+        TestSupport.check(engine.redo(), "rewound moves can be redone");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests of the random access to the levels of a pack and of the index file of {@link IndexedLevelPack}.
+ */
+public class IndexedLevelPackTest {
+
+    /**
+     * A level added to the pack of {@link LevelPackTest#PACK}.
+     */
+    private static final String THIRD_LEVEL = "\nTitle: Third\n#####\n#@$.#\n#####\n";
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     * @throws IOException if a file can not be handled.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("sokoban-test");
+        Path file = directory.resolve("pack.xsb");
+        Path indexFile = directory.resolve("pack.xsb" + IndexedLevelPack.INDEX_SUFFIX);
+        try {
+            Files.writeString(file, LevelPackTest.PACK);
+            givesTheLevelsOfTheStreamingReader(file, indexFile);
+            reusesTheStoredIndex(file, indexFile);
+            rebuildsAnIndexThatDoesNotMatchThePack(file, indexFile);
+            rejectsLevelsOutOfRange(file);
+        } finally {
+            Files.deleteIfExists(indexFile);
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+        System.out.println("IndexedLevelPackTest passed");
+    }
+
+    /**
+     * Checks that every level, read in any order, is the level the streaming reader gives.
+     *
+     * @param file          The pack file.
+     * @param indexFile     The index file of the pack.
+     * @throws IOException if a file can not be handled.
+     */
+    private static void givesTheLevelsOfTheStreamingReader(Path file, Path indexFile) throws IOException {
+        List<Model> streamed = new ArrayList<>();
+        try (MapFileReader.LevelPack levels = MapFileReader.openPack(file.toString(), new File[0])) {
+            levels.forEachRemaining(streamed::add);
+        }
+
+        IndexedLevelPack pack = IndexedLevelPack.open(file, new File[0]);
+        TestSupport.check(Files.exists(indexFile), "the index is stored next to the pack");
+        TestSupport.checkEquals(streamed.size(), pack.getLevelCount(), "level count");
+        for (int level = pack.getLevelCount() - 1; level >= 0; level--) {
+            Model model = pack.getLevel(level);
+            TestSupport.checkEquals(level, model.getLevel(), "level ID");
+            TestSupport.checkEquals(SaveGame.contentHash(streamed.get(level)), SaveGame.contentHash(model),
+                    "content of level " + level);
+        }
+    }
+
+    /**
+     * Checks that opening the pack again uses the stored index instead of writing a new one.
+     *
+     * @param file          The pack file.
+     * @param indexFile     The index file of the pack.
+     * @throws IOException if a file can not be handled.
+     */
+    private static void reusesTheStoredIndex(Path file, Path indexFile) throws IOException {
+        FileTime marked = FileTime.fromMillis(Files.getLastModifiedTime(indexFile).toMillis() - 60_000);
+        Files.setLastModifiedTime(indexFile, marked);
+
+        IndexedLevelPack pack = IndexedLevelPack.open(file, new File[0]);
+        TestSupport.checkEquals(2, pack.getLevelCount(), "level count");
+        TestSupport.checkEquals(marked, Files.getLastModifiedTime(indexFile), "the index is not written again");
+    }
+
+    /**
+     * Checks that the index is built again when the pack grew or the index file is damaged.
+     *
+     * @param file          The pack file.
+     * @param indexFile     The index file of the pack.
+     * @throws IOException if a file can not be handled.
+     */
+    private static void rebuildsAnIndexThatDoesNotMatchThePack(Path file, Path indexFile) throws IOException {
+        Files.writeString(file, THIRD_LEVEL, StandardOpenOption.APPEND);
+        IndexedLevelPack grown = IndexedLevelPack.open(file, new File[0]);
+        TestSupport.checkEquals(3, grown.getLevelCount(), "level count after adding a level");
+        TestSupport.checkEquals(6, grown.getLevel(2).getPlayerCell(), "player of the added level");
+
+        Files.write(indexFile, new byte[64]);
+        IndexedLevelPack repaired = IndexedLevelPack.open(file, new File[0]);
+        TestSupport.checkEquals(3, repaired.getLevelCount(), "level count after damaging the index");
+    }
+
+    /**
+     * Checks that a level outside the pack is rejected.
+     *
+     * @param file  The pack file.
+     * @throws IOException if a file can not be handled.
+     */
+    private static void rejectsLevelsOutOfRange(Path file) throws IOException {
+        IndexedLevelPack pack = IndexedLevelPack.open(file, new File[0]);
+        TestSupport.checkThrows(IndexOutOfBoundsException.class, () -> pack.getLevel(-1), "level -1");
+        TestSupport.checkThrows(IndexOutOfBoundsException.class, () -> pack.getLevel(pack.getLevelCount()),
+                "level after the last");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Tests of reading levels in the XSB format with {@link MapFileReader} and streaming them from a
+ * {@link MapFileReader.LevelPack}.
+ */
+public class LevelPackTest {
+
+    /**
+     * A pack of two levels with titles, comments and blank lines around them.
+     */
+    static final String PACK = String.join("\n",
+            "; a pack of two levels",
+            "",
+            "Title: Corridor",
+            "#######",
+            "#@ $ .#",
+            "#######",
+            "",
+            "",
+            "Title: Room",
+            "Author: nobody",
+            "  #####",
+            "###   #",
+            "#.@$  #",
+            "#####-#",
+            "    ###",
+            "");
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     * @throws IOException if the pack file can not be handled.
+     */
+    public static void main(String[] args) throws IOException {
+        recognizesRows();
+        expandsRunLengthsAndRowEnds();
+        readsEveryTile();
+        rejectsUnknownTiles();
+        streamsEveryLevelOfAPack();
+        System.out.println("LevelPackTest passed");
+    }
+
+    /**
+     * Checks which lines are taken as rows of a level.
+     */
+    private static void recognizesRows() {
+        TestSupport.check(MapFileReader.isXsbRow("  #####"), "row");
+        TestSupport.check(MapFileReader.isXsbRow("3#|#@$.#|4#"), "row with run lengths");
+        TestSupport.check(!MapFileReader.isXsbRow(""), "blank line");
+        TestSupport.check(!MapFileReader.isXsbRow("   "), "row without a wall");
+        TestSupport.check(!MapFileReader.isXsbRow("Title: Level 1"), "title");
+        TestSupport.check(!MapFileReader.isXsbRow("; #comment"), "comment");
+    }
+
+    /**
+     * Checks that run lengths are expanded and {@code '|'} splits rows.
+     */
+    private static void expandsRunLengthsAndRowEnds() {
+        List<String> rows = new ArrayList<>();
+        MapFileReader.expandXsbRow("5#|#@$.#|12#", rows);
+        TestSupport.checkEquals(List.of("#####", "#@$.#", "############"), rows, "rows");
+    }
+
+    /**
+     * Checks every tile character, and that short rows are padded.
+     */
+    private static void readsEveryTile() {
+        Model model = TestSupport.level("########|#+*$.-_#|######");
+
+        TestSupport.checkEquals(8, model.getMap().getWidth(), "width");
+        TestSupport.checkEquals(9, model.getPlayerCell(), "player on a marked tile");
+        TestSupport.check(model.isGoal(9), "marked tile under the player");
+        TestSupport.check(model.isBox(10) && model.isGoal(10), "box on a marked tile");
+        TestSupport.check(model.isBox(11) && !model.isGoal(11), "box");
+        TestSupport.check(model.isGoal(12) && !model.isBox(12), "marked tile");
+        TestSupport.checkEquals(0, (int) model.getMap().getTile(13), "floor");
+        TestSupport.checkEquals(0, (int) model.getMap().getTile(14), "floor");
+        TestSupport.checkEquals(0, (int) model.getMap().getTile(22), "padding");
+    }
+
+    /**
+     * Checks that a level with an unknown tile is rejected.
+     */
+    private static void rejectsUnknownTiles() {
+        TestSupport.checkThrows(IllegalArgumentException.class,
+                () -> MapFileReader.createModelFromXsb(List.of("#####", "#@x.#", "#####"), 0, new File[0]),
+                "unknown tile");
+    }
+
+    /**
+     * Checks that a pack yields its levels in order, numbered from 0, and then ends.
+     *
+     * @throws IOException if the pack file can not be handled.
+     */
+    private static void streamsEveryLevelOfAPack() throws IOException {
+        Path file = Files.createTempFile("sokoban-test", ".xsb");
+        Files.writeString(file, PACK);
+        try (MapFileReader.LevelPack pack = MapFileReader.openPack(file.toString(), new File[0])) {
+            TestSupport.check(pack.hasNext(), "first level");
+            Model corridor = pack.next();
+            TestSupport.checkEquals(0, corridor.getLevel(), "first level ID");
+            TestSupport.checkEquals(7, corridor.getMap().getWidth(), "first level width");
+
+            TestSupport.check(pack.hasNext(), "second level");
+            Model room = pack.next();
+            TestSupport.checkEquals(1, room.getLevel(), "second level ID");
+            TestSupport.checkEquals(5, room.getMap().getHeight(), "second level height");
+            TestSupport.checkEquals(16, room.getPlayerCell(), "second level player");
+
+            TestSupport.check(!pack.hasNext(), "end of the pack");
+            TestSupport.checkThrows(NoSuchElementException.class, pack::next, "next after the end");
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
\ No newline at end of file
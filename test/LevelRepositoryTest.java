@@ -0,0 +1,84 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests of the cache of parsed levels in {@link LevelRepository}.
+ */
+public class LevelRepositoryTest {
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     * @throws IOException if the pack file can not be handled.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("sokoban-test");
+        Path file = directory.resolve("pack.xsb");
+        try {
+            Files.writeString(file, LevelPackTest.PACK);
+            IndexedLevelPack pack = IndexedLevelPack.open(file, new File[0]);
+            answersRepeatedLevelsFromTheCache(pack);
+            evictsTheLeastRecentlyUsedLevel(pack);
+            prefetchFillsTheCacheWithoutEvicting(pack);
+        } finally {
+            Files.deleteIfExists(directory.resolve("pack.xsb" + IndexedLevelPack.INDEX_SUFFIX));
+            Files.delete(file);
+            Files.delete(directory);
+        }
+        System.out.println("LevelRepositoryTest passed");
+    }
+
+    /**
+     * Checks that a level asked for twice is parsed once.
+     *
+     * @param pack  The pack of two levels.
+     */
+    private static void answersRepeatedLevelsFromTheCache(IndexedLevelPack pack) {
+        LevelRepository levels = new LevelRepository(pack);
+        Model first = levels.getLevel(1);
+
+        TestSupport.check(levels.getLevel(1) == first, "the cached model is handed out");
+        TestSupport.check(levels.isCached(1), "level 1 is cached");
+        TestSupport.check(!levels.isCached(0), "level 0 is not cached");
+        TestSupport.check(levels.toString().contains("loads=1, hits=1"), "statistics: " + levels);
+        TestSupport.checkThrows(IndexOutOfBoundsException.class, () -> levels.getLevel(2), "level after the last");
+
+        levels.clear();
+        TestSupport.checkEquals(0, levels.getCachedCount(), "cached levels after clear");
+        TestSupport.checkEquals(0L, levels.getCachedBytes(), "cached bytes after clear");
+    }
+
+    /**
+     * Checks that a cache too small for two levels keeps only the level loaded last.
+     *
+     * @param pack  The pack of two levels.
+     */
+    private static void evictsTheLeastRecentlyUsedLevel(IndexedLevelPack pack) {
+        LevelRepository levels = new LevelRepository(pack, 1);
+        levels.getLevel(0);
+        levels.getLevel(1);
+
+        TestSupport.checkEquals(1, levels.getCachedCount(), "cached levels");
+        TestSupport.check(levels.isCached(1), "the level loaded last is kept");
+        TestSupport.check(!levels.isCached(0), "the other level is evicted");
+    }
+
+    /**
+     * Checks that prefetching caches the levels that fit and counts only those as loaded.
+     *
+     * @param pack  The pack of two levels.
+     */
+    private static void prefetchFillsTheCacheWithoutEvicting(IndexedLevelPack pack) {
+        LevelRepository roomy = new LevelRepository(pack);
+        roomy.prefetch(0, 10).join();
+        TestSupport.checkEquals(2, roomy.getCachedCount(), "every level is prefetched");
+
+        LevelRepository full = new LevelRepository(pack, 1);
+        full.prefetch(0, 2).join();
+        TestSupport.checkEquals(0, full.getCachedCount(), "no level fits");
+        TestSupport.check(full.toString().contains("loads=0"), "levels that do not fit are not counted: " + full);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Tests of reading the level files of the {@code levels/custom} format with {@link MapFileReader}.
+ */
+public class MapFileReaderTest {
+
+    /**
+     * Map of a corridor, one row per line with the words of the tiles separated by spaces.
+     */
+    private static final String[] MAP = {
+            "wall wall wall wall wall",
+            "wall null null redmarker wall",
+            "wall wall wall wall wall"
+    };
+
+    /**
+     * Interactive map of the corridor: the player on cell 6 and a box on cell 7.
+     */
+    private static final String[] INTERACTIVE = {
+            "null null null null null",
+            "null player box null null",
+            "null null null null null"
+    };
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     * @throws IOException if a level file can not be handled.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("sokoban-test");
+        try {
+            readsALevel(directory);
+            skipsBlankLinesAndCarriageReturns(directory);
+            rejectsRowsOfDifferentLengths(directory);
+            rejectsUnknownTiles(directory);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+        System.out.println("MapFileReaderTest passed");
+    }
+
+    /**
+     * Checks the tiles, marked tiles, boxes and player read from a pair of level files.
+     *
+     * @param directory     Directory for the level files.
+     * @throws IOException if a level file can not be handled.
+     */
+    private static void readsALevel(Path directory) throws IOException {
+        String map = write(directory, "map.txt", MAP, "\n");
+        Model model = read(map, write(directory, "interactive.txt", INTERACTIVE, "\n"));
+
+        TestSupport.checkEquals(5, model.getMap().getWidth(), "width");
+        TestSupport.checkEquals(3, model.getMap().getHeight(), "height");
+        TestSupport.checkEquals(6, model.getPlayerCell(), "player cell");
+        TestSupport.checkEquals(1, model.getBoxCount(), "boxes");
+        TestSupport.checkEquals(7, model.getBoxCell(0), "box cell");
+        TestSupport.check(model.isGoal(8), "marked tile");
+        TestSupport.check((model.getMap().getTile(0) & GameGrid.WALL) != 0, "wall");
+    }
+
+    /**
+     * Checks that blank lines and Windows line ends do not change the level.
+     *
+     * @param directory     Directory for the level files.
+     * @throws IOException if a level file can not be handled.
+     */
+    private static void skipsBlankLinesAndCarriageReturns(Path directory) throws IOException {
+        String plain = write(directory, "plain.txt", MAP, "\n");
+        String spaced = write(directory, "spaced.txt", MAP, "\r\n\r\n");
+        MapFileReader reader = new MapFileReader(plain, spaced);
+
+        TestSupport.check(Arrays.deepEquals(reader.readMapFile(plain), reader.readMapFile(spaced)), "same tiles");
+        Model model = read(spaced, write(directory, "interactive.txt", INTERACTIVE, "\n\n"));
+        TestSupport.checkEquals(6, model.getPlayerCell(), "player cell");
+        TestSupport.checkEquals(7, model.getBoxCell(0), "box cell");
+    }
+
+    /**
+     * Checks that a level file whose rows are not all as long is rejected.
+     *
+     * @param directory     Directory for the level files.
+     * @throws IOException if a level file can not be handled.
+     */
+    private static void rejectsRowsOfDifferentLengths(Path directory) throws IOException {
+        String[] ragged = {MAP[0], "wall null wall", MAP[2]};
+        String map = write(directory, "ragged.txt", ragged, "\n");
+        TestSupport.checkThrows(IOException.class, () -> new MapFileReader(map, map).readMapFile(map), "ragged rows");
+    }
+
+    /**
+     * Checks that a level file with an unknown tile is rejected.
+     *
+     * @param directory     Directory for the level files.
+     * @throws IOException if a level file can not be handled.
+     */
+    private static void rejectsUnknownTiles(Path directory) throws IOException {
+        String[] unknown = {MAP[0], "wall null lava redmarker wall", MAP[2]};
+        String map = write(directory, "unknown.txt", unknown, "\n");
+        TestSupport.checkThrows(IllegalArgumentException.class, () -> new MapFileReader(map, map).readMapFile(map),
+                "unknown tile");
+    }
+
+    /**
+     * Writes a level file, one word per line and {@code "next"} between the rows.
+     *
+     * @param directory     Directory of the file.
+     * @param name          Name of the file.
+     * @param rows          The rows, with the words separated by spaces.
+     * @param lineEnd       The line end written after every word.
+     * @return              The path name of the file.
+     * @throws IOException if the file can not be written.
+     */
+    private static String write(Path directory, String name, String[] rows, String lineEnd) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < rows.length; i++) {
+            if (i > 0) {
+                text.append("next").append(lineEnd);
+            }
+            for (String word : rows[i].split(" ")) {
+                text.append(word).append(lineEnd);
+            }
+        }
+
+        Path file = directory.resolve(name);
+        Files.writeString(file, text);
+        return file.toString();
+    }
+
+    /**
+     * Creates a {@link Model} from a pair of level files.
+     *
+     * @param map           Path name of the map file.
+     * @param interactive   Path name of the interactive map file.
+     * @return              The {@link Model}.
+     * @throws IOException if a file can not be read.
+     */
+    private static Model read(String map, String interactive) throws IOException {
+        return new MapFileReader(map, interactive).createModelFromFiles(map, interactive, 0, new File[0]);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,140 @@
+/**
+ * Tests of the {@link MoveJournal} and of undo, redo and reset in {@link GameEngine}.
+ */
+public class MoveJournalTest {
+
+    /**
+     * Two boxes beside the player; pushing the left one against the wall makes the level unsolvable.
+     * The left box stands on cell 16, the player on 17 and the right box on 18.
+     */
+    private static final String TWO_BOXES = "#######|#     #|# $@$ #|# ..  #|#######";
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     */
+    public static void main(String[] args) {
+        journalKeepsEntriesBeyondItsFirstSize();
+        recordingDropsUndoneEntries();
+        undoWithoutEntriesFails();
+        undoAndRedoRestoreTheState();
+        stuckIsRecomputedOverEveryBox();
+        resetRewindsTheJournal();
+        System.out.println("MoveJournalTest passed");
+    }
+
+    /**
+     * Checks that the journal grows and keeps every entry.
+     */
+    private static void journalKeepsEntriesBeyondItsFirstSize() {
+        MoveJournal journal = new MoveJournal();
+        for (int i = 0; i < 1000; i++) {
+            journal.record(i, i + 1, i % 2 == 0 ? -1 : i + 1, i % 2 == 0 ? -1 : i + 2);
+        }
+
+        TestSupport.checkEquals(1000, journal.size(), "size");
+        for (int i = 999; i >= 0; i--) {
+            journal.undo();
+            TestSupport.checkEquals(i, journal.getPlayerFrom(journal.getCursor()), "player from");
+            TestSupport.checkEquals(i % 2 == 0 ? -1 : i + 2, journal.getBoxTo(journal.getCursor()), "box to");
+        }
+        TestSupport.check(!journal.canUndo(), "every entry is undone");
+        TestSupport.check(journal.canRedo(), "the entries can be redone");
+    }
+
+    /**
+     * Checks that a move recorded after an undo replaces the undone entries.
+     */
+    private static void recordingDropsUndoneEntries() {
+        MoveJournal journal = new MoveJournal();
+        journal.record(1, 2, -1, -1);
+        journal.record(2, 3, -1, -1);
+        journal.undo();
+        journal.record(2, 9, -1, -1);
+
+        TestSupport.checkEquals(2, journal.size(), "size");
+        TestSupport.check(!journal.canRedo(), "nothing to redo");
+        TestSupport.checkEquals(9, journal.getPlayerTo(1), "player to");
+
+        journal.clear();
+        TestSupport.checkEquals(0, journal.size(), "size after clear");
+        TestSupport.check(!journal.canUndo(), "nothing to undo after clear");
+    }
+
+    /**
+     * Checks that undoing or redoing past the ends of the journal is rejected.
+     */
+    private static void undoWithoutEntriesFails() {
+        MoveJournal journal = new MoveJournal();
+        TestSupport.checkThrows(IllegalStateException.class, journal::undo, "undo");
+        TestSupport.checkThrows(IllegalStateException.class, journal::redo, "redo");
+    }
+
+    /**
+     * Checks that undo and redo move the player and the boxes back and forth.
+     */
+    private static void undoAndRedoRestoreTheState() {
+        Model model = TestSupport.level(TWO_BOXES);
+        GameEngine engine = new GameEngine(model);
+        engine.apply("urD");
+        long pushed = model.getHash();
+
+        TestSupport.checkEquals(Direction.DOWN, engine.getLastDirection(), "last direction");
+        for (int i = 0; i < 3; i++) {
+            TestSupport.check(engine.undo(), "undo " + i);
+        }
+        TestSupport.check(model.isInitialState(), "every move is undone");
+        TestSupport.check(!engine.undo(), "nothing more to undo");
+        TestSupport.checkEquals(0, engine.getMoveCount(), "move count");
+
+        for (int i = 0; i < 3; i++) {
+            TestSupport.check(engine.redo(), "redo " + i);
+        }
+        TestSupport.check(!engine.redo(), "nothing more to redo");
+        TestSupport.checkEquals(pushed, model.getHash(), "every move is redone");
+        TestSupport.checkEquals(3, engine.getMoveCount(), "move count");
+        TestSupport.check(model.isBox(25), "the right box is pushed down");
+    }
+
+    /**
+     * Checks that undoing a push keeps the level stuck while another box is still in a deadlock,
+     * and that undoing the push into the deadlock clears it.
+     */
+    private static void stuckIsRecomputedOverEveryBox() {
+        Model model = TestSupport.level(TWO_BOXES);
+        GameEngine engine = new GameEngine(model);
+        TestSupport.check(model.isDeadSquare(15), "the tile left of the left box is dead");
+
+        engine.apply("L");
+        TestSupport.check(model.getStuck(), "the left box is stuck");
+        engine.apply("urrD");
+        TestSupport.check(model.getStuck(), "still stuck after another push");
+
+        engine.undo();
+        TestSupport.check(model.getStuck(), "still stuck after undoing the other push");
+        engine.undo();
+        engine.undo();
+        engine.undo();
+        engine.undo();
+        TestSupport.check(!model.getStuck(), "not stuck after undoing the push into the deadlock");
+
+        engine.redo();
+        TestSupport.check(model.getStuck(), "stuck again after redoing it");
+    }
+
+    /**
+     * Checks that a reset rewinds the journal so the moves can be redone.
+     */
+    private static void resetRewindsTheJournal() {
+        Model model = TestSupport.level(TWO_BOXES);
+        GameEngine engine = new GameEngine(model);
+        engine.apply("L");
+        engine.reset();
+
+        TestSupport.check(model.isInitialState(), "initial state");
+        TestSupport.check(!model.getStuck(), "not stuck");
+        TestSupport.check(engine.redo(), "the push can be redone");
+        TestSupport.check(model.getStuck(), "stuck after redoing the push");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+/**
+ * Tests of the {@link OffHeapTranspositionTable}, fixed in size and growing on demand.
+ */
+public class OffHeapTranspositionTableTest {
+
+    /**
+     * Number of cells of the states stored.
+     */
+    private static final int CELLS = 200;
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     */
+    public static void main(String[] args) {
+        improveKeepsTheFewestPushes();
+        growingTableKeepsEveryState();
+        fixedTableDoesNotGrow();
+        clearForgetsEveryState();
+        System.out.println("OffHeapTranspositionTableTest passed");
+    }
+
+    /**
+     * Checks that a state is only improved by fewer pushes.
+     */
+    private static void improveKeepsTheFewestPushes() {
+        OffHeapTranspositionTable table = new OffHeapTranspositionTable(CELLS, 64,
+                OffHeapTranspositionTable.DEFAULT_MAX_PROBES, OffHeapTranspositionTable.ReplacementPolicy.NEVER);
+
+        TestSupport.checkEquals(-1, table.lookup(node(7, 5)), "unknown state");
+        TestSupport.check(table.improve(node(7, 5)), "new state");
+        TestSupport.check(!table.improve(node(7, 7)), "more pushes");
+        TestSupport.check(table.improve(node(7, 3)), "fewer pushes");
+        TestSupport.checkEquals(3, table.lookup(node(7, 9)), "pushes stored");
+        TestSupport.checkEquals(1L, table.size(), "size");
+    }
+
+    /**
+     * Checks that a table starting with two slots grows and keeps every state it was given.
+     */
+    private static void growingTableKeepsEveryState() {
+        OffHeapTranspositionTable table = new OffHeapTranspositionTable(CELLS, 2, 1 << 20, 8,
+                OffHeapTranspositionTable.ReplacementPolicy.NEVER);
+        int states = 20_000;
+        for (int i = 0; i < states; i++) {
+            TestSupport.check(table.improve(node(i, i % 50)), "new state " + i);
+        }
+
+        TestSupport.checkEquals((long) states, table.size(), "size");
+        TestSupport.checkEquals(0L, table.getDropped(), "dropped");
+        TestSupport.check(table.getGrowths() > 0, "the table grew");
+        TestSupport.check(table.getCapacity() <= table.getMaxCapacity(), "capacity within the largest capacity");
+        TestSupport.check(table.getOccupancy() <= 0.75, "occupancy after growing");
+        for (int i = 0; i < states; i++) {
+            TestSupport.checkEquals(i % 50, table.lookup(node(i, 99)), "pushes of state " + i);
+        }
+    }
+
+    /**
+     * Checks that a table of a fixed size replaces states instead of growing.
+     */
+    private static void fixedTableDoesNotGrow() {
+        OffHeapTranspositionTable table = new OffHeapTranspositionTable(CELLS, 16, 4,
+                OffHeapTranspositionTable.ReplacementPolicy.DEEPEST);
+        for (int i = 0; i < 100; i++) {
+            table.improve(node(i, 100 - i));
+        }
+
+        TestSupport.checkEquals(16L, table.getCapacity(), "capacity");
+        TestSupport.checkEquals(0, table.getGrowths(), "growths");
+        TestSupport.check(table.size() <= 16, "size within the capacity");
+        TestSupport.check(table.getReplaced() > 0, "deeper states were replaced");
+    }
+
+    /**
+     * Checks that a cleared table holds no state.
+     */
+    private static void clearForgetsEveryState() {
+        OffHeapTranspositionTable table = new OffHeapTranspositionTable(CELLS, 2, 1024, 8,
+                OffHeapTranspositionTable.ReplacementPolicy.NEVER);
+        for (int i = 0; i < 500; i++) {
+            table.improve(node(i, 1));
+        }
+        table.clear();
+
+        TestSupport.checkEquals(0L, table.size(), "size");
+        TestSupport.checkEquals(-1, table.lookup(node(42, 1)), "cleared state");
+        TestSupport.check(table.improve(node(42, 1)), "a cleared state is new again");
+    }
+
+    /**
+     * Creates a node of one of 30000 distinct states with two boxes.
+     *
+     * @param state     Number of the state.
+     * @param pushes    Number of pushes of the node.
+     * @return          The {@link SearchNode}.
+     */
+    private static SearchNode node(int state, int pushes) {
+        int[] boxes = {state % 100, 100 + state / 100 % 100};
+        int player = 3 * CELLS + state / 10_000;
+        long boxHash = Zobrist.boxKey(boxes[0]) ^ Zobrist.boxKey(boxes[1]);
+        return new SearchNode(boxes, boxHash, player, pushes, 0, null, -1, -1);
+    }
+}
\ No newline at end of file
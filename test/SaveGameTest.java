@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Tests of the binary save format of {@link SaveGame}.
+ */
+public class SaveGameTest {
+
+    /**
+     * The first bundled level, with seven boxes.
+     */
+    private static final String LEVEL = "  #####|###   #|#.@$  #|### $.#|#.##$ #|# # . ##|#$ *$$.#|#   .  #|########";
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     * @throws IOException if a save can not be handled.
+     */
+    public static void main(String[] args) throws IOException {
+        varIntsTakeSevenBitsPerByte();
+        malformedVarIntsAreRejected();
+        aSaveIsRestoredIntoItsLevel();
+        damagedSavesAreRejected();
+        aSaveOfAnEditedLevelIsRejected();
+        saveFilesAreToldFromLegacyFiles();
+        System.out.println("SaveGameTest passed");
+    }
+
+    /**
+     * Checks that integers are read back and take one byte per 7 bits.
+     *
+     * @throws IOException if an integer can not be read.
+     */
+    private static void varIntsTakeSevenBitsPerByte() throws IOException {
+        int[] values = {0, 1, 127, 128, 300, 16_383, 16_384, 1 << 21, Integer.MAX_VALUE};
+        int[] lengths = {1, 1, 1, 2, 2, 2, 3, 4, 5};
+        for (int i = 0; i < values.length; i++) {
+            ByteBuffer buffer = ByteBuffer.allocate(5);
+            SaveGame.writeVarInt(buffer, values[i]);
+            TestSupport.checkEquals(lengths[i], buffer.position(), "bytes of " + values[i]);
+            buffer.flip();
+            TestSupport.checkEquals(values[i], SaveGame.readVarInt(buffer), "value read back");
+        }
+    }
+
+    /**
+     * Checks that integers that are negative or longer than 5 bytes are rejected.
+     */
+    private static void malformedVarIntsAreRejected() {
+        byte[] negative = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        byte[] tooLong = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        TestSupport.checkThrows(IOException.class, () -> SaveGame.readVarInt(ByteBuffer.wrap(negative)), "negative");
+        TestSupport.checkThrows(IOException.class, () -> SaveGame.readVarInt(ByteBuffer.wrap(tooLong)), "too long");
+    }
+
+    /**
+     * Checks that a save is small, decodes to the same save and restores the position it was taken in.
+     *
+     * @throws IOException if the save can not be handled.
+     */
+    private static void aSaveIsRestoredIntoItsLevel() throws IOException {
+        Model played = TestSupport.level(LEVEL);
+        new GameEngine(played).apply("rRurD");
+        byte[] bytes = SaveGame.of(played, 5).encode();
+        TestSupport.check(bytes.length < 40, "a level with seven boxes takes " + bytes.length + " bytes");
+
+        SaveGame save = SaveGame.decode(bytes);
+        TestSupport.checkEquals(0, save.getLevel(), "level");
+        TestSupport.checkEquals(5, save.getMoves(), "moves");
+        TestSupport.checkEquals(SaveGame.contentHash(played), save.getContentHash(), "content hash");
+
+        Model restored = TestSupport.level(LEVEL);
+        save.restore(restored);
+        TestSupport.checkEquals(played.getHash(), restored.getHash(), "restored position");
+        TestSupport.checkEquals(played.getPlayerCell(), restored.getPlayerCell(), "restored player");
+        TestSupport.check(Arrays.equals(bytes, SaveGame.of(restored, 5).encode()), "same save after restoring");
+    }
+
+    /**
+     * Checks that a save with another magic number or version, cut short or followed by more bytes is
+     * rejected.
+     */
+    private static void damagedSavesAreRejected() {
+        byte[] bytes = SaveGame.of(TestSupport.level(LEVEL), 0).encode();
+
+        byte[] magic = bytes.clone();
+        magic[0] ^= 1;
+        TestSupport.checkThrows(IOException.class, () -> SaveGame.decode(magic), "magic number");
+        byte[] version = bytes.clone();
+        version[4]++;
+        TestSupport.checkThrows(IOException.class, () -> SaveGame.decode(version), "version");
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            TestSupport.checkThrows(IOException.class, () -> SaveGame.decode(truncated), "truncated to " + length);
+        }
+        byte[] trailing = Arrays.copyOf(bytes, bytes.length + 1);
+        TestSupport.checkThrows(IOException.class, () -> SaveGame.decode(trailing), "trailing byte");
+    }
+
+    /**
+     * Checks that a save is not restored into a level that was edited since.
+     *
+     * @throws IOException if the save can not be handled.
+     */
+    private static void aSaveOfAnEditedLevelIsRejected() throws IOException {
+        SaveGame save = SaveGame.decode(SaveGame.of(TestSupport.level(LEVEL), 0).encode());
+        Model edited = TestSupport.level(LEVEL.replace("#   .  #", "#  .   #"));
+        TestSupport.checkThrows(IOException.class, () -> save.restore(edited), "edited level");
+    }
+
+    /**
+     * Checks that save files are recognized by their first bytes.
+     *
+     * @throws IOException if a file can not be handled.
+     */
+    private static void saveFilesAreToldFromLegacyFiles() throws IOException {
+        Path file = Files.createTempFile("sokoban-test", "." + SaveGame.EXTENSION);
+        try {
+            SaveGame.of(TestSupport.level(LEVEL), 0).write(file);
+            TestSupport.check(SaveGame.isSaveGame(file), "save file");
+            TestSupport.checkEquals(0, SaveGame.read(file).getMoves(), "moves read from the file");
+
+            Files.write(file, new byte[] {(byte) 0xAC, (byte) 0xED, 0, 5});
+            TestSupport.check(!SaveGame.isSaveGame(file), "serialized object");
+            Files.write(file, new byte[0]);
+            TestSupport.check(!SaveGame.isSaveGame(file), "empty file");
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,261 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests that the {@link Solver} finds solutions with the fewest pushes, checked against a plain
+ * breadth first search over pushes, and that the moves it returns solve the level.
+ */
+public class SolverTest {
+
+    /**
+     * Small levels whose fewest pushes the breadth first search finds quickly.
+     */
+    private static final String[] LEVELS = {
+            "#######|#@ $ .#|#######",
+            "######|#    #|# $$ #|# .. #|#@   #|######",
+            "#######|#.  @ #|# $$  #|#  #  #|#.    #|#######",
+            "########|#  .   #|# $$$@ #|#  ..  #|########",
+            "#######|#.    #|#.##$ #|#  $ @#|#     #|#######",
+            "########|###  ###|#  $ $ #|# #. . #|#   @  #|########",
+            "  #####|###   #|#.@$  #|### $.#|#.##$ #|# # . ##|#$ *$$.#|#   .  #|########"
+    };
+
+    /**
+     * A level the {@link Solver.Mode#IDA_STAR} search solves in more than one iteration.
+     */
+    private static final String SEVERAL_ITERATIONS = LEVELS[5];
+
+    /**
+     * A level whose box starts in a corner off the marked tile.
+     */
+    private static final String UNSOLVABLE = "######|#$ @.#|######";
+
+    /**
+     * Search modes checked.
+     */
+    private static final Solver.Mode[] MODES = {
+            Solver.Mode.A_STAR, Solver.Mode.PARALLEL, Solver.Mode.IDA_STAR, Solver.Mode.BIDIRECTIONAL
+    };
+
+    /**
+     * Runs the tests.
+     *
+     * @param args  Not used.
+     * @throws IOException if a checkpoint file can not be handled.
+     */
+    public static void main(String[] args) throws IOException {
+        everyModeFindsTheFewestPushes();
+        everyModeReportsAnUnsolvableLevel();
+        idaStarResumesFromItsCheckpoint();
+        idaStarGoesOnWithoutAWritableCheckpoint();
+        System.out.println("SolverTest passed");
+    }
+
+    /**
+     * Checks every mode against the breadth first search on every level.
+     */
+    private static void everyModeFindsTheFewestPushes() {
+        for (String level : LEVELS) {
+            int fewest = fewestPushes(TestSupport.level(level));
+            TestSupport.check(fewest > 0, "the level is solvable: " + level);
+            for (Solver.Mode mode : MODES) {
+                String what = mode + " on " + level;
+                SolverResult result = solve(level, mode);
+                TestSupport.checkEquals(SolverResult.Status.SOLVED, result.getStatus(), what);
+                TestSupport.checkEquals(fewest, result.getPushes(), what);
+
+                GameEngine.Result played = new GameEngine(TestSupport.level(level)).apply(result.getMoves());
+                TestSupport.check(played.getWin(), "the moves solve the level: " + what);
+                TestSupport.checkEquals(fewest, played.getPushes(), "pushes played: " + what);
+            }
+        }
+    }
+
+    /**
+     * Checks that every mode reports a level it can not solve.
+     */
+    private static void everyModeReportsAnUnsolvableLevel() {
+        for (Solver.Mode mode : MODES) {
+            TestSupport.checkEquals(SolverResult.Status.UNSOLVABLE, solve(UNSOLVABLE, mode).getStatus(),
+                    mode.toString());
+        }
+    }
+
+    /**
+     * Checks that a checkpoint is written and that a search resuming from it finds the same solution
+     * with less work, while a level with the same start position but other walls ignores it.
+     *
+     * @throws IOException if the checkpoint file can not be handled.
+     */
+    private static void idaStarResumesFromItsCheckpoint() throws IOException {
+        Path directory = Files.createTempDirectory("sokoban-test");
+        Path checkpoint = directory.resolve("checkpoint.ida");
+        try {
+            SolverResult first = solveIdaStar(SEVERAL_ITERATIONS, checkpoint);
+            TestSupport.check(Files.exists(checkpoint), "a checkpoint is written");
+
+            SolverResult resumed = solveIdaStar(SEVERAL_ITERATIONS, checkpoint);
+            TestSupport.checkEquals(first.getPushes(), resumed.getPushes(), "pushes after resuming");
+            TestSupport.check(resumed.getStatistics().getExpanded() < first.getStatistics().getExpanded(),
+                    "resuming skips the iterations already done");
+
+            String edited = SEVERAL_ITERATIONS.replace("#   @  #", "#   @ ##");
+            SolverResult other = solveIdaStar(edited, checkpoint);
+            TestSupport.checkEquals(fewestPushes(TestSupport.level(edited)), other.getPushes(), "edited level");
+        } finally {
+            Files.deleteIfExists(checkpoint);
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Checks that a checkpoint that can not be written is reported and the search goes on.
+     */
+    private static void idaStarGoesOnWithoutAWritableCheckpoint() {
+        PrintStream err = System.err;
+        ByteArrayOutputStream reported = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(reported, true));
+        try {
+            Path checkpoint = Path.of("no-such-directory", "checkpoint.ida");
+            SolverResult result = solveIdaStar(SEVERAL_ITERATIONS, checkpoint);
+            TestSupport.checkEquals(SolverResult.Status.SOLVED, result.getStatus(), "status");
+            TestSupport.check(reported.size() > 0, "the failed write is reported");
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    /**
+     * Solves a level with the {@link Solver.Mode#IDA_STAR} search and a checkpoint file.
+     *
+     * @param level         The level in the XSB format.
+     * @param checkpoint    The checkpoint file.
+     * @return              The {@link SolverResult}.
+     */
+    private static SolverResult solveIdaStar(String level, Path checkpoint) {
+        Solver solver = new Solver(TestSupport.level(level));
+        solver.setMode(Solver.Mode.IDA_STAR);
+        solver.setCheckpointFile(checkpoint);
+        return solver.solve();
+    }
+
+    /**
+     * Solves a level with a mode.
+     *
+     * @param level     The level in the XSB format.
+     * @param mode      The search mode.
+     * @return          The {@link SolverResult}.
+     */
+    private static SolverResult solve(String level, Solver.Mode mode) {
+        Solver solver = new Solver(TestSupport.level(level));
+        solver.setMode(mode);
+        solver.setTimeLimit(30_000);
+        return solver.solve();
+    }
+
+    /**
+     * Finds the fewest pushes solving a level with a breadth first search over pushes, which keeps
+     * every state and only suits small levels.
+     *
+     * @param model     The level.
+     * @return          The fewest pushes, or -1 if the level can not be solved.
+     */
+    private static int fewestPushes(Model model) {
+        GameGrid map = model.getMap();
+        int width = map.getWidth();
+        int[] offsets = {-width, width, -1, 1};
+        int[] start = new int[model.getBoxCount() + 1];
+        for (int i = 0; i < model.getBoxCount(); i++) {
+            start[i] = model.getBoxCell(i);
+        }
+        Arrays.sort(start, 0, model.getBoxCount());
+        start[model.getBoxCount()] = model.getPlayerCell();
+
+        Set<String> seen = new HashSet<>();
+        List<int[]> layer = List.of(start);
+        for (int pushes = 0; !layer.isEmpty(); pushes++) {
+            List<int[]> next = new ArrayList<>();
+            for (int[] state : layer) {
+                int[] boxes = Arrays.copyOf(state, state.length - 1);
+                boolean[] reach = reach(map, offsets, boxes, state[state.length - 1]);
+                int first = 0;
+                while (!reach[first]) {
+                    first++;
+                }
+                if (!seen.add(Arrays.toString(boxes) + first)) {
+                    continue;
+                }
+                if (Arrays.stream(boxes).allMatch(model::isGoal)) {
+                    return pushes;
+                }
+
+                for (int i = 0; i < boxes.length; i++) {
+                    for (int offset : offsets) {
+                        int target = boxes[i] + offset;
+                        if (!reach[boxes[i] - offset] || isWall(map, target)
+                                || Arrays.binarySearch(boxes, target) >= 0) {
+                            continue;
+                        }
+                        int[] child = Arrays.copyOf(boxes, boxes.length + 1);
+                        child[i] = target;
+                        Arrays.sort(child, 0, boxes.length);
+                        child[boxes.length] = boxes[i];
+                        next.add(child);
+                    }
+                }
+            }
+            layer = next;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the cells the player can walk to without pushing.
+     *
+     * @param map       The static map grid.
+     * @param offsets   The cell index offsets of the four directions.
+     * @param boxes     The sorted cells of the boxes.
+     * @param player    The cell of the player.
+     * @return          Whether each cell can be reached.
+     */
+    private static boolean[] reach(GameGrid map, int[] offsets, int[] boxes, int player) {
+        boolean[] reach = new boolean[map.getWidth() * map.getHeight()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        reach[player] = true;
+        queue.add(player);
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            for (int offset : offsets) {
+                int next = cell + offset;
+                if (!reach[next] && !isWall(map, next) && Arrays.binarySearch(boxes, next) < 0) {
+                    reach[next] = true;
+                    queue.add(next);
+                }
+            }
+        }
+
+        return reach;
+    }
+
+    /**
+     * Checks if a cell is a wall.
+     *
+     * @param map   The static map grid.
+     * @param cell  The cell index.
+     * @return      true if the cell is a wall, false otherwise.
+     */
+    private static boolean isWall(GameGrid map, int cell) {
+        return (map.getTile(cell) & GameGrid.WALL) != 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The {@code TestSupport} class holds the checks and level fixtures shared by the tests.
+ * The tests are plain programs without a test framework and need no display, see {@link AllTests}.
+ */
+final class TestSupport {
+
+    /**
+     * An action expected to throw.
+     */
+    interface Action {
+
+        /**
+         * Runs the action.
+         *
+         * @throws Exception if the action fails.
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Not instantiable.
+     */
+    private TestSupport() {
+    }
+
+    /**
+     * Creates a {@link Model} from a level in the XSB format, with rows separated by {@code '|'}.
+     *
+     * @param xsb   The level, for example {@code "#####|#@$.#|#####"}.
+     * @return      The {@link Model} of the level.
+     */
+    static Model level(String xsb) {
+        List<String> rows = new ArrayList<>();
+        MapFileReader.expandXsbRow(xsb, rows);
+        return MapFileReader.createModelFromXsb(rows, 0, new File[0]);
+    }
+
+    /**
+     * Fails if a condition does not hold.
+     *
+     * @param condition     The condition.
+     * @param message       What the condition means.
+     * @throws AssertionError if the condition is false.
+     */
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Fails if a value is not the expected one.
+     *
+     * @param expected  The expected value.
+     * @param actual    The actual value.
+     * @param message   What the value is.
+     * @throws AssertionError if the values are not equal.
+     */
+    static void checkEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * Fails if an action does not throw an exception of a type.
+     *
+     * @param type      The type of exception expected.
+     * @param action    The action.
+     * @param message   What the action is.
+     * @throws AssertionError if the action returns or throws another exception.
+     */
+    static void checkThrows(Class<? extends Throwable> type, Action action, String message) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but was " + e, e);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName());
+    }
+}
\ No newline at end of file